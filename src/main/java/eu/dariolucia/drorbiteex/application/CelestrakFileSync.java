@@ -16,159 +16,234 @@
 
 package eu.dariolucia.drorbiteex.application;
 
-import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleData;
-import org.orekit.data.DataContext;
-import org.orekit.data.DataProvidersManager;
-import org.orekit.data.DirectoryCrawler;
-import org.orekit.models.earth.atmosphere.data.MarshallSolarActivityFutureEstimation;
-import org.orekit.propagation.analytical.tle.TLE;
+import eu.dariolucia.drorbiteex.model.orbit.CelestrakCatalogueCache;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
 
 import java.io.*;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class CelestrakFileSync {
 
-    private static final String DEFAULT_CONFIG_FOLDER = System.getProperty("user.home") + File.separator + "drorbiteex";
-    private static final String CONFIG_FOLDER_LOCATION_KEY = "drorbiteex.config";
-    private static final String OREKIT_FOLDER_NAME = "orekit-data";
-    public static void main(String[] args) throws IOException {
-        // Usage: CelestrakFileSync <Celestrak group name> <file to update>
+    private static final int MAX_CONCURRENT_DOWNLOADS = 4;
+    private static final String BACKUP_EXTENSION = ".bkp";
+
+    private static final String USAGE = "Usage: CelestrakFileSync <Celestrak group name>[,<Celestrak group name>...] <file to update> [<file to update>...]";
+
+    public static void main(String[] args) {
+        // The Celestrak URL can be changed with the system property drorbiteex.celestrak.url (see CelestrakCatalogueCache)
         // Argument check
-        if(args.length != 2) {
-            System.err.println("Usage: CelestrakFileSync <Celestrak group name> <file to update>");
+        if(args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        List<String> celestrakGroupNames = parseGroupNames(args[0]);
+        List<String> filesToUpdate = Arrays.asList(args).subList(1, args.length);
+        if(!checkArguments(celestrakGroupNames, filesToUpdate)) {
             System.exit(1);
         }
-
-        String celestrakGroupName = args[0];
-        String fileToUpdate = args[1];
 
         // Load Orekit data
-        // Load old configuration if available
-        String configLocation = System.getProperty(CONFIG_FOLDER_LOCATION_KEY);
-        File orekitData;
-        if(configLocation != null && !configLocation.isBlank()) {
-            orekitData = new File(configLocation + File.separator + OREKIT_FOLDER_NAME);
-        } else {
-            orekitData = new File(DEFAULT_CONFIG_FOLDER + File.separator + OREKIT_FOLDER_NAME);
-        }
-        // Orekit initialisation
-        try {
-            DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-            orekitManager.addProvider(new DirectoryCrawler(orekitData));
-        } catch (Exception e) {
-            // You have to quit
-            System.err.println("Orekit initialisation data not found. Steps to fix the problem:\n" +
-                    "1) download https://gitlab.orekit.org/orekit/orekit-data/-/archive/master/orekit-data-master.zip\n" +
-                    "2) extract the archive and rename the resulting extracted folder to 'orekit-data'\n" +
-                    "3) either copy the 'orekit-data' folder\n" +
-                    "\t3a) inside " + DEFAULT_CONFIG_FOLDER + " or \n" +
-                    "\t3b) inside another folder of your choice and " +
-                    "start Dr. Orbiteex JVM with the system property -D" + CONFIG_FOLDER_LOCATION_KEY + "=<path to your folder>");
-            e.printStackTrace();
-            System.exit(-1);
-        }
-
-        // Feed updated information for orbit determination to Orekit. If it fails, keep going
-        try {
-            MarshallSolarActivityFutureEstimation msafe = new MarshallSolarActivityFutureEstimation(
-                    MarshallSolarActivityFutureEstimation.DEFAULT_SUPPORTED_NAMES,
-                    MarshallSolarActivityFutureEstimation.StrengthLevel.AVERAGE);
-            DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-            orekitManager.feed(msafe.getSupportedNames(), msafe); // Feeding the F10.7 bulletins to Orekit's data manager
-        } catch (Exception e) {
-            System.err.println("Cannot feed F10.7 bulletins to Orekit's data manager");
-            e.printStackTrace();
+        OrekitDataBootstrap.initialise();
+
+        if(!sync(celestrakGroupNames, filesToUpdate)) {
+            System.exit(1);
+        }
+    }
+
+    static List<String> parseGroupNames(String groupNames) {
+        return Arrays.stream(groupNames.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    static boolean checkArguments(List<String> celestrakGroupNames, List<String> filesToUpdate) {
+        if(celestrakGroupNames.isEmpty()) {
+            System.err.println("Error: no Celestrak group specified");
+            System.err.println(USAGE);
+            return false;
+        }
+        if(filesToUpdate.isEmpty() || filesToUpdate.stream().anyMatch(String::isBlank)) {
+            System.err.println("Error: no file to update specified");
+            System.err.println(USAGE);
+            return false;
         }
+        return true;
+    }
 
+    /**
+     * Update the TLEs in the provided files with the TLEs of the provided Celestrak groups.
+     *
+     * @param celestrakGroupNames the Celestrak groups to fetch
+     * @param filesToUpdate the files to update
+     * @return true if all groups were fetched and all files were processed, otherwise false
+     */
+    static boolean sync(List<String> celestrakGroupNames, List<String> filesToUpdate) {
+        if(!checkArguments(celestrakGroupNames, filesToUpdate)) {
+            return false;
+        }
         System.out.println("===============================================================================================");
         System.out.println("Dr. Orbiteex - Celestrak File Updater");
         System.out.println("===============================================================================================");
 
-        // Retrieve CelestrakTleData
-        System.out.println("Fetching Celestrak data for group " + celestrakGroupName);
-        Map<String, CelestrakTleData> name2updatedData = null;
-        List<CelestrakTleData> updatedData = CelestrakTleData.retrieveSpacecraftList(celestrakGroupName);
-        if(updatedData != null) {
-            name2updatedData = updatedData.stream().collect(Collectors.toMap(CelestrakFileSync::generateKey, Function.identity()));
-        } else {
+        // Retrieve Celestrak data
+        long startTime = System.currentTimeMillis();
+        System.out.println("Fetching Celestrak data for group(s) " + String.join(", ", celestrakGroupNames));
+        Map<Integer, TleCatalogue.Entry> noradId2updatedData = new HashMap<>();
+        int failedGroups = fetchGroups(celestrakGroupNames, noradId2updatedData);
+        if(failedGroups == celestrakGroupNames.size()) {
             System.err.println("Error: cannot fetch Celestrak data");
-            System.exit(1);
+            return false;
         }
+        System.out.println("Fetched " + noradId2updatedData.size() + " spacecraft from " + (celestrakGroupNames.size() - failedGroups) + " group(s) in " + (System.currentTimeMillis() - startTime) + " ms");
 
-        // Retrieve the data in the file
-        System.out.println("Loading spacecraft information from file " + fileToUpdate);
-        List<CelestrakTleData> newData = null;
-        List<CelestrakTleData> oldData = CelestrakTleData.processCelestrakFile(celestrakGroupName, fileToUpdate);
-        if(oldData != null) {
-            newData = alignData(oldData, name2updatedData);
-        } else {
-            System.err.println("Error: cannot parse file data " + fileToUpdate);
-            System.exit(1);
+        // Align the files
+        int failedFiles = 0;
+        for(String fileToUpdate : filesToUpdate) {
+            if(!syncFile(fileToUpdate, noradId2updatedData)) {
+                ++failedFiles;
+            }
         }
+        System.out.println("Synchronisation completed in " + (System.currentTimeMillis() - startTime) + " ms: " + failedGroups + " group(s) and " + failedFiles + " file(s) with errors");
+        return failedGroups == 0 && failedFiles == 0;
+    }
 
-        // Export file
-        exportFile(fileToUpdate, newData);
+    private static int fetchGroups(List<String> groups, Map<Integer, TleCatalogue.Entry> noradId2updatedData) {
+        if(groups.isEmpty()) {
+            return 0;
+        }
+        ExecutorService service = Executors.newFixedThreadPool(Math.min(groups.size(), MAX_CONCURRENT_DOWNLOADS), (r) -> {
+            Thread t = new Thread(r, "Celestrak File Sync Task");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, Future<TleCatalogue>> futures = new LinkedHashMap<>();
+        for(String group : groups) {
+            futures.put(group, service.submit(() -> CelestrakCatalogueCache.getDefault().getCatalogue(group).getTleCatalogue()));
+        }
+        int failed = 0;
+        try {
+            for(Map.Entry<String, Future<TleCatalogue>> e : futures.entrySet()) {
+                try {
+                    TleCatalogue catalogue = e.getValue().get();
+                    // Merge by NORAD ID: if a spacecraft is in more groups, the most recent TLE is used
+                    for(TleCatalogue.Entry entry : catalogue.getEntries()) {
+                        noradId2updatedData.merge(entry.getNoradId(), entry, (a, b) -> b.getEpoch().after(a.getEpoch()) ? b : a);
+                    }
+                    System.out.println("Group " + e.getKey() + ": " + catalogue.size() + " spacecraft, " + catalogue.getRejected().size() + " invalid TLE(s) discarded");
+                } catch (ExecutionException ex) {
+                    System.err.println("Error: cannot fetch Celestrak group " + e.getKey() + ": " + ex.getCause().getMessage());
+                    ++failed;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return groups.size();
+        } finally {
+            service.shutdownNow();
+        }
+        return failed;
     }
 
-    private static void exportFile(String fileToUpdate, List<CelestrakTleData> newData) throws IOException {
-        // First, move original file to backup
-        File oldFile = new File(fileToUpdate);
-        boolean moved = oldFile.renameTo(new File(fileToUpdate + ".bkp." + System.currentTimeMillis()));
-        String newFileName = fileToUpdate;
-        if(!moved) {
-            System.err.println("Cannot move original TLE file " + fileToUpdate + " to backup, generating new file");
-            // Save file as new
-            newFileName = fileToUpdate + ".new." + System.currentTimeMillis();
-        }
-        File newFile = new File(newFileName);
-        if(!newFile.exists()) {
-            boolean created = newFile.createNewFile();
-            if(!created) {
-                System.err.println("Cannot create TLE file " + newFileName + ", no file will be generated");
-                System.exit(1);
+    private static boolean syncFile(String fileToUpdate, Map<Integer, TleCatalogue.Entry> noradId2updatedData) {
+        long startTime = System.currentTimeMillis();
+        // Retrieve the data in the file
+        String oldContent;
+        TleCatalogue oldData;
+        try {
+            oldContent = Files.readString(Paths.get(fileToUpdate), StandardCharsets.UTF_8);
+            oldData = TleCatalogue.parse("---", oldContent);
+        } catch (IOException e) {
+            System.err.println("Error: cannot parse file data " + fileToUpdate + ": " + e.getMessage());
+            return false;
+        }
+        oldData.getRejected().forEach(r -> System.err.println("Invalid TLE in file " + fileToUpdate + ", kept as it is: " + r));
+        // Align the data: only the TLE lines of the updated entries are replaced, names and invalid records are kept
+        Map<Integer, String> lineIndexToUpdatedLine = new HashMap<>();
+        int updated = 0;
+        int unchanged = 0;
+        int older = 0;
+        int notFound = 0;
+        for(TleCatalogue.Entry d : oldData.getEntries()) {
+            TleCatalogue.Entry newTle = noradId2updatedData.get(d.getNoradId());
+            if(newTle == null) {
+                System.err.println("Spacecraft " + d.getName() + " (" + d.getNoradId() + ") not found in Celestrak updated TLE list, old TLE kept");
+                ++notFound;
+            } else if(newTle.getTle().equals(d.getTle())) {
+                ++unchanged;
+            } else if(!newTle.getEpoch().after(d.getEpoch())) {
+                // Do not replace a TLE with an older one
+                ++older;
+            } else {
+                // Replace the lines where the parser found the old TLE: they are not necessarily adjacent
+                String newTleText = newTle.getTle();
+                int separator = newTleText.indexOf('\n');
+                lineIndexToUpdatedLine.put(d.getLine1Index(), newTleText.substring(0, separator).trim());
+                lineIndexToUpdatedLine.put(d.getLine2Index(), newTleText.substring(separator + 1).trim());
+                ++updated;
             }
         }
-        PrintStream ps = new PrintStream(new FileOutputStream(newFile));
-        for(CelestrakTleData d : newData) {
-            ps.println(d.getName());
-            ps.println(d.getTle());
+        boolean written = false;
+        if(updated > 0) {
+            try {
+                exportFile(fileToUpdate, replaceTles(oldContent, lineIndexToUpdatedLine));
+                written = true;
+            } catch (IOException e) {
+                System.err.println("Error: cannot write TLE file " + fileToUpdate + ": " + e.getMessage());
+                return false;
+            }
         }
-        ps.close();
+        System.out.println("File " + fileToUpdate + ": " + oldData.size() + " spacecraft - " + updated + " updated - " + unchanged + " unchanged - "
+                + older + " older in Celestrak - " + notFound + " not found - " + oldData.getRejected().size() + " invalid - "
+                + (written ? "written" : "not modified") + " in " + (System.currentTimeMillis() - startTime) + " ms");
+        return true;
     }
 
-    private static List<CelestrakTleData> alignData(List<CelestrakTleData> oldData, Map<String, CelestrakTleData> name2updatedData) {
-        System.out.println("Aligning data for " + oldData.size() + " spacecraft... ");
-        List<CelestrakTleData> newData = new LinkedList<>();
-        int total = oldData.size();
-        int success = 0;
-        int failed = 0;
-        for(CelestrakTleData d : oldData) {
-            System.out.print("Updating spacecraft " + d.getName() + " ... ");
-            System.out.flush();
-            String key = generateKey(d);
-            CelestrakTleData newTle = name2updatedData.get(key);
-            if(newTle == null) {
-                System.out.println("Failed");
-                System.err.println("Spacecraft " + d.getName() + " with key " + key + " not found in Celestrak updated TLE list, old TLE kept");
-                newTle = d;
-                ++failed;
+    private static String replaceTles(String content, Map<Integer, String> lineIndexToUpdatedLine) {
+        // Line based replacement: all the lines not belonging to an updated TLE are copied verbatim
+        String[] lines = content.split("\n", -1);
+        StringBuilder sb = new StringBuilder(content.length());
+        for(int i = 0; i < lines.length; ++i) {
+            String updatedLine = lineIndexToUpdatedLine.get(i);
+            if(updatedLine != null) {
+                sb.append(updatedLine);
+                // Keep the original line terminator
+                if(lines[i].endsWith("\r")) {
+                    sb.append('\r');
+                }
             } else {
-                System.out.println("OK");
-                ++success;
+                sb.append(lines[i]);
+            }
+            if(i < lines.length - 1) {
+                sb.append('\n');
             }
-            newData.add(newTle);
         }
-        System.out.println("Alignment completed: " + success + " success - " + failed + " failed - " + total + " total");
-        return newData;
+        return sb.toString();
     }
 
-    private static String generateKey(CelestrakTleData data) {
-        String key = data.getName() + " ";
-        TLE tle = new TLE(data.getTle().substring(0, data.getTle().indexOf("\n")).trim(), data.getTle().substring(data.getTle().indexOf("\n")).trim());
-        return key + tle.getSatelliteNumber();
+    private static void exportFile(String fileToUpdate, String content) throws IOException {
+        Path target = Paths.get(fileToUpdate).toAbsolutePath();
+        // Write the new file next to the original one, so that it can be moved atomically
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+            // Keep the previous version as backup
+            Files.copy(target, target.resolveSibling(target.getFileName() + BACKUP_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
     }
 }
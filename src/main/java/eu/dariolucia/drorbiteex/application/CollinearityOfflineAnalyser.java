@@ -20,29 +20,23 @@ import eu.dariolucia.drorbiteex.application.conf.CollinearityOfflineAnalyserConf
 import eu.dariolucia.drorbiteex.model.collinearity.CollinearityAnalyser;
 import eu.dariolucia.drorbiteex.model.collinearity.CollinearityAnalysisRequest;
 import eu.dariolucia.drorbiteex.model.collinearity.CollinearityEvent;
-import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleData;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.OrbitParameterConfiguration;
+import eu.dariolucia.drorbiteex.model.orbit.TleBinaryCatalogue;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
 import eu.dariolucia.drorbiteex.model.orbit.TleOrbitModel;
 import eu.dariolucia.drorbiteex.model.station.GroundStation;
 import eu.dariolucia.drorbiteex.model.station.GroundStationMask;
 import eu.dariolucia.drorbiteex.model.station.GroundStationParameterConfiguration;
 import eu.dariolucia.drorbiteex.model.util.TimeUtils;
-import org.orekit.data.DataContext;
-import org.orekit.data.DataProvidersManager;
-import org.orekit.data.DirectoryCrawler;
-import org.orekit.models.earth.atmosphere.data.MarshallSolarActivityFutureEstimation;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
 
 public class CollinearityOfflineAnalyser {
 
-    private static final String DEFAULT_CONFIG_FOLDER = System.getProperty("user.home") + File.separator + "drorbiteex";
-    private static final String CONFIG_FOLDER_LOCATION_KEY = "drorbiteex.config";
-    private static final String OREKIT_FOLDER_NAME = "orekit-data";
-
     private final CollinearityOfflineAnalyserConfiguration configuration;
     private final List<Instant> instants;
 
@@ -57,15 +51,34 @@ public class CollinearityOfflineAnalyser {
         System.out.println("===============================================================================================");
         System.out.println("Configuration: ");
         System.out.println(configuration);
-        // Create the list of target orbit models
-        List<CelestrakTleData> targetTleFileContents = CelestrakTleData.processCelestrakFile("---", configuration.getTargetTleOrbitFilePath());
+        // Load the target and reference TLEs once, for all the analysis times
+        List<TleCatalogue.Entry> targetTles = loadTles(configuration.getTargetTleOrbitFilePath());
+        List<TleCatalogue.Entry> referenceTles = loadTles(configuration.getReferenceTleOrbitFilePath());
+        if(referenceTles.isEmpty()) {
+            throw new IOException("No valid reference TLE in file " + configuration.getReferenceTleOrbitFilePath());
+        }
+        TleCatalogue.Entry referenceTle = referenceTles.get(0);
         // Run analysis
         for(Instant i : instants) {
-            runCollinearity(i, new ArrayList<>(targetTleFileContents));
+            runCollinearity(i, referenceTle, targetTles);
+        }
+    }
+
+    private static List<TleCatalogue.Entry> loadTles(String file) throws IOException {
+        if(file.endsWith(TleBinaryCatalogue.FILE_EXTENSION)) {
+            // Memory-mapped catalogue: entries are decoded when used, i.e. batch by batch
+            TleBinaryCatalogue catalogue = TleBinaryCatalogue.open(Paths.get(file));
+            System.out.println("TLE file " + file + ": " + catalogue.size() + " loaded (binary)");
+            return catalogue.asList("---");
+        } else {
+            TleCatalogue catalogue = TleCatalogue.parse("---", Paths.get(file));
+            System.out.println("TLE file " + file + ": " + catalogue.size() + " loaded, " + catalogue.getRejected().size() + " rejected");
+            catalogue.getRejected().forEach(r -> System.err.println("Rejected TLE: " + r));
+            return catalogue.getEntries();
         }
     }
 
-    private void runCollinearity(Instant time, List<CelestrakTleData> targetTleFileContents) throws IOException {
+    private void runCollinearity(Instant time, TleCatalogue.Entry referenceTle, List<TleCatalogue.Entry> targetTleFileContents) throws IOException {
         long startCompTime = System.currentTimeMillis();
         System.out.println("===============================================================================================");
         System.out.println("Running collinearity analysis on time " + time);
@@ -78,10 +91,9 @@ public class CollinearityOfflineAnalyser {
         station.setConfiguration(new GroundStationParameterConfiguration());
 
         // Create the reference orbit model
-        List<CelestrakTleData> referenceTleFileContents = CelestrakTleData.processCelestrakFile("---", configuration.getReferenceTleOrbitFilePath());
-        String referenceOrbitName = referenceTleFileContents.get(0).getName();
-        TleOrbitModel referenceTleModel = new TleOrbitModel(referenceTleFileContents.get(0).getTle());
-        Orbit referenceOrbit = new Orbit(UUID.randomUUID(), String.valueOf(referenceTleModel.getTleObject().getSatelliteNumber()), referenceOrbitName, "---", true, referenceTleModel);
+        String referenceOrbitName = referenceTle.getName();
+        TleOrbitModel referenceTleModel = new TleOrbitModel(referenceTle.getTle(), referenceTle.getTleObject());
+        Orbit referenceOrbit = new Orbit(UUID.randomUUID(), String.valueOf(referenceTle.getNoradId()), referenceOrbitName, "---", true, referenceTleModel);
         referenceOrbit.setOrbitConfiguration(new OrbitParameterConfiguration());
 
         // Prepare the file to write
@@ -101,18 +113,18 @@ public class CollinearityOfflineAnalyser {
 
         int batch = 1;
         // Depending on the number of cores, build and submit <cores> orbits for collinearity computation
-        while(!targetTleFileContents.isEmpty()) {
-            // Extract Math.min(targetTleFileContents.size(), configuration.getCores())
-            int nbToProcess = Math.min(targetTleFileContents.size(), configuration.getCores());
-            List<CelestrakTleData> toProcess = new ArrayList<>(targetTleFileContents.subList(0, nbToProcess));
-            targetTleFileContents.subList(0, nbToProcess).clear();
+        for(int batchStart = 0; batchStart < targetTleFileContents.size(); batchStart += configuration.getCores()) {
+            // Extract Math.min(remaining, configuration.getCores()): the target list is not modified, as it is shared
+            // by all analysis times
+            int nbToProcess = Math.min(targetTleFileContents.size() - batchStart, configuration.getCores());
+            List<TleCatalogue.Entry> toProcess = new ArrayList<>(targetTleFileContents.subList(batchStart, batchStart + nbToProcess));
             // Build corresponding Orbit objects
             List<Orbit> targetOrbits = new ArrayList<>(nbToProcess);
-            for(CelestrakTleData tleData : toProcess) {
+            for(TleCatalogue.Entry tleData : toProcess) {
                 String orbitName = tleData.getName();
                 try {
-                    TleOrbitModel tleModel = new TleOrbitModel(tleData.getTle());
-                    Orbit orbit = new Orbit(UUID.randomUUID(), String.valueOf(tleModel.getTleObject().getSatelliteNumber()), orbitName, "---", true, tleModel);
+                    TleOrbitModel tleModel = new TleOrbitModel(tleData.getTle(), tleData.getTleObject());
+                    Orbit orbit = new Orbit(UUID.randomUUID(), String.valueOf(tleData.getNoradId()), orbitName, "---", true, tleModel);
                     orbit.setOrbitConfiguration(new OrbitParameterConfiguration());
                     targetOrbits.add(orbit);
                 } catch (Exception e) {
@@ -193,42 +205,7 @@ public class CollinearityOfflineAnalyser {
         List<Instant> instants = loadInstants(args[1]);
 
         // Load Orekit data
-        // Load old configuration if available
-        String configLocation = System.getProperty(CONFIG_FOLDER_LOCATION_KEY);
-        File orekitData;
-        if(configLocation != null && !configLocation.isBlank()) {
-            orekitData = new File(configLocation + File.separator + OREKIT_FOLDER_NAME);
-        } else {
-            orekitData = new File(DEFAULT_CONFIG_FOLDER + File.separator + OREKIT_FOLDER_NAME);
-        }
-        // Orekit initialisation
-        try {
-            DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-            orekitManager.addProvider(new DirectoryCrawler(orekitData));
-        } catch (Exception e) {
-            // You have to quit
-            System.err.println("Orekit initialisation data not found. Steps to fix the problem:\n" +
-                    "1) download https://gitlab.orekit.org/orekit/orekit-data/-/archive/master/orekit-data-master.zip\n" +
-                    "2) extract the archive and rename the resulting extracted folder to 'orekit-data'\n" +
-                    "3) either copy the 'orekit-data' folder\n" +
-                    "\t3a) inside " + DEFAULT_CONFIG_FOLDER + " or \n" +
-                    "\t3b) inside another folder of your choice and " +
-                    "start Dr. Orbiteex JVM with the system property -D" + CONFIG_FOLDER_LOCATION_KEY + "=<path to your folder>");
-            e.printStackTrace();
-            System.exit(-1);
-        }
-
-        // Feed updated information for orbit determination to Orekit. If it fails, keep going
-        try {
-            MarshallSolarActivityFutureEstimation msafe = new MarshallSolarActivityFutureEstimation(
-                    MarshallSolarActivityFutureEstimation.DEFAULT_SUPPORTED_NAMES,
-                    MarshallSolarActivityFutureEstimation.StrengthLevel.AVERAGE);
-            DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-            orekitManager.feed(msafe.getSupportedNames(), msafe); // Feeding the F10.7 bulletins to Orekit's data manager
-        } catch (Exception e) {
-            System.err.println("Cannot feed F10.7 bulletins to Orekit's data manager");
-            e.printStackTrace();
-        }
+        OrekitDataBootstrap.initialise();
 
         // Start the analysis
         CollinearityOfflineAnalyser analyser = new CollinearityOfflineAnalyser(configuration, instants);
@@ -30,10 +30,6 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import org.orekit.data.DataContext;
-import org.orekit.data.DataProvidersManager;
-import org.orekit.data.DirectoryCrawler;
-import org.orekit.models.earth.atmosphere.data.MarshallSolarActivityFutureEstimation;
 
 import java.io.File;
 import java.io.IOException;
@@ -44,13 +40,8 @@ public class DrOrbiteex extends Application {
     public static final String APPLICATION_NAME = "Dr. Orbiteex";
     public static final String VERSION = "1.1.1";
 
-    private static final String DEFAULT_CONFIG_FOLDER = System.getProperty("user.home") + File.separator + "drorbiteex";
     private static final String DEFAULT_ORBIT_CONFIG_FILE_NAME = "orbits.xml";
-    private static final String DEFAULT_ORBIT_CONFIG_LOCATION = DEFAULT_CONFIG_FOLDER + File.separator + DEFAULT_ORBIT_CONFIG_FILE_NAME;
     private static final String DEFAULT_GS_CONFIG_FILE_NAME = "groundstations.xml";
-    private static final String DEFAULT_GS_CONFIG_LOCATION = DEFAULT_CONFIG_FOLDER + File.separator + DEFAULT_GS_CONFIG_FILE_NAME;
-    private static final String CONFIG_FOLDER_LOCATION_KEY = "drorbiteex.config";
-    private static final String OREKIT_FOLDER_NAME = "orekit-data";
 
     @Override
     public void start(Stage stage) throws Exception {
@@ -71,49 +62,16 @@ public class DrOrbiteex extends Application {
         }
         // New run a one-off thread to load the manager
         new Thread(() -> {
-            // Load old configuration if available
-            String configLocation = System.getProperty(CONFIG_FOLDER_LOCATION_KEY);
-            File orekitData;
-            String orbitFile;
-            String gsFile;
-            if(configLocation != null && !configLocation.isBlank()) {
-                orbitFile = configLocation + File.separator + DEFAULT_ORBIT_CONFIG_FILE_NAME;
-                gsFile = configLocation + File.separator + DEFAULT_GS_CONFIG_FILE_NAME;
-                orekitData = new File(configLocation + File.separator + OREKIT_FOLDER_NAME);
-            } else {
-                orbitFile = DEFAULT_ORBIT_CONFIG_LOCATION;
-                gsFile = DEFAULT_GS_CONFIG_LOCATION;
-                orekitData = new File(DEFAULT_CONFIG_FOLDER + File.separator + OREKIT_FOLDER_NAME);
-            }
-            // Orekit initialisation
-            try {
-                DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-                orekitManager.addProvider(new DirectoryCrawler(orekitData));
-            } catch (Exception e) {
-                // You have to quit
-                System.err.println("Orekit initialisation data not found. Steps to fix the problem:\n" +
-                        "1) download https://gitlab.orekit.org/orekit/orekit-data/-/archive/master/orekit-data-master.zip\n" +
-                        "2) extract the archive and rename the resulting extracted folder to 'orekit-data'\n" +
-                        "3) either copy the 'orekit-data' folder\n" +
-                        "\t3a) inside " + DEFAULT_CONFIG_FOLDER + " or \n" +
-                        "\t3b) inside another folder of your choice and " +
-                        "start Dr. Orbiteex JVM with the system property -D" + CONFIG_FOLDER_LOCATION_KEY + "=<path to your folder>");
-                e.printStackTrace();
-                System.exit(-1);
-            }
-            // Feed updated information for orbit determination to Orekit. If it fails, keep going
-            try {
-                MarshallSolarActivityFutureEstimation msafe = new MarshallSolarActivityFutureEstimation(
-                        MarshallSolarActivityFutureEstimation.DEFAULT_SUPPORTED_NAMES,
-                        MarshallSolarActivityFutureEstimation.StrengthLevel.AVERAGE);
-                DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
-                orekitManager.feed(msafe.getSupportedNames(), msafe); // Feeding the F10.7 bulletins to Orekit's data manager
-            } catch (Exception e) {
-                System.err.println("Cannot feed F10.7 bulletins to Orekit's data manager");
-                e.printStackTrace();
-            }
+            // Load old configuration if available: same folder used for the Orekit data
+            String configLocation = OrekitDataBootstrap.getConfigFolder();
+            String orbitFile = configLocation + File.separator + DEFAULT_ORBIT_CONFIG_FILE_NAME;
+            String gsFile = configLocation + File.separator + DEFAULT_GS_CONFIG_FILE_NAME;
+            // Orekit initialisation: on failure, the JVM is terminated
+            OrekitDataBootstrap.initialise();
             // Load the model manager
             ModelManager manager = new ModelManager(orbitFile, gsFile);
+            // Write pending configuration changes on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::shutdown, "Model Manager Shutdown"));
 
             Platform.runLater(() -> {
                 // Then the rest
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.application;
+
+import org.orekit.data.DataContext;
+import org.orekit.data.DataProvidersManager;
+import org.orekit.data.DirectoryCrawler;
+import org.orekit.frames.EOPEntry;
+import org.orekit.frames.EOPHistoryLoader;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.ITRFVersion;
+import org.orekit.models.earth.atmosphere.data.MarshallSolarActivityFutureEstimation;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.DateComponents;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.IERSConventions;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Orekit data initialisation shared by the application entry points.
+ * <p>
+ * The Earth Orientation Parameters parsed from the Orekit data folder are saved in a compact snapshot file, next to the
+ * Orekit data folder. On later starts, if the content of the Orekit data folder did not change, the EOP history is
+ * loaded from the snapshot instead of parsing the EOP files. Leap seconds and the other data are loaded from the
+ * Orekit data folder as usual. Frames are warmed up in background.
+ */
+public class OrekitDataBootstrap {
+
+    private static final Logger LOG = Logger.getLogger(OrekitDataBootstrap.class.getName());
+
+    public static final String DEFAULT_CONFIG_FOLDER = System.getProperty("user.home") + File.separator + "drorbiteex";
+    public static final String CONFIG_FOLDER_LOCATION_KEY = "drorbiteex.config";
+    public static final String OREKIT_FOLDER_NAME = "orekit-data";
+
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x44524F45; // DROE
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Conventions used by the application
+    private static final IERSConventions CONVENTIONS = IERSConventions.IERS_2010;
+
+    private static boolean initialised = false;
+
+    private OrekitDataBootstrap() {
+        // Private constructor
+    }
+
+    /**
+     * Return the configuration folder, as specified by the {@link OrekitDataBootstrap#CONFIG_FOLDER_LOCATION_KEY} system
+     * property, or the default one.
+     *
+     * @return the configuration folder
+     */
+    public static String getConfigFolder() {
+        String configLocation = System.getProperty(CONFIG_FOLDER_LOCATION_KEY);
+        if(configLocation != null && !configLocation.isBlank()) {
+            return configLocation;
+        } else {
+            return DEFAULT_CONFIG_FOLDER;
+        }
+    }
+
+    public static File getOrekitDataFolder() {
+        return new File(getConfigFolder() + File.separator + OREKIT_FOLDER_NAME);
+    }
+
+    /**
+     * Initialise Orekit with the data from the Orekit data folder of the configuration folder. If the data is not
+     * available, instructions are printed and the JVM is terminated.
+     */
+    public static synchronized void initialise() {
+        if(initialised) {
+            return;
+        }
+        File orekitData = getOrekitDataFolder();
+        // Orekit initialisation
+        try {
+            DataProvidersManager orekitManager = DataContext.getDefault().getDataProvidersManager();
+            orekitManager.addProvider(new DirectoryCrawler(orekitData));
+        } catch (Exception e) {
+            // You have to quit
+            System.err.println("Orekit initialisation data not found. Steps to fix the problem:\n" +
+                    "1) download https://gitlab.orekit.org/orekit/orekit-data/-/archive/master/orekit-data-master.zip\n" +
+                    "2) extract the archive and rename the resulting extracted folder to 'orekit-data'\n" +
+                    "3) either copy the 'orekit-data' folder\n" +
+                    "\t3a) inside " + DEFAULT_CONFIG_FOLDER + " or \n" +
+                    "\t3b) inside another folder of your choice and " +
+                    "start Dr. Orbiteex JVM with the system property -D" + CONFIG_FOLDER_LOCATION_KEY + "=<path to your folder>");
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        // Use the EOP snapshot, if valid
+        Path snapshotFile = orekitData.toPath().resolveSibling(OREKIT_FOLDER_NAME + SNAPSHOT_FILE_SUFFIX);
+        String fingerprint = computeFingerprint(orekitData.toPath());
+        boolean snapshotUsed = false;
+        if(fingerprint != null) {
+            List<EopRecord> records = loadSnapshot(snapshotFile, fingerprint);
+            if(records != null) {
+                FramesFactory.addEOPHistoryLoader(CONVENTIONS, new SnapshotEopHistoryLoader(records));
+                snapshotUsed = true;
+            }
+        }
+        initialised = true;
+        // Warm up in background: frame construction and, if needed, snapshot creation and solar activity data check
+        boolean createSnapshot = !snapshotUsed && fingerprint != null;
+        Thread warmUp = new Thread(() -> warmUp(createSnapshot ? snapshotFile : null, fingerprint), "Orekit Data Warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    private static void warmUp(Path snapshotFile, String fingerprint) {
+        try {
+            // Load leap seconds, EOP and build the ITRF frame
+            AbsoluteDate now = new AbsoluteDate(new Date(), TimeScalesFactory.getUTC());
+            FramesFactory.getITRF(CONVENTIONS, true).getTransformTo(FramesFactory.getEME2000(), now);
+            if(snapshotFile != null) {
+                List<EOPEntry> entries = FramesFactory.getEOPHistory(CONVENTIONS, true).getEntries();
+                saveSnapshot(snapshotFile, fingerprint, entries);
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Cannot warm up Orekit frames: " + e.getMessage(), e);
+        }
+        // Check the availability of updated information for orbit determination. If it fails, keep going
+        try {
+            new MarshallSolarActivityFutureEstimation(
+                    MarshallSolarActivityFutureEstimation.DEFAULT_SUPPORTED_NAMES,
+                    MarshallSolarActivityFutureEstimation.StrengthLevel.AVERAGE);
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Cannot load F10.7 bulletins from Orekit's data manager: " + e.getMessage(), e);
+        }
+    }
+
+    private static String computeFingerprint(Path orekitData) {
+        // Path, size and modification time of every file: cheap to compute, no file is read
+        try (Stream<Path> files = Files.walk(orekitData)) {
+            List<Path> sortedFiles = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            StringBuilder sb = new StringBuilder();
+            for(Path p : sortedFiles) {
+                sb.append(orekitData.relativize(p)).append('|')
+                        .append(Files.size(p)).append('|')
+                        .append(Files.getLastModifiedTime(p).toMillis()).append('\n');
+            }
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for(byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (IOException | UncheckedIOException | NoSuchAlgorithmException e) {
+            LOG.log(Level.WARNING, "Cannot compute fingerprint of Orekit data folder " + orekitData + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static List<EopRecord> loadSnapshot(Path snapshotFile, String fingerprint) {
+        if(!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(snapshotFile))))) {
+            if(dis.readInt() != SNAPSHOT_MAGIC || dis.readInt() != SNAPSHOT_VERSION || !fingerprint.equals(dis.readUTF())) {
+                // Outdated snapshot
+                return null;
+            }
+            int size = dis.readInt();
+            List<EopRecord> records = new ArrayList<>(size);
+            for(int i = 0; i < size; ++i) {
+                records.add(new EopRecord(dis.readInt(), dis.readDouble(), dis.readDouble(), dis.readDouble(), dis.readDouble(),
+                        dis.readDouble(), dis.readDouble(), dis.readDouble(), dis.readDouble(), ITRFVersion.valueOf(dis.readUTF())));
+            }
+            return records;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Cannot load Orekit data snapshot " + snapshotFile + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static void saveSnapshot(Path snapshotFile, String fingerprint, List<EOPEntry> entries) throws IOException {
+        Path tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                dos.writeInt(SNAPSHOT_MAGIC);
+                dos.writeInt(SNAPSHOT_VERSION);
+                dos.writeUTF(fingerprint);
+                dos.writeInt(entries.size());
+                for(EOPEntry e : entries) {
+                    dos.writeInt(e.getMjd());
+                    dos.writeDouble(e.getUT1MinusUTC());
+                    dos.writeDouble(e.getLOD());
+                    dos.writeDouble(e.getX());
+                    dos.writeDouble(e.getY());
+                    dos.writeDouble(e.getDdPsi());
+                    dos.writeDouble(e.getDdEps());
+                    dos.writeDouble(e.getDx());
+                    dos.writeDouble(e.getDy());
+                    dos.writeUTF(e.getITRFType().name());
+                }
+            }
+            try {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static class EopRecord {
+        private final int mjd;
+        private final double dt;
+        private final double lod;
+        private final double x;
+        private final double y;
+        private final double ddPsi;
+        private final double ddEps;
+        private final double dx;
+        private final double dy;
+        private final ITRFVersion itrfVersion;
+
+        public EopRecord(int mjd, double dt, double lod, double x, double y, double ddPsi, double ddEps, double dx, double dy, ITRFVersion itrfVersion) {
+            this.mjd = mjd;
+            this.dt = dt;
+            this.lod = lod;
+            this.x = x;
+            this.y = y;
+            this.ddPsi = ddPsi;
+            this.ddEps = ddEps;
+            this.dx = dx;
+            this.dy = dy;
+            this.itrfVersion = itrfVersion;
+        }
+    }
+
+    private static class SnapshotEopHistoryLoader implements EOPHistoryLoader {
+
+        private final List<EopRecord> records;
+
+        public SnapshotEopHistoryLoader(List<EopRecord> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void fillHistory(IERSConventions.NutationCorrectionConverter converter, SortedSet<EOPEntry> history) {
+            // The snapshot contains the entries already converted: the converter is not needed
+            for(EopRecord r : records) {
+                AbsoluteDate date = new AbsoluteDate(new DateComponents(DateComponents.MODIFIED_JULIAN_EPOCH, r.mjd), TimeScalesFactory.getUTC());
+                history.add(new EOPEntry(r.mjd, r.dt, r.lod, r.x, r.y, r.ddPsi, r.ddEps, r.dx, r.dy, r.itrfVersion, date));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.application;
+
+import eu.dariolucia.drorbiteex.model.orbit.TleBinaryCatalogue;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class TleCatalogueConverter {
+
+    public static void main(String[] args) throws IOException {
+        // Usage: TleCatalogueConverter <TLE file> <binary catalogue file>
+        // Argument check
+        if(args.length != 2) {
+            System.err.println("Usage: TleCatalogueConverter <TLE file> <binary catalogue file (" + TleBinaryCatalogue.FILE_EXTENSION + ")>");
+            System.exit(1);
+        }
+        String tleFile = args[0];
+        Path binaryFile = Paths.get(args[1]);
+        if(!binaryFile.toString().endsWith(TleBinaryCatalogue.FILE_EXTENSION)) {
+            System.err.println("Warning: binary catalogue file name should end with " + TleBinaryCatalogue.FILE_EXTENSION + " to be recognised by the analysers");
+        }
+
+        // Load Orekit data
+        OrekitDataBootstrap.initialise();
+
+        System.out.println("===============================================================================================");
+        System.out.println("Dr. Orbiteex - TLE Catalogue Converter");
+        System.out.println("===============================================================================================");
+
+        long startTime = System.currentTimeMillis();
+        TleCatalogue catalogue = TleCatalogue.parse("---", Paths.get(tleFile));
+        catalogue.getRejected().forEach(r -> System.err.println("Invalid TLE, skipped: " + r));
+        TleBinaryCatalogue.write(catalogue, binaryFile);
+        System.out.println("Converted " + catalogue.size() + " TLEs (" + catalogue.getRejected().size() + " invalid) from " + tleFile + " to " + binaryFile
+                + " in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+}
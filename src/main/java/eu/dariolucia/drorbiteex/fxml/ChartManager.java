@@ -20,29 +20,65 @@ import javafx.event.ActionEvent;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
-import javafx.geometry.Side;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
 import javafx.util.Pair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Time series chart drawn on a canvas. Samples are kept in primitive arrays and each series is reduced, at drawing
+ * time, to the minimum and maximum value per pixel column: the cost of a redraw depends on the number of samples in
+ * the displayed time range (located by binary search) and the drawing cost on the chart width only.
+ */
 class ChartManager {
-    private final LineChart<Number, Number> errorChart;
-    private final NumberAxis errorTimeAxis;
-    private final NumberAxis errorValueAxis;
+
+    private static final Color[] SERIES_COLORS = new Color[] {
+            Color.web("#f3622d"), Color.web("#fba71b"), Color.web("#57b757"), Color.web("#41a9c9"),
+            Color.web("#4258c9"), Color.web("#9a42c8"), Color.web("#c84164"), Color.web("#888888")
+    };
+
+    private static final double TITLE_HEIGHT = 24;
+    private static final double LEFT_MARGIN = 70;
+    private static final double RIGHT_MARGIN = 10;
+    private static final double BOTTOM_MARGIN = 30;
+    private static final double LEGEND_WIDTH = 150;
+    private static final double LEGEND_LINE_HEIGHT = 14;
+    private static final int TICKS = 10;
+
+    // Samples per block in the min/max block index, used to compute the value range without scanning all samples
+    private static final int BLOCK_SIZE = 256;
+
+    private final String chartName;
+    private final Canvas chart;
     private final Label mousePositionLabel;
+    private final List<TimeSeries> series = new ArrayList<>();
     private boolean autorange = true;
+    private boolean legendVisible = true;
+
+    private long timeLowerBound = 0;
+    private long timeUpperBound = 1;
+    private double valueLowerBound = 0;
+    private double valueUpperBound = 1;
 
     private final NumberToDateAxisFormatter longFormatter;
 
     public ChartManager(String chartName, VBox parent, NumberToDateAxisFormatter formatter) {
+        this.chartName = chartName;
         this.longFormatter = formatter;
 
         this.mousePositionLabel = new Label("");
@@ -52,40 +88,23 @@ class ChartManager {
         this.mousePositionLabel.setMaxSize(ErrorReportDialog.CHART_WIDTH, 24);
         this.mousePositionLabel.setPrefSize(ErrorReportDialog.CHART_WIDTH, 24);
 
-        this.errorTimeAxis = new NumberAxis();
-        this.errorValueAxis = new NumberAxis();
-        this.errorTimeAxis.setAutoRanging(false);
-        this.errorTimeAxis.setTickLabelFormatter(longFormatter);
-        this.errorTimeAxis.setMinorTickVisible(false);
-        this.errorTimeAxis.setTickUnit(3600000);
-        this.errorValueAxis.setAutoRanging(false);
-        this.errorValueAxis.setMinorTickVisible(false);
-
-
-        this.errorChart = new LineChart<>(this.errorTimeAxis, this.errorValueAxis);
-        this.errorChart.setLegendVisible(true);
-        this.errorChart.setLegendSide(Side.RIGHT);
-        this.errorChart.setCreateSymbols(false);
-        this.errorChart.setTitle(chartName);
-        this.errorChart.setMinSize(ErrorReportDialog.CHART_WIDTH, ErrorReportDialog.CHART_HEIGHT);
-        this.errorChart.setMaxSize(ErrorReportDialog.CHART_WIDTH, ErrorReportDialog.CHART_HEIGHT);
-        this.errorChart.setPrefSize(ErrorReportDialog.CHART_WIDTH, ErrorReportDialog.CHART_HEIGHT);
-        this.errorChart.setOnContextMenuRequested(e -> {
+        this.chart = new Canvas(ErrorReportDialog.CHART_WIDTH, ErrorReportDialog.CHART_HEIGHT);
+        this.chart.setOnContextMenuRequested(e -> {
             ContextMenu m = new ContextMenu();
-            for (XYChart.Series<Number, Number> s : this.errorChart.getData()) {
-                CheckMenuItem mItem = new CheckMenuItem(s.getName());
-                mItem.setSelected(s.getNode().isVisible());
+            for (TimeSeries s : this.series) {
+                CheckMenuItem mItem = new CheckMenuItem(s.name);
+                mItem.setSelected(s.visible);
                 mItem.setOnAction(o -> {
-                    s.getNode().setVisible(mItem.isSelected());
-                    updateChartRange(this.errorTimeAxis.getLowerBound(), this.errorTimeAxis.getUpperBound());
+                    s.visible = mItem.isSelected();
+                    updateChartRange(this.timeLowerBound, this.timeUpperBound);
                 });
                 m.getItems().add(mItem);
             }
             m.getItems().add(new SeparatorMenuItem());
             final MenuItem copyItem = new MenuItem("Copy image to clipboard");
             copyItem.setOnAction(event -> {
-                WritableImage image = new WritableImage((int) this.errorChart.getWidth(), (int) this.errorChart.getHeight());
-                image = this.errorChart.snapshot(null, image);
+                WritableImage image = new WritableImage((int) this.chart.getWidth(), (int) this.chart.getHeight());
+                image = this.chart.snapshot(null, image);
                 ClipboardContent content = new ClipboardContent();
                 content.putImage(image);
                 Clipboard.getSystemClipboard().setContent(content);
@@ -96,30 +115,34 @@ class ChartManager {
             yRangeItem.setOnAction(this::openRangeSettingDialog);
             m.getItems().add(yRangeItem);
 
-            m.show(this.errorChart.getScene().getWindow(), e.getScreenX(), e.getScreenY());
+            m.show(this.chart.getScene().getWindow(), e.getScreenX(), e.getScreenY());
         });
-        this.errorChart.setOnMouseMoved((MouseEvent event) -> {
-            Point2D mouseSceneCoords = new Point2D(event.getSceneX(), event.getSceneY());
-            double x = errorTimeAxis.sceneToLocal(mouseSceneCoords).getX();
-            double y = errorValueAxis.sceneToLocal(mouseSceneCoords).getY();
-            String time = longFormatter.toString(errorTimeAxis.getValueForDisplay(x));
-            double value = errorValueAxis.getValueForDisplay(y).doubleValue();
+        this.chart.setOnMouseMoved((MouseEvent event) -> {
+            double x = event.getX() - LEFT_MARGIN;
+            double y = event.getY() - TITLE_HEIGHT;
+            if(x < 0 || y < 0 || x > plotWidth() || y > plotHeight()) {
+                mousePositionLabel.setText("");
+                return;
+            }
+            String time = longFormatter.toString(timeLowerBound + Math.round(x / plotWidth() * (timeUpperBound - timeLowerBound)));
+            double value = valueUpperBound - y / plotHeight() * (valueUpperBound - valueLowerBound);
             mousePositionLabel.setText(time + "\t\t" + value);
         });
-        this.errorChart.setOnMouseExited((MouseEvent event) -> {
+        this.chart.setOnMouseExited((MouseEvent event) -> {
             mousePositionLabel.setText("");
         });
 
-        parent.getChildren().add(this.errorChart);
+        parent.getChildren().add(this.chart);
         parent.getChildren().add(this.mousePositionLabel);
+        redraw();
     }
 
     private void openRangeSettingDialog(ActionEvent event) {
-        Bounds bounds = errorChart.getBoundsInLocal();
-        Bounds screenBounds = errorChart.localToScreen(bounds);
+        Bounds bounds = chart.getBoundsInLocal();
+        Bounds screenBounds = chart.localToScreen(bounds);
         double x = screenBounds.getMinX();
         double y = screenBounds.getMinY();
-        RangePickerPanel.openDialog(new Pair<>(errorValueAxis.getLowerBound(), errorValueAxis.getUpperBound()),
+        RangePickerPanel.openDialog(new Pair<>(valueLowerBound, valueUpperBound),
                 this::setRange,
                 () -> this.autorange = true,
                 new Point2D(x, y));
@@ -127,54 +150,315 @@ class ChartManager {
 
     private void setRange(Pair<Double, Double> doubleDoublePair) {
         this.autorange = false;
-        this.errorValueAxis.setTickUnit((doubleDoublePair.getValue() - doubleDoublePair.getKey()) / 10.0);
-        this.errorValueAxis.setLowerBound(doubleDoublePair.getKey());
-        this.errorValueAxis.setUpperBound(doubleDoublePair.getValue());
+        this.valueLowerBound = doubleDoublePair.getKey();
+        this.valueUpperBound = doubleDoublePair.getValue();
+        redraw();
     }
 
     public void updateChartRange(Number min, Number max) {
         if (min == null || max == null) {
             return;
         }
-        errorTimeAxis.setAutoRanging(false);
-        errorTimeAxis.setLowerBound(min.longValue());
-        errorTimeAxis.setUpperBound(max.longValue());
-        // tick unit is in fraction of ten
-        errorTimeAxis.setTickUnit((max.longValue() - min.longValue()) / 10.0);
+        this.timeLowerBound = min.longValue();
+        this.timeUpperBound = Math.max(max.longValue(), this.timeLowerBound + 1);
         if (autorange) {
             // compute yValue min max
-            double yMin = Double.MAX_VALUE, yMax = Double.MIN_VALUE;
-            for (XYChart.Series<Number, Number> s : errorChart.getData()) {
-                if (s.getNode().isVisible()) {
-                    for (XYChart.Data<Number, Number> d : s.getData()) {
-                        if (d.getXValue().longValue() < min.longValue()) {
-                            continue;
-                        }
-                        if (d.getXValue().longValue() > max.longValue()) {
-                            break;
-                        }
-                        if (yMin > d.getYValue().doubleValue()) {
-                            yMin = d.getYValue().doubleValue();
-                        }
-                        if (yMax < d.getYValue().doubleValue()) {
-                            yMax = d.getYValue().doubleValue();
-                        }
+            double yMin = Double.MAX_VALUE, yMax = -Double.MAX_VALUE;
+            for (TimeSeries s : series) {
+                if (s.visible) {
+                    int from = s.firstIndexFrom(this.timeLowerBound);
+                    int to = s.lastIndexTo(this.timeUpperBound);
+                    if(from <= to) {
+                        yMin = Math.min(yMin, s.min(from, to));
+                        yMax = Math.max(yMax, s.max(from, to));
                     }
                 }
             }
-            if (yMax != Double.MIN_VALUE && yMin != Double.MAX_VALUE) {
-                errorValueAxis.setTickUnit((yMax - yMin) / 10.0);
-                errorValueAxis.setLowerBound(yMin - (yMax - yMin) / 100.0);
-                errorValueAxis.setUpperBound(yMax + (yMax - yMin) / 100.0);
+            if (yMax >= yMin && yMin != Double.MAX_VALUE) {
+                if(yMax == yMin) {
+                    yMax += 0.5;
+                    yMin -= 0.5;
+                }
+                this.valueLowerBound = yMin - (yMax - yMin) / 100.0;
+                this.valueUpperBound = yMax + (yMax - yMin) / 100.0;
+            }
+        }
+        redraw();
+    }
+
+    /**
+     * Add a series to the chart. The arrays are not copied.
+     *
+     * @param name the name of the series
+     * @param times the sample times in milliseconds since the epoch, if not in ascending order the samples are sorted
+     *              in new arrays
+     * @param values the sample values, NaN values are not drawn
+     */
+    public void add(String name, long[] times, double[] values) {
+        if(times.length != values.length) {
+            throw new IllegalArgumentException("Times and values have different length: " + times.length + " != " + values.length);
+        }
+        if(!isSorted(times)) {
+            Integer[] order = new Integer[times.length];
+            for(int i = 0; i < order.length; ++i) {
+                order[i] = i;
             }
+            Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+            long[] sortedTimes = new long[times.length];
+            double[] sortedValues = new double[values.length];
+            for(int i = 0; i < order.length; ++i) {
+                sortedTimes[i] = times[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            times = sortedTimes;
+            values = sortedValues;
         }
+        this.series.add(new TimeSeries(name, times, values, SERIES_COLORS[this.series.size() % SERIES_COLORS.length]));
+        redraw();
     }
 
-    public void add(XYChart.Series<Number, Number> series) {
-        errorChart.getData().add(series);
+    private static boolean isSorted(long[] times) {
+        for(int i = 1; i < times.length; ++i) {
+            if(times[i] < times[i - 1]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void setLegendVisible(boolean b) {
-        this.errorChart.setLegendVisible(b);
+        this.legendVisible = b;
+        redraw();
+    }
+
+    private double plotWidth() {
+        return chart.getWidth() - LEFT_MARGIN - RIGHT_MARGIN - (legendVisible ? LEGEND_WIDTH : 0);
+    }
+
+    private double plotHeight() {
+        return chart.getHeight() - TITLE_HEIGHT - BOTTOM_MARGIN;
+    }
+
+    private void redraw() {
+        GraphicsContext gc = chart.getGraphicsContext2D();
+        double width = plotWidth();
+        double height = plotHeight();
+        gc.clearRect(0, 0, chart.getWidth(), chart.getHeight());
+        // Title
+        gc.setFill(Color.BLACK);
+        gc.setFont(Font.font(null, FontWeight.BOLD, 13));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(chartName, LEFT_MARGIN + width / 2, TITLE_HEIGHT / 2);
+        // Grid and tick labels
+        gc.setFont(Font.font(10));
+        gc.setLineWidth(1);
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setFill(Color.DIMGRAY);
+        for(int i = 0; i <= TICKS; ++i) {
+            double x = Math.floor(LEFT_MARGIN + width * i / TICKS) + 0.5;
+            double y = Math.floor(TITLE_HEIGHT + height * i / TICKS) + 0.5;
+            gc.strokeLine(x, TITLE_HEIGHT, x, TITLE_HEIGHT + height);
+            gc.strokeLine(LEFT_MARGIN, y, LEFT_MARGIN + width, y);
+            if(i % 2 == 0) {
+                // Time label on two lines (date and time), only for every other tick to avoid overlaps
+                gc.setTextAlign(TextAlignment.CENTER);
+                gc.setTextBaseline(VPos.TOP);
+                String time = longFormatter.toString(timeLowerBound + (timeUpperBound - timeLowerBound) * i / TICKS);
+                gc.fillText(time.replace(' ', '\n'), x, TITLE_HEIGHT + height + 3);
+                // Value label
+                gc.setTextAlign(TextAlignment.RIGHT);
+                gc.setTextBaseline(VPos.CENTER);
+                double value = valueUpperBound - (valueUpperBound - valueLowerBound) * i / TICKS;
+                gc.fillText(String.format("%.4g", value), LEFT_MARGIN - 4, y);
+            }
+        }
+        gc.setStroke(Color.GRAY);
+        gc.strokeRect(LEFT_MARGIN + 0.5, TITLE_HEIGHT + 0.5, Math.floor(width), Math.floor(height));
+        // Series, clipped to the plot area
+        gc.save();
+        gc.beginPath();
+        gc.rect(LEFT_MARGIN, TITLE_HEIGHT, width, height);
+        gc.clip();
+        gc.setLineWidth(1.5);
+        for(TimeSeries s : series) {
+            if(s.visible) {
+                drawSeries(gc, s, width, height);
+            }
+        }
+        gc.restore();
+        // Legend
+        if(legendVisible) {
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.CENTER);
+            double x = LEFT_MARGIN + width + RIGHT_MARGIN;
+            double y = TITLE_HEIGHT + LEGEND_LINE_HEIGHT / 2;
+            for(TimeSeries s : series) {
+                if(y > TITLE_HEIGHT + height) {
+                    break;
+                }
+                gc.setStroke(s.visible ? s.color : Color.LIGHTGRAY);
+                gc.setLineWidth(3);
+                gc.strokeLine(x, y, x + 12, y);
+                gc.setFill(s.visible ? Color.BLACK : Color.GRAY);
+                gc.fillText(s.name, x + 16, y, LEGEND_WIDTH - 20);
+                y += LEGEND_LINE_HEIGHT;
+            }
+        }
+    }
+
+    private void drawSeries(GraphicsContext gc, TimeSeries s, double width, double height) {
+        // One sample before and one after the displayed range, so that lines reach the borders
+        int from = Math.max(0, s.firstIndexFrom(timeLowerBound) - 1);
+        int to = Math.min(s.size() - 1, s.lastIndexTo(timeUpperBound) + 1);
+        if(from > to) {
+            return;
+        }
+        double timeScale = width / (timeUpperBound - timeLowerBound);
+        double valueScale = (valueUpperBound - valueLowerBound) == 0 ? 0 : height / (valueUpperBound - valueLowerBound);
+        double baseY = TITLE_HEIGHT + height;
+        gc.setStroke(s.color);
+        gc.beginPath();
+        // Reduce the samples to first, min, max and last value for each pixel column
+        boolean started = false;
+        long currentColumn = Long.MIN_VALUE;
+        double first = 0, min = 0, max = 0, last = 0;
+        for(int i = from; i <= to; ++i) {
+            double v = s.values[i];
+            if(Double.isNaN(v)) {
+                continue;
+            }
+            long column = (long) Math.floor((s.times[i] - timeLowerBound) * timeScale);
+            if(column != currentColumn) {
+                if(currentColumn != Long.MIN_VALUE) {
+                    started = drawColumn(gc, started, LEFT_MARGIN + currentColumn, baseY, valueScale, first, min, max, last);
+                }
+                currentColumn = column;
+                first = min = max = last = v;
+            } else {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                last = v;
+            }
+        }
+        if(currentColumn != Long.MIN_VALUE) {
+            drawColumn(gc, started, LEFT_MARGIN + currentColumn, baseY, valueScale, first, min, max, last);
+        }
+        gc.stroke();
+    }
+
+    private boolean drawColumn(GraphicsContext gc, boolean started, double x, double baseY, double valueScale, double first, double min, double max, double last) {
+        double yFirst = baseY - (first - valueLowerBound) * valueScale;
+        if(started) {
+            gc.lineTo(x, yFirst);
+        } else {
+            gc.moveTo(x, yFirst);
+        }
+        if(min != max) {
+            gc.lineTo(x, baseY - (min - valueLowerBound) * valueScale);
+            gc.lineTo(x, baseY - (max - valueLowerBound) * valueScale);
+            gc.lineTo(x, baseY - (last - valueLowerBound) * valueScale);
+        }
+        return true;
+    }
+
+    private static class TimeSeries {
+        private final String name;
+        private final long[] times;
+        private final double[] values;
+        private final Color color;
+        private final double[] blockMin;
+        private final double[] blockMax;
+        private boolean visible = true;
+
+        public TimeSeries(String name, long[] times, double[] values, Color color) {
+            this.name = name;
+            this.times = times;
+            this.values = values;
+            this.color = color;
+            // Build the min/max block index (NaN values are ignored)
+            int blocks = (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            this.blockMin = new double[blocks];
+            this.blockMax = new double[blocks];
+            Arrays.fill(this.blockMin, Double.MAX_VALUE);
+            Arrays.fill(this.blockMax, -Double.MAX_VALUE);
+            for(int i = 0; i < values.length; ++i) {
+                if(!Double.isNaN(values[i])) {
+                    int b = i / BLOCK_SIZE;
+                    this.blockMin[b] = Math.min(this.blockMin[b], values[i]);
+                    this.blockMax[b] = Math.max(this.blockMax[b], values[i]);
+                }
+            }
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * @return the index of the first sample with time greater or equal to the provided time (size() if none)
+         */
+        public int firstIndexFrom(long time) {
+            int idx = Arrays.binarySearch(times, time);
+            if(idx < 0) {
+                return -idx - 1;
+            }
+            // Go back to the first sample with the same time
+            while(idx > 0 && times[idx - 1] == time) {
+                --idx;
+            }
+            return idx;
+        }
+
+        /**
+         * @return the index of the last sample with time less or equal to the provided time (-1 if none)
+         */
+        public int lastIndexTo(long time) {
+            int idx = Arrays.binarySearch(times, time);
+            if(idx < 0) {
+                return -idx - 2;
+            }
+            // Go forward to the last sample with the same time
+            while(idx < times.length - 1 && times[idx + 1] == time) {
+                ++idx;
+            }
+            return idx;
+        }
+
+        public double min(int from, int to) {
+            double result = Double.MAX_VALUE;
+            int i = from;
+            while(i <= to) {
+                if(i % BLOCK_SIZE == 0 && i + BLOCK_SIZE - 1 <= to) {
+                    // Whole block
+                    result = Math.min(result, blockMin[i / BLOCK_SIZE]);
+                    i += BLOCK_SIZE;
+                } else {
+                    if(!Double.isNaN(values[i])) {
+                        result = Math.min(result, values[i]);
+                    }
+                    ++i;
+                }
+            }
+            return result;
+        }
+
+        public double max(int from, int to) {
+            double result = -Double.MAX_VALUE;
+            int i = from;
+            while(i <= to) {
+                if(i % BLOCK_SIZE == 0 && i + BLOCK_SIZE - 1 <= to) {
+                    // Whole block
+                    result = Math.max(result, blockMax[i / BLOCK_SIZE]);
+                    i += BLOCK_SIZE;
+                } else {
+                    if(!Double.isNaN(values[i])) {
+                        result = Math.max(result, values[i]);
+                    }
+                    ++i;
+                }
+            }
+            return result;
+        }
     }
 }
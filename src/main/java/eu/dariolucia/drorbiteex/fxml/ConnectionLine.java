@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import javafx.geometry.Point3D;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Cylinder;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+/**
+ * Reusable 3D line between two points, rendered as a cylinder. The endpoints are changed by updating the transforms in
+ * place: the cylinder mesh has unit height and it is scaled to the required length, so it is never regenerated.
+ */
+public class ConnectionLine {
+
+    private static final Point3D Y_AXIS = new Point3D(0, 1, 0);
+
+    private final Cylinder cylinder;
+    private final Translate moveToMidpoint = new Translate();
+    private final Rotate rotateAroundCenter = new Rotate();
+    private final Scale scaleToLength = new Scale();
+
+    public ConnectionLine(double size) {
+        this.cylinder = new Cylinder(size, 1, 8);
+        this.cylinder.getTransforms().addAll(this.moveToMidpoint, this.rotateAroundCenter, this.scaleToLength);
+    }
+
+    public Cylinder getNode() {
+        return cylinder;
+    }
+
+    public void setColor(Color color) {
+        this.cylinder.setMaterial(DrawingUtils.getMaterial(color));
+    }
+
+    public void update(Point3D origin, Point3D target) {
+        Point3D diff = target.subtract(origin);
+        Point3D mid = target.midpoint(origin);
+        this.moveToMidpoint.setX(mid.getX());
+        this.moveToMidpoint.setY(mid.getY());
+        this.moveToMidpoint.setZ(mid.getZ());
+        Point3D axisOfRotation = diff.crossProduct(Y_AXIS);
+        if(axisOfRotation.magnitude() < 1e-9) {
+            // Parallel to the Y axis: any perpendicular axis works
+            axisOfRotation = Rotate.X_AXIS;
+        }
+        double angle = Math.acos(Math.max(-1, Math.min(1, diff.normalize().dotProduct(Y_AXIS))));
+        this.rotateAroundCenter.setAxis(axisOfRotation);
+        this.rotateAroundCenter.setAngle(-Math.toDegrees(angle));
+        this.scaleToLength.setY(diff.magnitude());
+    }
+}
@@ -24,11 +24,11 @@ import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.*;
 import javafx.scene.transform.Rotate;
-import javafx.scene.transform.Translate;
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.orekit.bodies.GeodeticPoint;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import static eu.dariolucia.drorbiteex.model.util.EarthReferenceUtils.REAL_EARTH_RADIUS_METERS;
 
@@ -37,36 +37,17 @@ public class DrawingUtils {
     public static final int EARTH_RADIUS = 200;
     public static final double EARTH_SCALE_FACTOR = (double) EARTH_RADIUS / (double) REAL_EARTH_RADIUS_METERS;
 
-    public static Cylinder createConnection(Point3D origin, Point3D target, Color color) {
-        return createConnection(origin, target, color, 0.4);
-    }
-
-    public static Cylinder createConnection(Point3D origin, Point3D target, Color color, double size) {
-        Point3D yAxis = new Point3D(0, 1, 0);
-        Point3D diff = target.subtract(origin);
-        double height = diff.magnitude();
-
-        Point3D mid = target.midpoint(origin);
-        Translate moveToMidpoint = new Translate(mid.getX(), mid.getY(), mid.getZ());
-
-        Point3D axisOfRotation = diff.crossProduct(yAxis);
-        double angle = Math.acos(diff.normalize().dotProduct(yAxis));
-        Rotate rotateAroundCenter = new Rotate(-Math.toDegrees(angle), axisOfRotation);
-
-        Cylinder line = new Cylinder(size, height, 8);
-        PhongMaterial m = new PhongMaterial(color);
-        line.setMaterial(m);
-        line.getTransforms().addAll(moveToMidpoint, rotateAroundCenter);
-
-        return line;
-    }
-
-    public static Group createLine(List<Point3D> point3DList, Color color) {
-        Group toReturn = new Group();
-        for(int i = 0; i < point3DList.size() - 1; ++i) {
-            toReturn.getChildren().add(createConnection(point3DList.get(i), point3DList.get(i + 1), color));
-        }
-        return toReturn;
+    private static final Map<Color, PhongMaterial> MATERIALS = new HashMap<>();
+
+    /**
+     * Return the material of the provided colour, shared by all the 3D items with the same colour. To be called only
+     * from the JavaFX thread.
+     *
+     * @param color the colour
+     * @return the material
+     */
+    public static PhongMaterial getMaterial(Color color) {
+        return MATERIALS.computeIfAbsent(color, PhongMaterial::new);
     }
 
     public static Group createEarthSphere() {
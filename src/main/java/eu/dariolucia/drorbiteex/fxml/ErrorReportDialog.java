@@ -20,7 +20,6 @@ import eu.dariolucia.drorbiteex.fxml.range.RangeSelector;
 import eu.dariolucia.drorbiteex.model.collinearity.ErrorPoint;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
@@ -110,15 +109,19 @@ public class ErrorReportDialog implements Initializable {
             // Create error series
             String itemName = e.getKey();
             List<ErrorPoint> errorPoints = e.getValue();
-            // You have one value for each dataset
-            // Inefficient
-            for(int i = 0; i < datasetLabels.length; ++i) {
-                XYChart.Series<Number, Number> series = new XYChart.Series<>();
-                series.setName(itemName);
-                for (ErrorPoint tp : errorPoints) {
-                    series.getData().add(new XYChart.Data<>(tp.getTime().toEpochMilli(), tp.getErrorAt(i)));
+            // You have one value for each dataset: times are shared by all datasets
+            long[] times = new long[errorPoints.size()];
+            double[][] values = new double[datasetLabels.length][errorPoints.size()];
+            int j = 0;
+            for (ErrorPoint tp : errorPoints) {
+                times[j] = tp.getTime().toEpochMilli();
+                for(int i = 0; i < datasetLabels.length; ++i) {
+                    values[i][j] = tp.getErrorAt(i);
                 }
-                charts.get(i).add(series);
+                ++j;
+            }
+            for(int i = 0; i < datasetLabels.length; ++i) {
+                charts.get(i).add(itemName, times, values[i]);
             }
         }
         rangeSelectorController.setBounds(minTime, maxTime);
@@ -16,6 +16,7 @@
 
 package eu.dariolucia.drorbiteex.fxml;
 
+import eu.dariolucia.drorbiteex.model.oem.BatchOemGenerationRequest;
 import eu.dariolucia.drorbiteex.model.oem.OemExporterRegistry;
 import eu.dariolucia.drorbiteex.model.oem.OemGenerationRequest;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
@@ -41,9 +42,12 @@ import java.net.URL;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ExportOemOrbitDialog implements Initializable {
 
@@ -81,6 +85,7 @@ public class ExportOemOrbitDialog implements Initializable {
 
     private String error;
     private Orbit orbit;
+    private List<Orbit> batchOrbits;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -168,19 +173,11 @@ public class ExportOemOrbitDialog implements Initializable {
 
     public OemGenerationRequest getResult() {
         try {
-            LAST_PERIOD = Integer.parseInt(periodText.getText());
+            storeLastValues();
             Date start = DialogUtils.getDate(startDatePicker, startTimeText);
             Date end = DialogUtils.getDate(endDatePicker, endTimeText);
-            LAST_TIME_DIFFERENCE = end.getTime() - start.getTime();
             Frame frame = getFrame();
             FileFormat format = getFormat();
-            LAST_FRAME = frameCombo.getValue();
-            LAST_FORMAT = formatCombo.getValue();
-            LAST_GENERATOR = fileGeneratorCombo.getValue();
-            LAST_POSTPROCESSOR = postProcessorCombo.getValue();
-            LAST_FILE = filePathText.getText();
-            LAST_FOLDER = folderPathText.getText();
-            LAST_FILE_SELECTED = filePathRadio.isSelected();
 
             return new OemGenerationRequest(orbit.copy().getModel().getPropagator(), codeText.getText(), nameText.getText(), start, end, Integer.parseInt(periodText.getText()),
                     filePathRadio.isSelected() ? filePathText.getText() : null,
@@ -195,6 +192,38 @@ public class ExportOemOrbitDialog implements Initializable {
         }
     }
 
+    public BatchOemGenerationRequest getBatchResult() {
+        try {
+            storeLastValues();
+            Date start = DialogUtils.getDate(startDatePicker, startTimeText);
+            Date end = DialogUtils.getDate(endDatePicker, endTimeText);
+            return new BatchOemGenerationRequest(batchOrbits, start, end, Integer.parseInt(periodText.getText()),
+                    getFrame(),
+                    getFormat(),
+                    folderPathText.getText(),
+                    fileGeneratorCombo.getValue(),
+                    postProcessorCombo.getValue(),
+                    Runtime.getRuntime().availableProcessors());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void storeLastValues() throws ParseException {
+        LAST_PERIOD = Integer.parseInt(periodText.getText());
+        Date start = DialogUtils.getDate(startDatePicker, startTimeText);
+        Date end = DialogUtils.getDate(endDatePicker, endTimeText);
+        LAST_TIME_DIFFERENCE = end.getTime() - start.getTime();
+        LAST_FRAME = frameCombo.getValue();
+        LAST_FORMAT = formatCombo.getValue();
+        LAST_GENERATOR = fileGeneratorCombo.getValue();
+        LAST_POSTPROCESSOR = postProcessorCombo.getValue();
+        LAST_FILE = filePathText.getText();
+        LAST_FOLDER = folderPathText.getText();
+        LAST_FILE_SELECTED = filePathRadio.isSelected();
+    }
+
     private FileFormat getFormat() {
         switch (formatCombo.getSelectionModel().getSelectedItem()) {
             case "XML": return FileFormat.XML;
@@ -216,10 +245,22 @@ public class ExportOemOrbitDialog implements Initializable {
     }
 
     public static OemGenerationRequest openDialog(Window owner, Orbit gs) {
+        return openDialog(owner, "Export OEM of " + gs.getName(), c -> c.initialise(gs), ExportOemOrbitDialog::getResult);
+    }
+
+    /**
+     * Open the dialog to export one OEM file per orbit in a folder. The file name is derived from the selected
+     * name generator.
+     */
+    public static BatchOemGenerationRequest openBatchDialog(Window owner, List<Orbit> orbits) {
+        return openDialog(owner, "Export OEM of " + orbits.size() + " orbits", c -> c.initialiseBatch(orbits), ExportOemOrbitDialog::getBatchResult);
+    }
+
+    private static <T> T openDialog(Window owner, String title, Consumer<ExportOemOrbitDialog> initialiser, Function<ExportOemOrbitDialog, T> resultSupplier) {
         try {
             // Create the popup
             Dialog<ButtonType> d = new Dialog<>();
-            d.setTitle("Export OEM of " + gs.getName());
+            d.setTitle(title);
             d.initModality(Modality.APPLICATION_MODAL);
             d.initOwner(owner);
             d.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
@@ -229,7 +270,7 @@ public class ExportOemOrbitDialog implements Initializable {
             AnchorPane root = loader.load();
             CssHolder.applyTo(root);
             ExportOemOrbitDialog controller = loader.getController();
-            controller.initialise(gs);
+            initialiser.accept(controller);
 
             d.getDialogPane().setContent(root);
             d.getDialogPane().getStylesheets().addAll(root.getStylesheets());
@@ -238,7 +279,7 @@ public class ExportOemOrbitDialog implements Initializable {
             ok.disableProperty().bind(controller.validData.not());
             Optional<ButtonType> result = d.showAndWait();
             if (result.isPresent() && result.get().equals(ButtonType.OK)) {
-                return controller.getResult();
+                return resultSupplier.apply(controller);
             } else {
                 return null;
             }
@@ -273,6 +314,19 @@ public class ExportOemOrbitDialog implements Initializable {
         folderPathRadio.setSelected(!LAST_FILE_SELECTED);
     }
 
+    private void initialiseBatch(List<Orbit> orbits) {
+        initialise(orbits.get(0));
+        this.batchOrbits = orbits;
+        // Code and name are taken from each orbit, one file per orbit in the selected folder
+        this.codeText.setText("-");
+        this.nameText.setText(orbits.size() + " orbits");
+        this.codeText.setDisable(true);
+        this.nameText.setDisable(true);
+        this.isTle = orbits.stream().allMatch(o -> o.getModel() instanceof TleOrbitModel);
+        folderPathRadio.setSelected(true);
+        filePathRadio.setDisable(true);
+    }
+
     private void selectCombo(ComboBox<String> combo, String value) {
         if (value != null && combo.getItems().contains(value)){
             combo.getSelectionModel().select(value);
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatcher of model updates to the JavaFX thread. Instead of posting one runnable per model callback, updates are
+ * collected and applied once per JavaFX pulse:
+ * <ul>
+ *     <li>keyed updates (owner, subject) replace any pending update with the same key, so that intermediate states are
+ *     dropped and only the latest state is rendered;</li>
+ *     <li>dirty actions (e.g. a scene redraw) are run once per pulse, after all updates, regardless of how many times
+ *     they were requested.</li>
+ * </ul>
+ * Updates are applied in the order of their last submission.
+ */
+public class FxUpdateDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(FxUpdateDispatcher.class.getName());
+
+    private static final Object LOCK = new Object();
+    private static LinkedHashMap<Object, Runnable> pendingUpdates = new LinkedHashMap<>();
+    private static LinkedHashSet<Runnable> dirtyActions = new LinkedHashSet<>();
+    private static boolean started = false;
+
+    private static final AnimationTimer PULSE_TIMER = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            dispatch();
+        }
+    };
+
+    private FxUpdateDispatcher() {
+        // Not to be instantiated
+    }
+
+    /**
+     * Run the provided update on the next pulse. The update is not coalesced.
+     *
+     * @param r the update
+     */
+    public static void runLater(Runnable r) {
+        submit(new Object(), r);
+    }
+
+    /**
+     * Run the provided update on the next pulse, replacing any pending update with the same owner and subject.
+     *
+     * @param owner the object owning the update (e.g. the graphics object or controller)
+     * @param subject the subject of the update (e.g. the orbit), can be null
+     * @param r the update
+     */
+    public static void runLater(Object owner, Object subject, Runnable r) {
+        submit(new Key(owner, subject), r);
+    }
+
+    /**
+     * Run the provided action once on the next pulse, after all the pending updates. The action is identified by
+     * equality: use the same instance for the same action.
+     *
+     * @param action the action
+     */
+    public static void markDirty(Runnable action) {
+        synchronized (LOCK) {
+            dirtyActions.add(action);
+            ensureStarted();
+        }
+    }
+
+    /**
+     * Drop all the pending updates of the provided owner.
+     *
+     * @param owner the owner
+     */
+    public static void cancel(Object owner) {
+        synchronized (LOCK) {
+            pendingUpdates.keySet().removeIf(k -> k instanceof Key && ((Key) k).owner == owner);
+        }
+    }
+
+    private static void submit(Object key, Runnable r) {
+        synchronized (LOCK) {
+            // Remove first, so that the update is moved at the end of the sequence
+            pendingUpdates.remove(key);
+            pendingUpdates.put(key, r);
+            ensureStarted();
+        }
+    }
+
+    private static void ensureStarted() {
+        if(!started) {
+            started = true;
+            Platform.runLater(PULSE_TIMER::start);
+        }
+    }
+
+    private static void dispatch() {
+        // Updates first: they can mark actions as dirty
+        LinkedHashMap<Object, Runnable> updates;
+        synchronized (LOCK) {
+            if(pendingUpdates.isEmpty() && dirtyActions.isEmpty()) {
+                return;
+            }
+            updates = pendingUpdates;
+            pendingUpdates = new LinkedHashMap<>();
+        }
+        for(Runnable r : updates.values()) {
+            run(r);
+        }
+        LinkedHashSet<Runnable> actions;
+        synchronized (LOCK) {
+            actions = dirtyActions;
+            dirtyActions = new LinkedHashSet<>();
+        }
+        for(Runnable r : actions) {
+            run(r);
+        }
+    }
+
+    private static void run(Runnable r) {
+        try {
+            r.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error when applying UI update: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class Key {
+        private final Object owner;
+        private final Object subject;
+
+        private Key(Object owner, Object subject) {
+            this.owner = owner;
+            this.subject = subject;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return owner == key.owner && Objects.equals(subject, key.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(owner), subject);
+        }
+    }
+}
@@ -20,14 +20,11 @@ import eu.dariolucia.drorbiteex.model.ModelManager;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.SpacecraftPosition;
 import eu.dariolucia.drorbiteex.model.station.*;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Point3D;
 import javafx.scene.Group;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.PhongMaterial;
-import javafx.scene.shape.Cylinder;
 import javafx.scene.shape.Sphere;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
@@ -51,9 +48,14 @@ public class GroundStationGraphics implements IGroundStationListener {
     private transient Sphere graphicItem;
     private transient Group visibilityItem;
 
-    private transient Map<Orbit, Cylinder> orbit2visibility = new HashMap<>();
+    private transient Map<Orbit, ConnectionLine> orbit2visibility = new HashMap<>();
+    // Link nodes not in use: kept in the scene graph but hidden, to be reused
+    private transient Deque<ConnectionLine> freeVisibilityLines = new ArrayDeque<>();
     private transient Text textItem;
     private transient Group groupItem;
+    // Cached projection of the visibility circle of the selected orbit
+    private transient VisibilityCircle renderedVisibilityCircle;
+    private transient ProjectedPolyline visibilityCirclePolyline;
 
     public GroundStationGraphics(ModelManager manager, GroundStation obj) {
         this.manager = manager;
@@ -65,9 +67,9 @@ public class GroundStationGraphics implements IGroundStationListener {
     }
 
     private void updateVisibility() {
-        for (Map.Entry<Orbit, Cylinder> e : orbit2visibility.entrySet()) {
+        for (Map.Entry<Orbit, ConnectionLine> e : orbit2visibility.entrySet()) {
             // Override
-            e.getValue().setVisible(visibilityLineProperty.get() && visibleProperty.get() && e.getKey().isVisible());
+            e.getValue().getNode().setVisible(visibilityLineProperty.get() && visibleProperty.get() && e.getKey().isVisible());
         }
     }
 
@@ -95,8 +97,7 @@ public class GroundStationGraphics implements IGroundStationListener {
     }
 
     private void updateGraphicItems() {
-        PhongMaterial m = new PhongMaterial(Color.valueOf(obj.getColor()));
-        this.graphicItem.setMaterial(m);
+        this.graphicItem.setMaterial(DrawingUtils.getMaterial(Color.valueOf(obj.getColor())));
         // Compute the absolute position of the sphere in the space
         Point3D location = DrawingUtils.latLonToScreenPoint(obj.getLatitude(), obj.getLongitude(), DrawingUtils.EARTH_RADIUS);
         this.graphicItem.setTranslateX(location.getX());
@@ -134,20 +135,17 @@ public class GroundStationGraphics implements IGroundStationListener {
             gc.setLineWidth(1.0);
             if(selectedOrbit != null) {
                 VisibilityCircle vc = obj.getVisibilityCircleOf(selectedOrbit.getOrbit());
-                if (vc != null) {
-                    List<double[]> visibilityCircleSortedLatLon = vc.getVisibilityCircle().stream().map(gp -> new double[]{Math.toDegrees(gp.getLatitude()), Math.toDegrees(gp.getLongitude())}).collect(Collectors.toCollection(ArrayList::new));
-                    // toXY puts the longitude into [0] and the latitude into [1]
-                    List<double[]> toRender = visibilityCircleSortedLatLon.stream().map(gp -> DrawingUtils.mapToWidgetCoordinates(gp[0], gp[1], widgetViewport, latLonViewport)).collect(Collectors.toCollection(ArrayList::new));
+                // Projected and simplified to the current resolution: a single run, as no culling is applied
+                List<double[]> runs = vc != null ? getVisibilityCirclePolyline(vc).project(widgetViewport, latLonViewport) : Collections.emptyList();
+                if (!runs.isEmpty()) {
+                    double[] toRender = runs.get(0);
                     if (vc.isPolarCircle()) {
-                        toRender.sort(LONGITUDE_SORTER);
                         // Solution: points ordered according to longitude, draw them, then close the line with the two corners (check latitude)
                         gc.beginPath();
-                        double[] p0 = toRender.get(0);
                         // Render from right to left
-                        gc.moveTo(p0[0], p0[1]);
-                        for (int i = 1; i < toRender.size(); ++i) {
-                            double[] pi = toRender.get(i);
-                            gc.lineTo(pi[0], pi[1]);
+                        gc.moveTo(toRender[0], toRender[1]);
+                        for (int i = 2; i < toRender.length; i += 2) {
+                            gc.lineTo(toRender[i], toRender[i + 1]);
                         }
                         // Now the main line is draw: we have to close it with two corner points
                         if (obj.getLatitude() > 0) {
@@ -157,19 +155,17 @@ public class GroundStationGraphics implements IGroundStationListener {
                             gc.lineTo(widgetViewport.getEndX(), widgetViewport.getEndY()); // bottom right
                             gc.lineTo(widgetViewport.getStartX(), widgetViewport.getEndY()); // bottom left
                         }
-                        gc.lineTo(p0[0], p0[1]);
+                        gc.lineTo(toRender[0], toRender[1]);
                         gc.stroke();
                         gc.fill();
                         gc.closePath();
                     } else {
-                        double[] p0 = toRender.get(0);
                         gc.beginPath();
-                        gc.moveTo(p0[0], p0[1]);
-                        for (int i = 1; i < toRender.size(); ++i) {
-                            double[] pi = toRender.get(i);
-                            gc.lineTo(pi[0], pi[1]);
+                        gc.moveTo(toRender[0], toRender[1]);
+                        for (int i = 2; i < toRender.length; i += 2) {
+                            gc.lineTo(toRender[i], toRender[i + 1]);
                         }
-                        gc.lineTo(p0[0], p0[1]);
+                        gc.lineTo(toRender[0], toRender[1]);
                         gc.stroke();
                         gc.fill();
                         gc.closePath();
@@ -179,12 +175,25 @@ public class GroundStationGraphics implements IGroundStationListener {
         }
     }
 
+    private void applyUpdate() {
+        if(this.graphicItem == null) {
+            // Disposed
+            return;
+        }
+        updateGraphicItems();
+    }
+
     public void dispose() {
+        FxUpdateDispatcher.cancel(this);
         this.obj.removeListener(this);
         this.graphicItem.visibleProperty().unbind();
         this.textItem.visibleProperty().unbind();
+        this.visibilityItem.visibleProperty().unbind();
+        this.orbit2visibility.clear();
+        this.freeVisibilityLines.clear();
         this.graphicItem = null;
         this.textItem = null;
+        this.visibilityItem = null;
         this.groupItem = null;
     }
 
@@ -196,21 +205,22 @@ public class GroundStationGraphics implements IGroundStationListener {
     @Override
     public void groundStationRemoved(GroundStationManager manager, GroundStation groundStation) {
         if(groundStation.equals(this.obj)) {
-            Platform.runLater(this::dispose);
+            FxUpdateDispatcher.runLater(this::dispose);
         }
     }
 
     @Override
     public void groundStationUpdated(GroundStation groundStation) {
         if(groundStation.equals(this.obj)) {
-            Platform.runLater(this::updateGraphicItems);
+            FxUpdateDispatcher.runLater(this, null, this::applyUpdate);
         }
     }
 
     @Override
     public void groundStationOrbitDataUpdated(GroundStation groundStation, Orbit orbit, List<VisibilityWindow> visibilityWindows, VisibilityCircle visibilityCircle, TrackPoint currentPoint) {
         if(groundStation.equals(this.obj)) {
-            Platform.runLater(this::updateGraphicItems);
+            // The graphic items depend only on the ground station: one update per pulse, whatever the number of orbits
+            FxUpdateDispatcher.runLater(this, null, this::applyUpdate);
         }
     }
 
@@ -219,25 +229,49 @@ public class GroundStationGraphics implements IGroundStationListener {
         if(!groundStation.equals(this.obj)) {
             return;
         }
-        Platform.runLater(() -> {
-            // Remove the old line
-            Cylinder visibilityLine = this.orbit2visibility.remove(orbit);
-            if(visibilityLine != null) {
-                this.visibilityItem.getChildren().remove(visibilityLine);
+        // Superseded by the next position update of the same orbit
+        FxUpdateDispatcher.runLater(this, orbit, () -> {
+            if(this.visibilityItem == null) {
+                // Not created yet or disposed
+                return;
             }
-            // Add the new line, in case the elevation justifies it
             if(point != null && point.getElevation() > 0) {
-                // Satellite position
+                // Satellite position: reuse the line of the orbit, or a free one, and move it
+                ConnectionLine connection = this.orbit2visibility.get(orbit);
+                if(connection == null) {
+                    connection = acquireVisibilityLine();
+                    this.orbit2visibility.put(orbit, connection);
+                }
                 Point3D scPos = transform(point.getSpacecraftPosition());
                 Point3D gsPos = DrawingUtils.latLonToScreenPoint(obj.getLatitude(), obj.getLongitude(), DrawingUtils.EARTH_RADIUS);
-                Cylinder connection = DrawingUtils.createConnection(scPos, gsPos, Color.valueOf(obj.getColor()), 0.2);
-                connection.setVisible(visibilityLineProperty.get() && visibleProperty.get() && orbit.isVisible());
-                this.visibilityItem.getChildren().add(connection);
-                this.orbit2visibility.put(orbit, connection);
+                connection.update(scPos, gsPos);
+                connection.setColor(Color.valueOf(obj.getColor()));
+                connection.getNode().setVisible(visibilityLineProperty.get() && visibleProperty.get() && orbit.isVisible());
+            } else {
+                // No visibility: release the line, if any
+                releaseVisibilityLine(orbit);
             }
         });
     }
 
+    private ConnectionLine acquireVisibilityLine() {
+        ConnectionLine line = this.freeVisibilityLines.poll();
+        if(line == null) {
+            // The scene graph changes only when the pool grows
+            line = new ConnectionLine(0.2);
+            this.visibilityItem.getChildren().add(line.getNode());
+        }
+        return line;
+    }
+
+    private void releaseVisibilityLine(Orbit orbit) {
+        ConnectionLine line = this.orbit2visibility.remove(orbit);
+        if(line != null) {
+            line.getNode().setVisible(false);
+            this.freeVisibilityLines.push(line);
+        }
+    }
+
     private Point3D transform(SpacecraftPosition ss) {
         Vector3D position = ss.getPositionVector();
         // ECEF to screen
@@ -263,26 +297,37 @@ public class GroundStationGraphics implements IGroundStationListener {
         return visibilityLineProperty;
     }
 
+    // Sort [latitude, longitude] points as their widget coordinates: by longitude (x), then by decreasing latitude (y)
     private static final Comparator<double[]> LONGITUDE_SORTER = (o1, o2) -> {
-        if(o1[0] == o2[0]) {
-            return Double.compare(o1[1], o2[1]);
+        if(o1[1] == o2[1]) {
+            return Double.compare(o2[0], o1[0]);
         } else {
-            return Double.compare(o1[0], o2[0]);
+            return Double.compare(o1[1], o2[1]);
         }
     };
 
+    private ProjectedPolyline getVisibilityCirclePolyline(VisibilityCircle vc) {
+        // A new visibility circle object is provided on each orbit data update
+        if(vc != this.renderedVisibilityCircle) {
+            List<double[]> latLon = vc.getVisibilityCircle().stream().map(gp -> new double[]{Math.toDegrees(gp.getLatitude()), Math.toDegrees(gp.getLongitude())}).collect(Collectors.toCollection(ArrayList::new));
+            if (vc.isPolarCircle()) {
+                latLon.sort(LONGITUDE_SORTER);
+            }
+            // Closed shape: no culling, simplification only
+            this.visibilityCirclePolyline = new ProjectedPolyline(latLon, false, ProjectedPolyline.DEFAULT_PIXEL_TOLERANCE);
+            this.renderedVisibilityCircle = vc;
+        }
+        return this.visibilityCirclePolyline;
+    }
+
     public void informOrbitUpdated(Orbit orbit) {
-        Cylinder visibilityLine = this.orbit2visibility.get(orbit);
+        ConnectionLine visibilityLine = this.orbit2visibility.get(orbit);
         if(visibilityLine != null) {
-            visibilityLine.setVisible(visibilityLineProperty.get() && visibleProperty.get() && orbit.isVisible());
+            visibilityLine.getNode().setVisible(visibilityLineProperty.get() && visibleProperty.get() && orbit.isVisible());
         }
     }
 
     public void informOrbitRemoved(Orbit orbit) {
-        Cylinder visibilityLine = this.orbit2visibility.get(orbit);
-        if(visibilityLine != null) {
-            visibilityLine = this.orbit2visibility.remove(orbit);
-            this.visibilityItem.getChildren().remove(visibilityLine);
-        }
+        releaseVisibilityLine(orbit);
     }
 }
@@ -37,6 +37,7 @@ import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxListCell;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.VBox;
@@ -83,6 +84,9 @@ public class GroundStationPane implements Initializable {
 
     private PolarPlot groundStationPolarPlot;
 
+    // Contents of the pass table, updated per orbit
+    private PassTableModel passTableModel;
+
     private ModelManager manager;
     private Supplier<List<Orbit>> orbitSupplier;
 
@@ -105,6 +109,7 @@ public class GroundStationPane implements Initializable {
         orbitColumn.setCellValueFactory(o -> new ReadOnlyStringWrapper(String.valueOf(o.getValue().getOrbitNumber())));
         aosColumn.setCellValueFactory(o -> new ReadOnlyStringWrapper(o.getValue().getAosString()));
         losColumn.setCellValueFactory(o -> new ReadOnlyStringWrapper(o.getValue().getLosString()));
+        passTableModel = new PassTableModel(passTable.getItems());
         groundStationList.getSelectionModel().selectedItemProperty().addListener((o,a,b) -> refreshPassTableSelection(b));
         groundStationList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         passTable.getSelectionModel().selectedItemProperty().addListener((a,b,c) -> updatePolarPlotSelection(c));
@@ -136,17 +141,13 @@ public class GroundStationPane implements Initializable {
     private void refreshPassTableSelection(GroundStationGraphics b) {
         // If there is already a pass selected, remember it
         VisibilityWindow selected = passTable.getSelectionModel().getSelectedItem();
-        passTable.getItems().clear();
+        passTableModel.clear();
         // Clear the ground station polar plot
         groundStationPolarPlot.clear();
         if(b != null) {
             polarPlotController.selectGroundStation(b);
             groundStationPolarPlot.selectGroundStation(b);
-            Map<Orbit, List<VisibilityWindow>> windows = b.getGroundStation().getAllVisibilityWindows();
-            List<VisibilityWindow> vw = new LinkedList<>();
-            windows.values().forEach(vw::addAll);
-            Collections.sort(vw);
-            passTable.getItems().addAll(vw);
+            passTableModel.setAll(b.getGroundStation().getAllVisibilityWindows());
             // If there was a selection, re-select it
             if(selected != null && selected.getStation().equals(b.getGroundStation())) {
                 // Look for the visibility and select it
@@ -332,8 +333,50 @@ public class GroundStationPane implements Initializable {
             updatePolarPlotText(currentVisibilityWindow);
         }
         if(groundStationList.getSelectionModel().getSelectedItem() != null && groundStation.equals(groundStationList.getSelectionModel().getSelectedItem().getGroundStation())) {
-            // Force refresh of visibility windows
-            refreshPassTableSelection();
+            // Apply the changes of the orbit visibility windows
+            updatePassTable(orbit, visibilityWindows);
+            groundStationPolarPlot.setSpacecraftPosition(
+                    orbit,
+                    orbit.getName(),
+                    currentPoint != null ? new Point2D(currentPoint.getAzimuth(), currentPoint.getElevation()) : null,
+                    Color.valueOf(orbit.getColor()));
+        }
+    }
+
+    private void updatePassTable(Orbit orbit, List<VisibilityWindow> visibilityWindows) {
+        VisibilityWindow selected = passTable.getSelectionModel().getSelectedItem();
+        // Remember the first visible row, to keep it in place if rows are added or removed above it
+        VirtualFlow<?> flow = (VirtualFlow<?>) passTable.lookup(".virtual-flow");
+        IndexedCell<?> firstCell = flow != null ? flow.getFirstVisibleCell() : null;
+        int firstVisibleIndex = firstCell != null ? firstCell.getIndex() : -1;
+        VisibilityWindow firstVisible = firstVisibleIndex >= 0 && firstVisibleIndex < passTable.getItems().size() ? passTable.getItems().get(firstVisibleIndex) : null;
+        if(!passTableModel.update(orbit, visibilityWindows)) {
+            return;
+        }
+        // If the selected window was replaced, select the new window of the same orbit number
+        if(selected != null && selected.getOrbit().equals(orbit) && passTableModel.indexOf(selected) < 0) {
+            VisibilityWindow replacement = null;
+            for(VisibilityWindow window : passTableModel.getWindowsOf(orbit)) {
+                if(window.getOrbitNumber() == selected.getOrbitNumber()) {
+                    replacement = window;
+                    break;
+                }
+            }
+            if(replacement != null) {
+                passTable.getSelectionModel().select(replacement);
+            } else {
+                passTable.getSelectionModel().clearSelection();
+            }
+        }
+        if(firstVisible != null) {
+            int idx = passTableModel.indexOf(firstVisible);
+            if(idx < 0) {
+                // Removed: keep the row that took its place
+                idx = -idx - 1;
+            }
+            if(idx != firstVisibleIndex && !passTable.getItems().isEmpty()) {
+                passTable.scrollTo(Math.min(idx, passTable.getItems().size() - 1));
+            }
         }
     }
     private void updatePolarPlotText(VisibilityWindow currentVisibilityWindow) {
@@ -603,6 +646,9 @@ public class GroundStationPane implements Initializable {
         for(GroundStationGraphics g : getGroundStationGraphics()) {
             g.informOrbitRemoved(graphics.getOrbit());
         }
+        // Remove the passes and the position of the orbit
+        updatePassTable(graphics.getOrbit(), null);
+        groundStationPolarPlot.setSpacecraftPosition(graphics.getOrbit(), graphics.getOrbit().getName(), null, null);
     }
 
     public void onSkyCoverageAnalysisAction(ActionEvent actionEvent) {
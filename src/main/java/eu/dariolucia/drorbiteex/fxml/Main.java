@@ -17,12 +17,16 @@
 package eu.dariolucia.drorbiteex.fxml;
 
 import eu.dariolucia.drorbiteex.application.DrOrbiteex;
+import eu.dariolucia.drorbiteex.fxml.progress.IMonitorableCallable;
+import eu.dariolucia.drorbiteex.fxml.progress.ProgressDialog;
 import eu.dariolucia.drorbiteex.model.ModelManager;
 import eu.dariolucia.drorbiteex.model.orbit.IOrbitListener;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.OrbitManager;
 import eu.dariolucia.drorbiteex.model.orbit.SpacecraftPosition;
+import eu.dariolucia.drorbiteex.model.replay.ReplayEphemeris;
 import eu.dariolucia.drorbiteex.model.station.*;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
 import eu.dariolucia.drorbiteex.model.util.TimeUtils;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -37,9 +41,12 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import java.util.logging.Handler;
 import java.util.logging.LogRecord;
@@ -48,6 +55,8 @@ import java.util.stream.Collectors;
 
 public class Main implements Initializable, IOrbitListener, IGroundStationListener {
     public static final int UPDATE_PERIOD = 5000;
+    public static final int PRECOMPUTED_REPLAY_PERIOD = 200;
+    public static final int PRECOMPUTED_REPLAY_REFRESH_PERIOD = 5000;
 
     // Ground Station Pane
     public GroundStationPane groundStationPaneController;
@@ -64,7 +73,18 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
     // Time tracker
     public ToggleButton timerRealTimeTrackingButton;
     public Label currentTimeLabel;
-    private final Timer tracker = new Timer();
+    public Label trackingLagLabel;
+    public Tooltip trackingLagTooltip;
+    private final TrackingClock trackingClock = new TrackingClock(BackgroundThread.getExecutor(),
+            time -> this.manager.getOrbitManager().updateOrbitTime(time, false), this::trackingClockUpdated);
+    // Precomputed replay: ephemeris and clock
+    private final TrackingClock replayClock = new TrackingClock(BackgroundThread.getExecutor(), this::applyPrecomputedReplayTime, this::replayClockUpdated);
+    private volatile ReplayEphemeris replayEphemeris;
+    private List<GroundStation> replayStations = Collections.emptyList();
+    private volatile Date lastReplayFullUpdate;
+    private volatile long lastReplayFullUpdateWallTime;
+    private final AtomicBoolean replayFullUpdatePending = new AtomicBoolean(false);
+    private boolean replaySliderUpdate = false;
     public ToggleButton toggle3DvisibilityLineButton;
     public AnchorPane dropshadow;
     public AnchorPane polarPlotPane;
@@ -75,13 +95,15 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
     public ToggleButton replayTrackingButton;
     public ToggleButton replay2SpeedTrackingButton;
     public ToggleButton replay4SpeedTrackingButton;
+    public ToggleButton precomputedReplayButton;
+    public ComboBox<Integer> precomputedReplayDurationCombo;
+    public ComboBox<Integer> precomputedReplaySpeedCombo;
+    public Slider precomputedReplaySlider;
     public Button editReplayDateTimeButton;
     public TabPane accordion;
     public TextField logText;
     public LogViewer logViewer = new LogViewer();
 
-    private TimerTask timerTask = null;
-
     public ToggleButton minimapButton;
     public ToggleButton toggle3DviewButton;
     private final ChangeListener<Boolean> visibilityUpdateListener = (observableValue, aBoolean, t1) -> update2Dscene();
@@ -99,6 +121,12 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
     private ModelManager manager;
 
     private boolean orbitUpdateInProgress = false;
+
+    // UI updates, applied at most once per pulse
+    private final Set<Orbit> orbitsWithModelDataUpdate = ConcurrentHashMap.newKeySet();
+    private final Runnable update2DsceneAction = this::update2Dscene;
+    private final Runnable update2DsceneSpacecraftAction = this::update2DsceneSpacecraft;
+    private final Runnable refreshOrbitListAction = () -> orbitPaneController.refreshOrbitList();
     private Stage replayPanelEditStage;
 
     @Override
@@ -132,34 +160,59 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
 
         // Wiring button disabling depending on the status
         editReplayDateTimeButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty())))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty()))))
         );
         stepForwardTrackingButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty())))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty()))))
         );
         stepBackwardTrackingButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty())))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty()))))
         );
         timerRealTimeTrackingButton.disableProperty().bind(
-                Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty()))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty())))
         );
         replayTrackingButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty()))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty())))
         );
         replay2SpeedTrackingButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(),
-                        replay4SpeedTrackingButton.selectedProperty()))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty())))
         );
         replay4SpeedTrackingButton.disableProperty().bind(
-                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(),
-                        replay2SpeedTrackingButton.selectedProperty()))
+                Bindings.or(precomputedReplayButton.selectedProperty(), Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(),
+                        replay2SpeedTrackingButton.selectedProperty())))
         );
 
+        precomputedReplayButton.disableProperty().bind(
+                Bindings.or(timerRealTimeTrackingButton.selectedProperty(), Bindings.or(replayTrackingButton.selectedProperty(), Bindings.or(replay2SpeedTrackingButton.selectedProperty(),
+                        replay4SpeedTrackingButton.selectedProperty())))
+        );
+        precomputedReplayDurationCombo.disableProperty().bind(precomputedReplayButton.selectedProperty());
+
+        // Precomputed replay configuration
+        precomputedReplayDurationCombo.getItems().addAll(1, 6, 12, 24, 48);
+        precomputedReplayDurationCombo.setConverter(suffixConverter(" h"));
+        precomputedReplayDurationCombo.getSelectionModel().select(Integer.valueOf(24));
+        precomputedReplaySpeedCombo.getItems().addAll(10, 30, 100, 300, 1000);
+        precomputedReplaySpeedCombo.setConverter(suffixConverter("x"));
+        precomputedReplaySpeedCombo.getSelectionModel().select(Integer.valueOf(100));
+        precomputedReplaySpeedCombo.valueProperty().addListener((a,b,c) -> {
+            if(c != null && this.replayClock.isRunning()) {
+                // Same time, new speed
+                this.replayClock.start(this.replayClock.getCurrentTime(), c, PRECOMPUTED_REPLAY_PERIOD);
+            }
+        });
+        precomputedReplaySlider.valueProperty().addListener((a,b,c) -> {
+            if(!this.replaySliderUpdate && this.replayEphemeris != null) {
+                seekPrecomputedReplay(c.longValue());
+            }
+        });
+
         orbitPaneController.registerVisibilitySelectionHandler(this::update2Dscene);
 
         // Register to logs
@@ -230,7 +283,6 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
             orbitPaneController.deregisterOrbit(graphics);
             groundStationPaneController.deregisterOrbit(graphics);
             update2Dscene();
-            groundStationPaneController.refreshPassTableSelection();
         }
     }
 
@@ -238,51 +290,218 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
         scene2dController.refreshScene();
     }
 
-    public void onActivateRealTimeTrackingAction(ActionEvent actionEvent) {
-        handleTimerActivation(this.timerRealTimeTrackingButton, this::getRealTimeDate);
+    private void update2DsceneSpacecraft() {
+        scene2dController.refreshSpacecraft();
     }
 
-    private void handleTimerActivation(ToggleButton toggleButton, Supplier<Date> dateSupplier) {
-        if(toggleButton.isSelected() && this.timerTask == null) {
-            activateTrackingTimer(dateSupplier, getUpdatePeriod());
-        } else if(!toggleButton.isSelected() && this.timerTask != null){
-            deactivateTrackingTimer();
-        }
+    public void onActivateRealTimeTrackingAction(ActionEvent actionEvent) {
+        handleTimerActivation(this.timerRealTimeTrackingButton, this::getRealTimeDate);
     }
 
-    private void deactivateTrackingTimer() {
-        if(this.timerTask != null) {
-            this.timerTask.cancel();
-            this.timerTask = null;
+    private void handleTimerActivation(ToggleButton toggleButton, Supplier<Date> startDateSupplier) {
+        if(toggleButton.isSelected() && !this.trackingClock.isRunning()) {
+            double speed = getTrackingSpeed();
+            this.trackingClock.start(startDateSupplier.get(), speed, Math.round(UPDATE_PERIOD / speed));
+        } else if(!toggleButton.isSelected() && this.trackingClock.isRunning()){
+            this.trackingClock.stop();
+            this.trackingLagLabel.setText("LAG ---");
+            this.trackingLagTooltip.setText("Tracking clock not active");
         }
     }
 
-    private int getUpdatePeriod() {
+    private double getTrackingSpeed() {
         if(timerRealTimeTrackingButton.isSelected() || replayTrackingButton.isSelected()) {
-            return UPDATE_PERIOD;
+            return 1;
         } else if(replay2SpeedTrackingButton.isSelected()) {
-            return UPDATE_PERIOD/2;
+            return 2;
         } else if(replay4SpeedTrackingButton.isSelected()) {
-            return UPDATE_PERIOD/4;
+            return 4;
         } else {
-            throw new IllegalStateException("Cannot derive update period");
+            throw new IllegalStateException("Cannot derive tracking speed");
         }
     }
 
-    private void activateTrackingTimer(Supplier<Date> dateSupplier, int waitPeriod) {
-        this.timerTask = new TimerTask() {
+    private void trackingClockUpdated(TrackingClock clock) {
+        long lag = clock.getLag();
+        long period = clock.getPeriod();
+        double cost = clock.getAverageCost();
+        long dropped = clock.getDroppedTicks();
+        FxUpdateDispatcher.runLater(this, trackingLagLabel, () -> {
+            if(!clock.isRunning()) {
+                return;
+            }
+            this.trackingLagLabel.setText("LAG " + lag + " ms");
+            this.trackingLagTooltip.setText(String.format("Update lag: %d ms\nAverage update cost: %.0f ms\nUpdate period: %d ms\nDropped ticks: %d", lag, cost, period, dropped));
+        });
+    }
+
+    public void onActivatePrecomputedReplayAction(ActionEvent actionEvent) {
+        if(!precomputedReplayButton.isSelected()) {
+            stopPrecomputedReplay();
+            return;
+        }
+        final String taskName = "Precomputed Replay";
+        Date start = getReplayStartDate();
+        Date end = new Date(start.getTime() + precomputedReplayDurationCombo.getValue() * 3600000L);
+        List<Orbit> orbits = manager.getOrbitManager().getOrbits().stream().filter(Orbit::isVisible).collect(Collectors.toList());
+        List<GroundStation> stations = manager.getGroundStationManager().getGroundStations();
+        long memory = ReplayEphemeris.estimateMemory(orbits.size(), stations.size(), start, end, ReplayEphemeris.DEFAULT_STEP_SECONDS);
+        if(memory > ReplayEphemeris.getMemoryLimit()) {
+            precomputedReplayButton.setSelected(false);
+            DialogUtils.alert(taskName, "Replay ephemeris computation", String.format("The ephemeris of %d orbits and %d ground stations would require %d MB, limit is %d MB: reduce the duration or the number of visible orbits",
+                    orbits.size(), stations.size(), memory / (1024 * 1024), ReplayEphemeris.getMemoryLimit() / (1024 * 1024)));
+            return;
+        }
+        if(memory > ReplayEphemeris.MEMORY_WARNING_BYTES && !DialogUtils.confirm(taskName, null, String.format("The ephemeris of %d orbits and %d ground stations will require %d MB. Do you want to continue?",
+                orbits.size(), stations.size(), memory / (1024 * 1024)))) {
+            precomputedReplayButton.setSelected(false);
+            return;
+        }
+        IMonitorableCallable<ReplayEphemeris> task = monitor -> {
+            ITaskProgressMonitor monitorBridge = new ITaskProgressMonitor() {
+                @Override
+                public void progress(long current, long total, String message) {
+                    monitor.progress(taskName, current, total, message);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return monitor.isCancelled();
+                }
+            };
+            return ReplayEphemeris.compute(orbits, stations, start, end, ReplayEphemeris.DEFAULT_STEP_SECONDS,
+                    Runtime.getRuntime().availableProcessors(), monitorBridge);
+        };
+        ProgressDialog.Result<ReplayEphemeris> taskResult = ProgressDialog.openProgress(precomputedReplayButton.getScene().getWindow(), taskName, task);
+        if(taskResult.getStatus() != ProgressDialog.TaskStatus.COMPLETED || taskResult.getResult() == null) {
+            precomputedReplayButton.setSelected(false);
+            if(taskResult.getStatus() == ProgressDialog.TaskStatus.CANCELLED || taskResult.getResult() == null) {
+                DialogUtils.alert(taskName, "Replay ephemeris computation", "Task cancelled by user");
+            } else {
+                DialogUtils.alert(taskName, "Replay ephemeris computation", "Error: " + taskResult.getError().getMessage());
+            }
+            return;
+        }
+        this.replayEphemeris = taskResult.getResult();
+        this.replayStations = stations;
+        stations.forEach(gs -> gs.setReplayEphemeris(this.replayEphemeris));
+        this.replaySliderUpdate = true;
+        precomputedReplaySlider.setMin(0);
+        precomputedReplaySlider.setMax((end.getTime() - start.getTime()) / 1000.0);
+        precomputedReplaySlider.setValue(0);
+        this.replaySliderUpdate = false;
+        precomputedReplaySlider.setDisable(false);
+        // The first replay update recomputes the orbit data (ground tracks, visibility windows) at the start time
+        this.lastReplayFullUpdate = null;
+        this.lastReplayFullUpdateWallTime = 0;
+        this.replayClock.start(start, precomputedReplaySpeedCombo.getValue(), PRECOMPUTED_REPLAY_PERIOD);
+    }
+
+    private static StringConverter<Integer> suffixConverter(String suffix) {
+        return new StringConverter<>() {
             @Override
-            public void run() {
-                updateOrbitTime(dateSupplier.get(), false);
+            public String toString(Integer value) {
+                return value == null ? "" : value + suffix;
+            }
+
+            @Override
+            public Integer fromString(String string) {
+                return Integer.parseInt(string.replace(suffix, "").trim());
             }
         };
-        this.tracker.schedule(timerTask, 0, waitPeriod);
+    }
+
+    private void stopPrecomputedReplay() {
+        this.replayClock.stop();
+        this.replayStations.forEach(gs -> gs.setReplayEphemeris(null));
+        this.replayStations = Collections.emptyList();
+        this.replayEphemeris = null;
+        precomputedReplaySlider.setDisable(true);
+        this.trackingLagLabel.setText("LAG ---");
+        this.trackingLagTooltip.setText("Tracking clock not active");
+    }
+
+    private void seekPrecomputedReplay(long secondsFromStart) {
+        ReplayEphemeris ephemeris = this.replayEphemeris;
+        if(ephemeris != null && this.replayClock.isRunning()) {
+            // Playback from the tables: no need to wait for the orbit propagation
+            this.replayClock.start(new Date(ephemeris.getStartTime().getTime() + secondsFromStart * 1000), precomputedReplaySpeedCombo.getValue(), PRECOMPUTED_REPLAY_PERIOD);
+        }
+    }
+
+    private void applyPrecomputedReplayTime(Date time) {
+        // Called by the model thread
+        ReplayEphemeris ephemeris = this.replayEphemeris;
+        if(ephemeris == null) {
+            return;
+        }
+        if(time.after(ephemeris.getEndTime())) {
+            time = ephemeris.getEndTime();
+        }
+        ephemeris.apply(time);
+        // As for real time tracking, the orbit data around the current time (ground tracks, visibility windows) is
+        // recomputed when the time moved too far. This requires a full propagation: it is limited in wall clock time
+        // and done in a separate task, so that the replay ticks and the seeks are not delayed.
+        long fullUpdateInterval = manager.getOrbitManager().getConfiguration().getRecomputeFullDataInterval() * 1000L;
+        Date lastUpdate = this.lastReplayFullUpdate;
+        long now = System.currentTimeMillis();
+        if((lastUpdate == null || Math.abs(time.getTime() - lastUpdate.getTime()) > fullUpdateInterval)
+                && now - this.lastReplayFullUpdateWallTime >= PRECOMPUTED_REPLAY_REFRESH_PERIOD
+                && this.replayFullUpdatePending.compareAndSet(false, true)) {
+            this.lastReplayFullUpdateWallTime = now;
+            BackgroundThread.getExecutor().execute(this::refreshPrecomputedReplayData);
+        }
+    }
+
+    private void refreshPrecomputedReplayData() {
+        // Called by the model thread
+        try {
+            ReplayEphemeris ephemeris = this.replayEphemeris;
+            if(ephemeris == null || !this.replayClock.isRunning()) {
+                return;
+            }
+            // Refresh at the latest replay time, not at the time of the request
+            Date time = this.replayClock.getCurrentTime();
+            if(time.after(ephemeris.getEndTime())) {
+                time = ephemeris.getEndTime();
+            }
+            this.lastReplayFullUpdate = time;
+            manager.getOrbitManager().updateOrbitTime(time, true);
+            ephemeris.apply(time);
+        } finally {
+            this.replayFullUpdatePending.set(false);
+        }
+    }
+
+    private void replayClockUpdated(TrackingClock clock) {
+        trackingClockUpdated(clock);
+        Date time = clock.getCurrentTime();
+        FxUpdateDispatcher.runLater(this, precomputedReplaySlider, () -> {
+            ReplayEphemeris ephemeris = this.replayEphemeris;
+            if(!clock.isRunning() || ephemeris == null) {
+                return;
+            }
+            if(time.after(ephemeris.getEndTime())) {
+                // End of the interval
+                precomputedReplayButton.setSelected(false);
+                stopPrecomputedReplay();
+                return;
+            }
+            this.replaySliderUpdate = true;
+            precomputedReplaySlider.setValue((time.getTime() - ephemeris.getStartTime().getTime()) / 1000.0);
+            this.replaySliderUpdate = false;
+        });
     }
 
     private Date getRealTimeDate() {
         return new Date();
     }
 
+    private Date getReplayStartDate() {
+        Date d = (Date) this.currentTimeLabel.getUserData();
+        return d != null ? d : new Date();
+    }
+
     private Date getReplayTimeDate() {
         Date d = (Date) this.currentTimeLabel.getUserData();
         if(d == null) {
@@ -306,32 +525,71 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
 
     @Override
     public void orbitAdded(OrbitManager manager, Orbit orbit) {
-        Platform.runLater(() -> registerNewOrbit(orbit));
+        FxUpdateDispatcher.runLater(() -> registerNewOrbit(orbit));
     }
 
     @Override
     public void orbitRemoved(OrbitManager manager, Orbit orbit) {
-        Platform.runLater(() -> deregisterOrbit(orbit));
+        invalidatePrecomputedReplay(orbit, true);
+        FxUpdateDispatcher.runLater(() -> deregisterOrbit(orbit));
+    }
+
+    @Override
+    public void orbitDefinitionUpdated(Orbit orbit) {
+        // E.g. TLE changed by the user or by the Celestrak monitor: the replay tables of the orbit are outdated
+        invalidatePrecomputedReplay(orbit, false);
+    }
+
+    private void invalidatePrecomputedReplay(Orbit orbit, boolean removed) {
+        // Called by the model thread, which also applies the replay ticks
+        ReplayEphemeris ephemeris = this.replayEphemeris;
+        if(ephemeris == null || (!removed && !ephemeris.isOutdated(orbit))) {
+            return;
+        }
+        // Stop moving the orbit with the outdated table right away, then stop the replay
+        if(ephemeris.exclude(orbit)) {
+            FxUpdateDispatcher.runLater(() -> {
+                if(this.replayEphemeris == ephemeris) {
+                    precomputedReplayButton.setSelected(false);
+                    stopPrecomputedReplay();
+                }
+            });
+        }
     }
 
     @Override
     public void orbitModelDataUpdated(Orbit orbit, List<SpacecraftPosition> spacecraftPositions, SpacecraftPosition currentPosition) {
-        Platform.runLater(() -> {
-            // If in tracking mode, you have to inform the 3D scene about realigning
-            scene3dController.updateIfTrackingOrbit(orbit, currentPosition);
-            orbitPaneController.updateSpacecraftPosition(orbit, currentPosition);
-            orbitPaneController.refreshOrbitList();
+        // Not superseded by position updates of the same orbit
+        this.orbitsWithModelDataUpdate.add(orbit);
+        FxUpdateDispatcher.runLater(this, orbit, () -> applyOrbitUpdate(orbit, currentPosition));
+    }
+
+    private void applyOrbitUpdate(Orbit orbit, SpacecraftPosition currentPosition) {
+        boolean modelDataUpdated = this.orbitsWithModelDataUpdate.remove(orbit);
+        if(currentPosition != null) {
+            updateCurrentTime(currentPosition.getTime());
+        }
+        // If in tracking mode, you have to inform the 3D scene about realigning
+        scene3dController.updateIfTrackingOrbit(orbit, currentPosition);
+        orbitPaneController.updateSpacecraftPosition(orbit, currentPosition);
+        if(modelDataUpdated) {
+            FxUpdateDispatcher.markDirty(this.refreshOrbitListAction);
             // Check if the ground station objects in the 3D view must hide visibility connections
             groundStationPaneController.orbitUpdated(orbit);
-            if(!orbitUpdateInProgress) {
-                update2Dscene();
-            }
-        });
+        }
+        if(!orbitUpdateInProgress) {
+            FxUpdateDispatcher.markDirty(modelDataUpdated ? this.update2DsceneAction : this.update2DsceneSpacecraftAction);
+        }
+    }
+
+    private void updateCurrentTime(Date time) {
+        this.currentTimeLabel.setText(TimeUtils.formatDate(time));
+        this.currentTimeLabel.setUserData(time);
     }
 
     @Override
     public void startOrbitTimeUpdate(Date referenceTime, boolean isForced) {
-        Platform.runLater(() -> {
+        FxUpdateDispatcher.runLater(() -> {
             processingProgressBar.setBackground(new Background(new BackgroundFill(Color.PALEGOLDENROD, null, null)));
             processingProgressBar.setProgress(0);
             processingProgressBar.setVisible(true);
@@ -342,7 +600,8 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
 
     @Override
     public void progressOrbitTimeUpdate(Date referenceTime, boolean isForced, long step, long total) {
-        Platform.runLater(() -> {
+        // Only the latest progress is shown
+        FxUpdateDispatcher.runLater(this, processingProgressBar, () -> {
             double progress = (double) step / (double) total;
             processingProgressBar.setProgress(progress);
             processingLabel.setText(String.format("%d", (int) (progress * 100)) + "%");
@@ -351,77 +610,65 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
 
     @Override
     public void endOrbitTimeUpdate(Date referenceTime, boolean isForced) {
-        Platform.runLater(() -> {
+        FxUpdateDispatcher.runLater(() -> {
             orbitUpdateInProgress = false;
             processingProgressBar.setBackground(null);
             processingProgressBar.setProgress(1.0);
             processingProgressBar.setVisible(false);
             processingLabel.setText("IDLE");
-            update2Dscene();
+            FxUpdateDispatcher.markDirty(this.update2DsceneAction);
         });
     }
 
     @Override
     public void spacecraftPositionUpdated(Orbit orbit, SpacecraftPosition currentPosition) {
-        Platform.runLater(() -> {
-            if(currentPosition != null) {
-                this.currentTimeLabel.setText(TimeUtils.formatDate(currentPosition.getTime()));
-                this.currentTimeLabel.setUserData(currentPosition.getTime());
-            }
-            // If in tracking mode, you have to inform the 3D scene about realigning
-            scene3dController.updateIfTrackingOrbit(orbit, currentPosition);
-            orbitPaneController.updateSpacecraftPosition(orbit, currentPosition);
-            if(!orbitUpdateInProgress) {
-                update2Dscene();
-            }
-        });
+        // Superseded by the next position update of the same orbit
+        FxUpdateDispatcher.runLater(this, orbit, () -> applyOrbitUpdate(orbit, currentPosition));
     }
 
     @Override
     public void groundStationAdded(GroundStationManager manager, GroundStation groundStation) {
-        Platform.runLater(() -> registerNewGroundStation(groundStation));
+        FxUpdateDispatcher.runLater(() -> registerNewGroundStation(groundStation));
     }
 
     @Override
     public void groundStationRemoved(GroundStationManager manager, GroundStation groundStation) {
-        Platform.runLater(() -> deregisterGroundStation(groundStation));
+        FxUpdateDispatcher.runLater(() -> deregisterGroundStation(groundStation));
     }
 
     @Override
     public void groundStationUpdated(GroundStation groundStation) {
-        Platform.runLater(() -> {
+        FxUpdateDispatcher.runLater(this, groundStation, () -> {
             groundStationPaneController.refreshGroundStationList();
             if(!orbitUpdateInProgress) {
-                update2Dscene();
+                FxUpdateDispatcher.markDirty(this.update2DsceneAction);
             }
         });
     }
 
     @Override
     public void groundStationOrbitDataUpdated(GroundStation groundStation, Orbit orbit, List<VisibilityWindow> visibilityWindows, VisibilityCircle visibilityCircle, TrackPoint currentPoint) {
-        Platform.runLater(() -> {
+        // Visibility windows are complete: only the latest data per station and orbit is needed
+        FxUpdateDispatcher.runLater(this, Arrays.asList("orbitData", groundStation, orbit), () -> {
             if(currentPoint != null) {
-                this.currentTimeLabel.setText(TimeUtils.formatDate(currentPoint.getTime()));
-                this.currentTimeLabel.setUserData(currentPoint.getTime());
+                updateCurrentTime(currentPoint.getTime());
             }
             groundStationPaneController.refreshGroundStationOrbitData(groundStation, orbit, visibilityWindows, currentPoint);
             if(!orbitUpdateInProgress) {
-                update2Dscene();
+                FxUpdateDispatcher.markDirty(this.update2DsceneAction);
             }
         });
     }
 
     @Override
     public void spacecraftPositionUpdated(GroundStation groundStation, Orbit orbit, TrackPoint point) {
-        Platform.runLater(() -> {
+        // Superseded by the next position update of the same station and orbit
+        FxUpdateDispatcher.runLater(this, Arrays.asList("position", groundStation, orbit), () -> {
             if(point != null) {
-                this.currentTimeLabel.setText(TimeUtils.formatDate(point.getTime()));
-                this.currentTimeLabel.setUserData(point.getTime());
+                updateCurrentTime(point.getTime());
             }
             groundStationPaneController.refreshSpacecraftPosition(groundStation, orbit, point);
-            if(!orbitUpdateInProgress) {
-                update2Dscene();
-            }
+            // Nothing drawn in the 2D scene depends on the ground station track point
         });
     }
 
@@ -484,6 +731,8 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
         // Register to the model manager
         this.manager.getOrbitManager().addListener(this);
         this.manager.getGroundStationManager().addListener(this);
+        // Background TLE refreshes are applied by the model thread
+        this.manager.getCelestrakTleMonitor().setUpdateExecutor(BackgroundThread.getExecutor());
 
         // Ground Station Pane configuration
         this.orbitPaneController.configure(this.manager, this::handleOrbitTracking);
@@ -530,15 +779,15 @@ public class Main implements Initializable, IOrbitListener, IGroundStationListen
     }
 
     public void onActivateReplayTrackingAction(ActionEvent actionEvent) {
-        handleTimerActivation(this.replayTrackingButton, this::getReplayTimeDate);
+        handleTimerActivation(this.replayTrackingButton, this::getReplayStartDate);
     }
 
     public void onActivateReplay2SpeedTrackingAction(ActionEvent actionEvent) {
-        handleTimerActivation(this.replay2SpeedTrackingButton, this::getReplayTimeDate);
+        handleTimerActivation(this.replay2SpeedTrackingButton, this::getReplayStartDate);
     }
 
     public void onActivateReplay4SpeedTrackingAction(ActionEvent actionEvent) {
-        handleTimerActivation(this.replay4SpeedTrackingButton, this::getReplayTimeDate);
+        handleTimerActivation(this.replay4SpeedTrackingButton, this::getReplayStartDate);
     }
 
     public void editReplayDateTimeAction(ActionEvent actionEvent) {
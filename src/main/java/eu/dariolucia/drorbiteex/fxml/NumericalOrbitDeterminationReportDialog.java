@@ -33,7 +33,6 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
@@ -158,10 +157,13 @@ public class NumericalOrbitDeterminationReportDialog implements Initializable {
         long maxTime = Long.MIN_VALUE;
 
         // You have one value for the error
-        XYChart.Series<Number, Number> series = new XYChart.Series<>();
-        series.setName("Residual Error");
+        long[] times = new long[result.getResiduals().size()];
+        double[] values = new double[result.getResiduals().size()];
+        int i = 0;
         for (ErrorPoint tp : result.getResiduals()) {
-            series.getData().add(new XYChart.Data<>(tp.getTime().toEpochMilli(), tp.getErrorAt(2)));
+            times[i] = tp.getTime().toEpochMilli();
+            values[i] = tp.getErrorAt(2);
+            ++i;
             if(tp.getTime().toEpochMilli() < minTime) {
                 minTime = tp.getTime().toEpochMilli();
             }
@@ -169,7 +171,7 @@ public class NumericalOrbitDeterminationReportDialog implements Initializable {
                 maxTime = tp.getTime().toEpochMilli();
             }
         }
-        this.residualChartManager.add(series);
+        this.residualChartManager.add("Residual Error", times, values);
         this.residualChartManager.updateChartRange(minTime, maxTime);
         this.residualChartManager.setLegendVisible(false);
 
@@ -39,6 +39,9 @@ public class OrbitConfigurationDialog implements Initializable {
     public TextField afterPropagationStepsText;
     public TextField propagationStepPeriodText;
     public TextField recomputeFullDataIntervalText;
+    public CheckBox celestrakMonitorCheckbox;
+    public TextField celestrakCheckIntervalText;
+    public TextField celestrakMaxEpochAgeText;
     public ImageView warningImage;
     public Label warningLabel;
 
@@ -52,6 +55,11 @@ public class OrbitConfigurationDialog implements Initializable {
         afterPropagationStepsText.textProperty().addListener((prop, oldVal, newVal) -> validate());
         propagationStepPeriodText.textProperty().addListener((prop, oldVal, newVal) -> validate());
         recomputeFullDataIntervalText.textProperty().addListener((prop, oldVal, newVal) -> validate());
+        celestrakCheckIntervalText.textProperty().addListener((prop, oldVal, newVal) -> validate());
+        celestrakMaxEpochAgeText.textProperty().addListener((prop, oldVal, newVal) -> validate());
+        celestrakMonitorCheckbox.selectedProperty().addListener((prop, oldVal, newVal) -> validate());
+        celestrakCheckIntervalText.disableProperty().bind(celestrakMonitorCheckbox.selectedProperty().not());
+        celestrakMaxEpochAgeText.disableProperty().bind(celestrakMonitorCheckbox.selectedProperty().not());
 
         validate();
     }
@@ -62,6 +70,14 @@ public class OrbitConfigurationDialog implements Initializable {
             Integer.parseInt(afterPropagationStepsText.getText());
             Integer.parseInt(propagationStepPeriodText.getText());
             Integer.parseInt(recomputeFullDataIntervalText.getText());
+            if(celestrakMonitorCheckbox.isSelected()) {
+                if(Integer.parseInt(celestrakCheckIntervalText.getText()) <= 0) {
+                    throw new IllegalStateException("Celestrak check interval must be positive");
+                }
+                if(Integer.parseInt(celestrakMaxEpochAgeText.getText()) <= 0) {
+                    throw new IllegalStateException("Celestrak maximum TLE age must be positive");
+                }
+            }
 
             if(performanceAssessmentPoor()) {
                 setWarning(" Potential performance issues ");
@@ -95,13 +111,19 @@ public class OrbitConfigurationDialog implements Initializable {
         afterPropagationStepsText.setText(String.valueOf(p.getAfterPropagationSteps()));
         propagationStepPeriodText.setText(String.valueOf(p.getStepInterval()));
         recomputeFullDataIntervalText.setText(String.valueOf(p.getRecomputeFullDataInterval()));
+        celestrakMonitorCheckbox.setSelected(p.isCelestrakMonitorEnabled());
+        celestrakCheckIntervalText.setText(String.valueOf(p.getCelestrakCheckInterval()));
+        celestrakMaxEpochAgeText.setText(String.valueOf(p.getCelestrakMaxEpochAge()));
     }
 
     public OrbitParameterConfiguration getResult() {
         return new OrbitParameterConfiguration(Integer.parseInt(beforePropagationStepsText.getText()),
                 Integer.parseInt(afterPropagationStepsText.getText()),
                 Integer.parseInt(propagationStepPeriodText.getText()),
-                Integer.parseInt(recomputeFullDataIntervalText.getText())
+                Integer.parseInt(recomputeFullDataIntervalText.getText()),
+                celestrakMonitorCheckbox.isSelected(),
+                Integer.parseInt(celestrakCheckIntervalText.getText()),
+                Integer.parseInt(celestrakMaxEpochAgeText.getText())
                 );
     }
 
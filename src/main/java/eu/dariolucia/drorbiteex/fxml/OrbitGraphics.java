@@ -21,16 +21,13 @@ import eu.dariolucia.drorbiteex.model.orbit.IOrbitListener;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.OrbitManager;
 import eu.dariolucia.drorbiteex.model.orbit.SpacecraftPosition;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Point3D;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
-import javafx.scene.shape.Cylinder;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Transform;
@@ -52,10 +49,16 @@ public class OrbitGraphics implements IOrbitListener {
     private final SimpleBooleanProperty selectedProperty = new SimpleBooleanProperty(false);
 
     private Group graphicItem;
+    private TrajectoryMesh trajectoryMesh;
     private Text textItem;
     private Box scItem;
     private Group groupItem;
 
+    // Ground track, computed from the spacecraft positions the first time it is drawn
+    private ProjectedPolyline groundTrack;
+    // Set by the model thread, cleared when the update is applied
+    private volatile boolean trajectoryUpdated;
+
     public OrbitGraphics(ModelManager manager, Orbit obj) {
         this.manager = manager;
         this.obj = obj;
@@ -72,16 +75,9 @@ public class OrbitGraphics implements IOrbitListener {
     }
 
     private void updateElementsColor(Color c) {
-        PhongMaterial pm = new PhongMaterial(c);
-        if(!this.graphicItem.getChildren().isEmpty()) {
-            Group orbitGroup = (Group) this.graphicItem.getChildren().get(0);
-            for(Node n : orbitGroup.getChildren()) {
-                Cylinder cil = (Cylinder) n;
-                cil.setMaterial(pm);
-            }
-        }
+        this.trajectoryMesh.setColor(c);
         this.textItem.setStroke(c);
-        this.scItem.setMaterial(pm);
+        this.scItem.setMaterial(DrawingUtils.getMaterial(c));
     }
 
     public SimpleBooleanProperty visibleProperty() {
@@ -127,8 +123,9 @@ public class OrbitGraphics implements IOrbitListener {
         List<SpacecraftPosition> trajectory = obj.getSpacecraftPositions();
         // Transform all points to line
         List<Point3D> scPoints = trajectory.stream().map(this::transform).collect(Collectors.toList());
-        this.graphicItem.getChildren().clear();
-        this.graphicItem.getChildren().add(DrawingUtils.createLine(scPoints, c));
+        // Single mesh, updated in place
+        this.trajectoryMesh.update(scPoints);
+        this.trajectoryMesh.setColor(c);
     }
 
     private void renderSpacecraftLocation() {
@@ -142,7 +139,7 @@ public class OrbitGraphics implements IOrbitListener {
             return;
         }
         Point3D scLocation = transform(currentPosition);
-        this.scItem.setMaterial(new PhongMaterial(c));
+        this.scItem.setMaterial(DrawingUtils.getMaterial(c));
         this.scItem.getTransforms().clear();
         this.scItem.getTransforms().add(new Translate(scLocation.getX(), scLocation.getY(), scLocation.getZ()));
 
@@ -166,7 +163,8 @@ public class OrbitGraphics implements IOrbitListener {
 
     private List<Node> constructGraphicItems() {
         // Trajectory object
-        this.graphicItem = new Group();
+        this.trajectoryMesh = new TrajectoryMesh(0.4);
+        this.graphicItem = new Group(this.trajectoryMesh.getNode());
         // Spacecraft object
         this.scItem = new Box(5,5,5);
         // Spacecraft text
@@ -175,44 +173,50 @@ public class OrbitGraphics implements IOrbitListener {
         return Arrays.asList(graphicItem, scItem, textItem);
     }
 
-    public void draw(GraphicsContext gc, ViewBox widgetViewport, ViewBox latLonViewport, boolean isSelected) {
-        if(obj.isVisible()) {
+    private void setStyle(GraphicsContext gc, boolean isSelected) {
+        if(!isSelected) {
+            gc.setStroke(Color.valueOf(obj.getColor()));
+            gc.setFill(gc.getStroke());
+            gc.setLineWidth(1.5);
+        } else {
+            gc.setStroke(Color.valueOf(obj.getColor()).brighter().brighter());
+            gc.setFill(gc.getStroke());
+            gc.setLineWidth(3.5);
+        }
+    }
+
+    private ProjectedPolyline getGroundTrack() {
+        // The ground track changes only when the orbit model data is updated
+        if(this.groundTrack == null) {
             List<SpacecraftPosition> spacecraftPositions = obj.getSpacecraftPositions();
             List<double[]> latLonPoints = spacecraftPositions.stream().map(o -> new double[] {Math.toDegrees(o.getLatLonHeight().getLatitude()), Math.toDegrees(o.getLatLonHeight().getLongitude())}).collect(Collectors.toList());
-            if(!isSelected) {
-                gc.setStroke(Color.valueOf(obj.getColor()));
-                gc.setFill(gc.getStroke());
-                gc.setLineWidth(1.5);
-            } else {
-                gc.setStroke(Color.valueOf(obj.getColor()).brighter().brighter());
-                gc.setFill(gc.getStroke());
-                gc.setLineWidth(3.5);
-            }
-            if (!latLonPoints.isEmpty()) {
-                double[] previousPoint = latLonPoints.get(0);
-                double[] start = DrawingUtils.mapToWidgetCoordinates(previousPoint[0], previousPoint[1], widgetViewport, latLonViewport);
+            this.groundTrack = new ProjectedPolyline(latLonPoints, true, ProjectedPolyline.DEFAULT_PIXEL_TOLERANCE);
+        }
+        return this.groundTrack;
+    }
+
+    public void drawGroundTrack(GraphicsContext gc, ViewBox widgetViewport, ViewBox latLonViewport, boolean isSelected) {
+        if(obj.isVisible()) {
+            ProjectedPolyline track = getGroundTrack();
+            setStyle(gc, isSelected);
+            if (!track.isEmpty()) {
+                // Only the visible part, simplified to the current resolution
                 gc.beginPath();
-                gc.moveTo(start[0], start[1]);
-                for (int i = 1; i < latLonPoints.size(); ++i) {
-                    double[] nextPoint = latLonPoints.get(i);
-                    double[] p2 = DrawingUtils.mapToWidgetCoordinates(nextPoint[0], nextPoint[1], widgetViewport, latLonViewport);
-                    // If there is a longitude sign swap with large distance, moveTo instead of lineTo
-                    boolean swap = Math.abs(nextPoint[1] - previousPoint[1]) > 45; // ((nextPoint[1] < 0 && previousPoint[1] > 0) || (nextPoint[1] > 0 && previousPoint[1] < 0)) &&
-                    if(swap) {
-                        gc.moveTo(p2[0], p2[1]);
-                    } else {
-                        gc.lineTo(p2[0], p2[1]);
-                    }
-                    previousPoint = nextPoint;
-                }
+                ProjectedPolyline.appendToPath(gc, track.project(widgetViewport, latLonViewport));
                 gc.stroke();
                 gc.closePath();
             }
+        }
+    }
+
+    public void drawSpacecraft(GraphicsContext gc, ViewBox widgetViewport, ViewBox latLonViewport, boolean isSelected) {
+        if(obj.isVisible()) {
             if(obj.getCurrentSpacecraftPosition() == null) {
                 return;
             }
             GeodeticPoint scLatLon = obj.getCurrentSpacecraftPosition().getLatLonHeight();
             if (scLatLon != null) {
+                setStyle(gc, isSelected);
                 double[] scCenter = DrawingUtils.mapToWidgetCoordinates(Math.toDegrees(scLatLon.getLatitude()), Math.toDegrees(scLatLon.getLongitude()), widgetViewport, latLonViewport);
                 if(isSelected) {
                     gc.fillRect(scCenter[0] - 4, scCenter[1] - 4, 8, 8);
@@ -225,8 +229,10 @@ public class OrbitGraphics implements IOrbitListener {
     }
 
     public final void dispose() {
+        FxUpdateDispatcher.cancel(this);
         this.groupItem.visibleProperty().unbind();
         this.graphicItem = null;
+        this.trajectoryMesh = null;
         this.textItem = null;
         this.scItem = null;
         this.groupItem.getChildren().clear();
@@ -241,22 +247,37 @@ public class OrbitGraphics implements IOrbitListener {
     @Override
     public void orbitRemoved(OrbitManager manager, Orbit orbit) {
         if(orbit.equals(this.obj)) {
-            Platform.runLater(this::dispose);
+            FxUpdateDispatcher.runLater(this::dispose);
         }
     }
 
     @Override
     public void orbitModelDataUpdated(Orbit orbit, List<SpacecraftPosition> spacecraftPositions, SpacecraftPosition currentPosition) {
         if(orbit.equals(this.obj)) {
-            Platform.runLater(() -> updateGraphicItems(true));
+            // Not superseded by position updates
+            this.trajectoryUpdated = true;
+            FxUpdateDispatcher.runLater(this, null, this::applyUpdate);
         }
     }
 
     @Override
     public void spacecraftPositionUpdated(Orbit orbit, SpacecraftPosition currentPosition) {
         if(orbit.equals(this.obj)) {
-            Platform.runLater(() -> updateGraphicItems(false));
+            FxUpdateDispatcher.runLater(this, null, this::applyUpdate);
+        }
+    }
+
+    private void applyUpdate() {
+        if(this.groupItem == null) {
+            // Disposed
+            return;
+        }
+        boolean renderTrajectory = this.trajectoryUpdated;
+        this.trajectoryUpdated = false;
+        if(renderTrajectory) {
+            this.groundTrack = null;
         }
+        updateGraphicItems(renderTrajectory);
     }
 
     public Orbit getOrbit() {
@@ -21,6 +21,8 @@ import eu.dariolucia.drorbiteex.fxml.progress.ProgressDialog;
 import eu.dariolucia.drorbiteex.model.ModelManager;
 import eu.dariolucia.drorbiteex.model.collinearity.*;
 import eu.dariolucia.drorbiteex.model.determination.*;
+import eu.dariolucia.drorbiteex.model.oem.BatchOemExporterProcess;
+import eu.dariolucia.drorbiteex.model.oem.BatchOemGenerationRequest;
 import eu.dariolucia.drorbiteex.model.oem.OemExporterProcess;
 import eu.dariolucia.drorbiteex.model.oem.OemGenerationRequest;
 import eu.dariolucia.drorbiteex.model.orbit.*;
@@ -254,6 +256,10 @@ public class OrbitPane implements Initializable {
 
     public void onExportOemOrbitAction(ActionEvent actionEvent) {
         final String taskName = "OEM Export";
+        if(orbitList.getSelectionModel().getSelectedItems().size() > 1) {
+            exportBatchOem(taskName);
+            return;
+        }
         OrbitGraphics originalOrbit = orbitList.getSelectionModel().getSelectedItem();
         if(originalOrbit != null) {
             Orbit orbit = originalOrbit.getOrbit();
@@ -292,6 +298,37 @@ public class OrbitPane implements Initializable {
         }
     }
 
+    private void exportBatchOem(String taskName) {
+        List<Orbit> orbits = orbitList.getSelectionModel().getSelectedItems().stream().map(OrbitGraphics::getOrbit).collect(Collectors.toList());
+        BatchOemGenerationRequest batchRequest = ExportOemOrbitDialog.openBatchDialog(orbitList.getParent().getScene().getWindow(), orbits);
+        if(batchRequest != null) {
+            IMonitorableCallable<List<String>> task = monitor -> {
+                ITaskProgressMonitor monitorBridge = new ITaskProgressMonitor() {
+                    @Override
+                    public void progress(long current, long total, String message) {
+                        monitor.progress(taskName, current, total, message);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return monitor.isCancelled();
+                    }
+                };
+                return new BatchOemExporterProcess().exportOem(batchRequest, monitorBridge);
+            };
+            ProgressDialog.Result<List<String>> taskResult = ProgressDialog.openProgress(orbitList.getScene().getWindow(), taskName, task);
+            if(taskResult.getStatus() == ProgressDialog.TaskStatus.COMPLETED && taskResult.getResult() != null) {
+                DialogUtils.info("OEM Export", orbits.size() + " orbits exported", "OEM folder: " + batchRequest.getFolder());
+            } else if(taskResult.getStatus() == ProgressDialog.TaskStatus.COMPLETED || taskResult.getStatus() == ProgressDialog.TaskStatus.CANCELLED) {
+                DialogUtils.alert(taskName, "OEM computation for " + orbits.size() + " orbits",
+                        "Task cancelled by user");
+            } else {
+                DialogUtils.alert(taskName, "OEM computation for " + orbits.size() + " orbits",
+                        "Error: " + taskResult.getError().getMessage());
+            }
+        }
+    }
+
     public void onSettingsOrbitAction(ActionEvent actionEvent) {
         OrbitParameterConfiguration originalProps = this.manager.getOrbitManager().getConfiguration();
         OrbitParameterConfiguration props = OrbitConfigurationDialog.openDialog(orbitList.getParent().getScene().getWindow(), originalProps, orbitList.getItems().size());
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.station.VisibilityWindow;
+import javafx.collections.ObservableList;
+
+import java.util.*;
+
+/**
+ * Sorted list of visibility windows, keyed by orbit. The windows of an orbit are replaced by applying the difference
+ * between the old and the new windows to the list, so that unchanged rows (and therefore selection and scroll position
+ * of the table) are not affected.
+ */
+class PassTableModel {
+
+    private final ObservableList<VisibilityWindow> items;
+    private final Map<Orbit, List<VisibilityWindow>> windowsPerOrbit = new HashMap<>();
+
+    public PassTableModel(ObservableList<VisibilityWindow> items) {
+        this.items = items;
+    }
+
+    /**
+     * Replace the full contents of the list.
+     *
+     * @param windows the visibility windows per orbit
+     */
+    public void setAll(Map<Orbit, List<VisibilityWindow>> windows) {
+        this.windowsPerOrbit.clear();
+        List<VisibilityWindow> all = new ArrayList<>();
+        for(Map.Entry<Orbit, List<VisibilityWindow>> e : windows.entrySet()) {
+            if(!e.getValue().isEmpty()) {
+                this.windowsPerOrbit.put(e.getKey(), new ArrayList<>(e.getValue()));
+                all.addAll(e.getValue());
+            }
+        }
+        Collections.sort(all);
+        this.items.setAll(all);
+    }
+
+    public void clear() {
+        this.windowsPerOrbit.clear();
+        this.items.clear();
+    }
+
+    /**
+     * Replace the visibility windows of the provided orbit. Windows equal to already present ones are not replaced.
+     *
+     * @param orbit the orbit
+     * @param windows the new visibility windows of the orbit, null or empty to remove all of them
+     * @return true if the list changed
+     */
+    public boolean update(Orbit orbit, List<VisibilityWindow> windows) {
+        List<VisibilityWindow> oldWindows = this.windowsPerOrbit.getOrDefault(orbit, Collections.emptyList());
+        if(windows == null) {
+            windows = Collections.emptyList();
+        }
+        Set<VisibilityWindow> newSet = new HashSet<>(windows);
+        Map<VisibilityWindow, VisibilityWindow> retainedOld = new HashMap<>();
+        boolean changed = false;
+        // Removed or changed windows
+        for(VisibilityWindow w : oldWindows) {
+            if(newSet.contains(w)) {
+                retainedOld.put(w, w);
+            } else {
+                removeItem(w);
+                changed = true;
+            }
+        }
+        // Added or changed windows
+        List<VisibilityWindow> current = new ArrayList<>(windows.size());
+        for(VisibilityWindow w : windows) {
+            VisibilityWindow existing = retainedOld.get(w);
+            if(existing != null) {
+                current.add(existing);
+            } else {
+                insertItem(w);
+                current.add(w);
+                changed = true;
+            }
+        }
+        if(current.isEmpty()) {
+            this.windowsPerOrbit.remove(orbit);
+        } else {
+            this.windowsPerOrbit.put(orbit, current);
+        }
+        return changed;
+    }
+
+    public boolean remove(Orbit orbit) {
+        return update(orbit, null);
+    }
+
+    /**
+     * Return the windows of the orbit currently in the list.
+     *
+     * @param orbit the orbit
+     * @return the windows, not sorted
+     */
+    public List<VisibilityWindow> getWindowsOf(Orbit orbit) {
+        return Collections.unmodifiableList(this.windowsPerOrbit.getOrDefault(orbit, Collections.emptyList()));
+    }
+
+    /**
+     * Return the position of the provided window in the list.
+     *
+     * @param w the window
+     * @return the index of the window if present in the list, otherwise (-(insertion point) - 1)
+     */
+    public int indexOf(VisibilityWindow w) {
+        int idx = Collections.binarySearch(this.items, w);
+        if(idx < 0) {
+            return idx;
+        }
+        // Windows with the same sort key (e.g. same AOS, different orbit): look for the instance
+        while(idx > 0 && this.items.get(idx - 1).compareTo(w) == 0) {
+            --idx;
+        }
+        int first = idx;
+        while(idx < this.items.size() && this.items.get(idx).compareTo(w) == 0) {
+            if(this.items.get(idx) == w) {
+                return idx;
+            }
+            ++idx;
+        }
+        return -first - 1;
+    }
+
+    private void insertItem(VisibilityWindow w) {
+        int idx = Collections.binarySearch(this.items, w);
+        this.items.add(idx < 0 ? -idx - 1 : idx, w);
+    }
+
+    private void removeItem(VisibilityWindow w) {
+        int idx = indexOf(w);
+        if(idx >= 0) {
+            this.items.remove(idx);
+        } else {
+            // Not expected: the list is always sorted
+            this.items.remove(w);
+        }
+    }
+}
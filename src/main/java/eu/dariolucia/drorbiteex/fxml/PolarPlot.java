@@ -26,6 +26,8 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.fxml.Initializable;
 import javafx.geometry.Point2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
@@ -61,16 +63,26 @@ public class PolarPlot implements Initializable {
     private boolean ignoreVisibility = false;
     private double[][] currentMask;
 
+    // Background, mask, grid and tracks are rendered into an image when they change: spacecraft markers and texts are
+    // drawn over it, at most once per pulse
+    private final Canvas staticLayer = new Canvas();
+    private WritableImage staticImage;
+    private boolean staticDirty = true;
+    private double staticWidth;
+    private double staticHeight;
+    private double staticScale;
+    private final Runnable repaintAction = this::repaint;
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        this.refresher = (a,b,c) -> refresh();
+        this.refresher = (a,b,c) -> invalidateStaticLayer();
 
         this.backgroundColor = new SimpleObjectProperty<>(Color.WHITE);
         this.foregroundColor = new SimpleObjectProperty<>(Color.BLACK);
 
         this.backgroundColor.addListener(this.refresher);
         this.foregroundColor.addListener(this.refresher);
-        this.nameVisible.addListener(this.refresher);
+        this.nameVisible.addListener((a,b,c) -> scheduleRepaint());
 
         // Tooltip for coordinates
         Tooltip tooltip = new Tooltip();
@@ -86,6 +98,9 @@ public class PolarPlot implements Initializable {
             }
         });
         canvas.setOnMouseExited(e -> tooltip.hide());
+        // The static layer is re-rendered when the size changes
+        canvas.widthProperty().addListener((a,b,c) -> scheduleRepaint());
+        canvas.heightProperty().addListener((a,b,c) -> scheduleRepaint());
         // Menu for image copy
         canvas.setOnContextMenuRequested(e -> {
             ContextMenu m = new ContextMenu();
@@ -139,37 +154,46 @@ public class PolarPlot implements Initializable {
             this.colorMap.put(track.getOrbit().getId(), Color.valueOf(track.getOrbit().getColor()));
             // At this stage, set the ground station mask if available
             this.currentMask = track.getStation().getMask() != null ? track.getStation().getMask().getAzElMap() : null;
-            refresh();
+            invalidateStaticLayer();
         }
     }
+
     public void setSpacecraftPosition(Orbit orbit, String name, Point2D position, Color color) {
         if(position != null) {
-            SpacecraftTrackPoint stp = new SpacecraftTrackPoint(name, position, orbit);
-            this.positionMap.put(orbit.getId(), stp);
+            SpacecraftTrackPoint stp = this.positionMap.get(orbit.getId());
+            if(stp != null && stp.getOrbit() == orbit && stp.getName().equals(name)) {
+                stp.setPoint(position);
+            } else {
+                this.positionMap.put(orbit.getId(), new SpacecraftTrackPoint(name, position, orbit));
+            }
             if(color != null) {
-                this.colorMap.put(orbit.getId(), color);
+                updateColor(orbit.getId(), color);
             }
-
-            refresh();
         } else {
             this.positionMap.remove(orbit.getId());
-
-            refresh();
         }
+        scheduleRepaint();
     }
 
     public void setColor(UUID id, Color color) {
         if(color != null) {
-            this.colorMap.put(id, color);
+            updateColor(id, color);
+            scheduleRepaint();
+        }
+    }
 
-            refresh();
+    private void updateColor(UUID id, Color color) {
+        Color previous = this.colorMap.put(id, color);
+        // The color of a track is part of the static layer
+        if(!color.equals(previous) && this.trackMap.containsKey(id)) {
+            invalidateStaticLayer();
         }
     }
 
     public void setText(PlotPosition position, String text, Color color) {
         this.textMap.put(position, new Pair<>(color, text));
 
-        refresh();
+        scheduleRepaint();
     }
 
     public void clear() {
@@ -178,18 +202,67 @@ public class PolarPlot implements Initializable {
         this.colorMap.clear();
         this.textMap.clear();
         this.currentMask = null;
-        refresh();
+        invalidateStaticLayer();
     }
 
+    /**
+     * Redraw the plot immediately, including the static layer.
+     */
     public void refresh() {
+        this.staticDirty = true;
+        repaint();
+    }
+
+    private void invalidateStaticLayer() {
+        this.staticDirty = true;
+        scheduleRepaint();
+    }
+
+    private void scheduleRepaint() {
+        // Several changes in the same pulse (e.g. many spacecraft positions) result in a single repaint
+        FxUpdateDispatcher.markDirty(this.repaintAction);
+    }
+
+    private void repaint() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        if(width <= 0 || height <= 0) {
+            return;
+        }
+        double scale = canvas.getScene() != null && canvas.getScene().getWindow() != null ? canvas.getScene().getWindow().getOutputScaleX() : 1.0;
+        if(this.staticDirty || this.staticImage == null || width != this.staticWidth || height != this.staticHeight || scale != this.staticScale) {
+            renderStaticLayer(width, height, scale);
+        }
         GraphicsContext gc = this.canvas.getGraphicsContext2D();
-        PolarPlotPainter painter = new PolarPlotPainter(gc, canvas.getWidth(), canvas.getHeight());
+        gc.drawImage(this.staticImage, 0, 0, width, height);
+        PolarPlotPainter painter = new PolarPlotPainter(gc, width, height);
+        drawSpacecraftLocation(painter);
+        drawAngleText(painter);
+    }
+
+    private void renderStaticLayer(double width, double height, double scale) {
+        // Rendered at the output scale of the screen, so that the image is not blurred on HiDPI screens
+        int imageWidth = (int) Math.ceil(width * scale);
+        int imageHeight = (int) Math.ceil(height * scale);
+        this.staticLayer.setWidth(imageWidth);
+        this.staticLayer.setHeight(imageHeight);
+        GraphicsContext gc = this.staticLayer.getGraphicsContext2D();
+        gc.save();
+        gc.scale(scale, scale);
+        PolarPlotPainter painter = new PolarPlotPainter(gc, width, height);
         drawBackground(painter);
         drawMask(painter);
         drawPlot(painter);
         drawPass(painter);
-        drawSpacecraftLocation(painter);
-        drawAngleText(painter);
+        gc.restore();
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        WritableImage reused = this.staticImage != null && (int) this.staticImage.getWidth() == imageWidth && (int) this.staticImage.getHeight() == imageHeight ? this.staticImage : null;
+        this.staticImage = this.staticLayer.snapshot(parameters, reused);
+        this.staticWidth = width;
+        this.staticHeight = height;
+        this.staticScale = scale;
+        this.staticDirty = false;
     }
 
     private void drawMask(PolarPlotPainter painter) {
@@ -207,7 +280,7 @@ public class PolarPlot implements Initializable {
     public void updateSize(double size) {
         canvas.resize(size, size);
 
-        refresh();
+        scheduleRepaint();
     }
 
     public void setSpacecraftDrawStrategy(ISpacecraftDrawStrategy spacecraftDrawStrategy) {
@@ -258,7 +331,7 @@ public class PolarPlot implements Initializable {
             // If the current location is null, the SC went out of visibility
             if(currentLocation == null) {
                 this.positionMap.remove(orbit.getId());
-                refresh();
+                scheduleRepaint();
             } else {
                 if (currentTrack.contains(currentLocation.getTime())) {
                     // set spacecraft position
@@ -293,19 +366,19 @@ public class PolarPlot implements Initializable {
 
     public void clearSpacecraftTrackPosition(UUID id) {
         if(this.positionMap.remove(id) != null) {
-            refresh();
+            scheduleRepaint();
         }
     }
 
     public void clearSpacecraftTrack(UUID id) {
         if(this.trackMap.remove(id) != null) {
-            refresh();
+            invalidateStaticLayer();
         }
     }
 
     public void selectGroundStation(GroundStationGraphics b) {
         this.currentMask = b.getGroundStation().getMask() != null ? b.getGroundStation().getMask().getAzElMap() : null;
-        refresh();
+        invalidateStaticLayer();
     }
 
     public interface ISpacecraftDrawStrategy {
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A latitude/longitude polyline (e.g. a ground track), projected to widget coordinates with a level of detail that
+ * depends on the current viewport: points are culled to the visible area and the result is simplified to a pixel
+ * tolerance (Douglas-Peucker), so that the rendering cost depends on the pixels on screen and not on the number of
+ * samples. The projection of the last viewport is cached.
+ */
+public class ProjectedPolyline {
+
+    public static final double DEFAULT_PIXEL_TOLERANCE = 0.5;
+
+    // Longitude difference (degrees) between two consecutive points, above which the polyline is split (antimeridian)
+    private static final double LONGITUDE_JUMP = 45;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final boolean culling;
+    private final double pixelTolerance;
+
+    private ViewBox cachedWidgetViewport;
+    private ViewBox cachedLatLonViewport;
+    private List<double[]> cachedRuns;
+
+    /**
+     * Create a projected polyline.
+     *
+     * @param latLonPoints the points, as [latitude, longitude] in degrees
+     * @param culling true if the points outside the viewport shall be dropped and the polyline split at longitude
+     *                jumps (open polylines), false if all points shall be kept in a single run (closed shapes)
+     * @param pixelTolerance the maximum distance in pixels between the simplified and the original polyline
+     */
+    public ProjectedPolyline(List<double[]> latLonPoints, boolean culling, double pixelTolerance) {
+        this.latitudes = new double[latLonPoints.size()];
+        this.longitudes = new double[latLonPoints.size()];
+        for(int i = 0; i < latLonPoints.size(); ++i) {
+            this.latitudes[i] = latLonPoints.get(i)[0];
+            this.longitudes[i] = latLonPoints.get(i)[1];
+        }
+        this.culling = culling;
+        this.pixelTolerance = pixelTolerance;
+    }
+
+    public boolean isEmpty() {
+        return this.latitudes.length == 0;
+    }
+
+    /**
+     * Return the runs to draw for the provided viewports. Each run is a sequence of x,y widget coordinates.
+     *
+     * @param widgetViewport the widget viewport
+     * @param latLonViewport the lat/lon viewport
+     * @return the runs (not to be modified)
+     */
+    public List<double[]> project(ViewBox widgetViewport, ViewBox latLonViewport) {
+        if(this.cachedRuns != null && widgetViewport.equals(this.cachedWidgetViewport) && latLonViewport.equals(this.cachedLatLonViewport)) {
+            return this.cachedRuns;
+        }
+        List<double[]> runs = new ArrayList<>();
+        int n = this.latitudes.length;
+        double[] buffer = new double[n * 2];
+        int bufferSize = 0;
+        for(int i = 0; i < n; ++i) {
+            if(this.culling) {
+                // Split on longitude jump
+                if(i > 0 && Math.abs(this.longitudes[i] - this.longitudes[i - 1]) > LONGITUDE_JUMP) {
+                    bufferSize = flush(runs, buffer, bufferSize);
+                }
+                // Keep the point if one of its segments may be visible, also when both ends are outside the viewport
+                if(!isSegmentVisible(i - 1, i, latLonViewport) && !isSegmentVisible(i, i + 1, latLonViewport)) {
+                    bufferSize = flush(runs, buffer, bufferSize);
+                    continue;
+                }
+            }
+            buffer[bufferSize++] = widgetViewport.getStartX() + ((this.longitudes[i] - latLonViewport.getStartX()) / latLonViewport.getWidth()) * widgetViewport.getWidth();
+            buffer[bufferSize++] = widgetViewport.getStartY() + ((latLonViewport.getStartY() - this.latitudes[i]) / latLonViewport.getHeight()) * widgetViewport.getHeight();
+        }
+        flush(runs, buffer, bufferSize);
+        this.cachedWidgetViewport = widgetViewport.copy();
+        this.cachedLatLonViewport = latLonViewport.copy();
+        this.cachedRuns = Collections.unmodifiableList(runs);
+        return this.cachedRuns;
+    }
+
+    private boolean isSegmentVisible(int a, int b, ViewBox latLonViewport) {
+        if(a < 0 || b >= this.latitudes.length || Math.abs(this.longitudes[b] - this.longitudes[a]) > LONGITUDE_JUMP) {
+            return false;
+        }
+        // Conservative test on the bounding box of the segment. latLonViewport: start is top-left (min longitude, max latitude)
+        return Math.max(this.longitudes[a], this.longitudes[b]) >= latLonViewport.getStartX()
+                && Math.min(this.longitudes[a], this.longitudes[b]) <= latLonViewport.getEndX()
+                && Math.min(this.latitudes[a], this.latitudes[b]) <= latLonViewport.getStartY()
+                && Math.max(this.latitudes[a], this.latitudes[b]) >= latLonViewport.getEndY();
+    }
+
+    private int flush(List<double[]> runs, double[] buffer, int bufferSize) {
+        if(bufferSize >= 4) {
+            runs.add(simplify(buffer, bufferSize / 2, this.pixelTolerance));
+        }
+        return 0;
+    }
+
+    /**
+     * Simplify the provided x,y sequence with the Douglas-Peucker algorithm (iterative, to support long sequences).
+     */
+    static double[] simplify(double[] xy, int points, double tolerance) {
+        if(points <= 2) {
+            double[] result = new double[points * 2];
+            System.arraycopy(xy, 0, result, 0, result.length);
+            return result;
+        }
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        double sqTolerance = tolerance * tolerance;
+        int[] stack = new int[points * 2];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = points - 1;
+        while(stackSize > 0) {
+            int last = stack[--stackSize];
+            int first = stack[--stackSize];
+            double maxSqDistance = 0;
+            int index = -1;
+            for(int i = first + 1; i < last; ++i) {
+                double sqDistance = sqSegmentDistance(xy, i, first, last);
+                if(sqDistance > maxSqDistance) {
+                    maxSqDistance = sqDistance;
+                    index = i;
+                }
+            }
+            if(index != -1 && maxSqDistance > sqTolerance) {
+                keep[index] = true;
+                stack[stackSize++] = first;
+                stack[stackSize++] = index;
+                stack[stackSize++] = index;
+                stack[stackSize++] = last;
+            }
+        }
+        int kept = 0;
+        for(boolean k : keep) {
+            if(k) {
+                ++kept;
+            }
+        }
+        double[] result = new double[kept * 2];
+        int j = 0;
+        for(int i = 0; i < points; ++i) {
+            if(keep[i]) {
+                result[j++] = xy[i * 2];
+                result[j++] = xy[i * 2 + 1];
+            }
+        }
+        return result;
+    }
+
+    private static double sqSegmentDistance(double[] xy, int p, int a, int b) {
+        double x = xy[a * 2];
+        double y = xy[a * 2 + 1];
+        double dx = xy[b * 2] - x;
+        double dy = xy[b * 2 + 1] - y;
+        if(dx != 0 || dy != 0) {
+            double t = ((xy[p * 2] - x) * dx + (xy[p * 2 + 1] - y) * dy) / (dx * dx + dy * dy);
+            if(t > 1) {
+                x = xy[b * 2];
+                y = xy[b * 2 + 1];
+            } else if(t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+        dx = xy[p * 2] - x;
+        dy = xy[p * 2 + 1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Add the runs to the current path of the graphics context.
+     *
+     * @param gc the graphics context
+     * @param runs the runs, as returned by {@link ProjectedPolyline#project(ViewBox, ViewBox)}
+     */
+    public static void appendToPath(GraphicsContext gc, List<double[]> runs) {
+        for(double[] run : runs) {
+            gc.moveTo(run[0], run[1]);
+            for(int i = 2; i < run.length; i += 2) {
+                gc.lineTo(run[i], run[i + 1]);
+            }
+        }
+    }
+}
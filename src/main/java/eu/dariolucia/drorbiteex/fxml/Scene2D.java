@@ -28,6 +28,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.*;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 
@@ -43,8 +44,17 @@ public class Scene2D implements Initializable {
     private static final int MIN_ZOOM_FACTOR = 0;
     private static final int MAX_ZOOM_FACTOR = 17;
 
-    // 2D scene (minimap)
+    // 2D scene (minimap): layers are redrawn only when invalidated
+    public Pane scene2dPane;
+    // Background map layer, redrawn on viewport change
     public Canvas scene2d;
+    // Ground tracks, ground stations and visibility circles
+    public Canvas trackLayer;
+    // Spacecraft markers, redrawn on each spacecraft position update
+    public Canvas spacecraftLayer;
+    private boolean mapDirty = true;
+    private boolean tracksDirty = true;
+    private boolean spacecraftDirty = true;
     private Image scene2dImage;
     // BMP
     private double widthHeightRatio;
@@ -78,6 +88,11 @@ public class Scene2D implements Initializable {
         this.scene2dImage = new Image(this.getClass().getResourceAsStream("/images/earth.jpg"));
         this.scene2d.heightProperty().addListener((a,b,c) -> recomputeViewports(true));
         this.scene2d.widthProperty().addListener((a,b,c) -> recomputeViewports(true));
+        // The other layers follow the size of the map layer
+        this.trackLayer.widthProperty().bind(this.scene2d.widthProperty());
+        this.trackLayer.heightProperty().bind(this.scene2d.heightProperty());
+        this.spacecraftLayer.widthProperty().bind(this.scene2d.widthProperty());
+        this.spacecraftLayer.heightProperty().bind(this.scene2d.heightProperty());
         // BMP
         this.widthHeightRatio = this.scene2dImage.getWidth()/this.scene2dImage.getHeight();
         this.widgetViewport = new ViewBox(0, 0, 0, 0);
@@ -85,18 +100,18 @@ public class Scene2D implements Initializable {
 
         recomputeViewports(true);
 
-        scene2d.addEventHandler(ScrollEvent.SCROLL, this::onScrollOnScene);
-        scene2d.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onStartDragOnScene);
-        scene2d.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragOnScene);
-        scene2d.addEventHandler(MouseEvent.MOUSE_RELEASED, this::onEndDragOnScene);
+        scene2dPane.addEventHandler(ScrollEvent.SCROLL, this::onScrollOnScene);
+        scene2dPane.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onStartDragOnScene);
+        scene2dPane.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragOnScene);
+        scene2dPane.addEventHandler(MouseEvent.MOUSE_RELEASED, this::onEndDragOnScene);
 
         // Menu for image copy
-        scene2d.setOnContextMenuRequested(e -> {
+        scene2dPane.setOnContextMenuRequested(e -> {
             ContextMenu m = new ContextMenu();
             final MenuItem copyItem = new MenuItem("Copy image to clipboard");
             copyItem.setOnAction(event -> {
                 WritableImage image = new WritableImage((int) scene2d.getWidth(), (int) scene2d.getHeight());
-                image = scene2d.snapshot(null, image);
+                image = scene2dPane.snapshot(null, image);
                 ClipboardContent content = new ClipboardContent();
                 content.putImage(image);
                 Clipboard.getSystemClipboard().setContent(content);
@@ -187,6 +202,8 @@ public class Scene2D implements Initializable {
     }
 
     public void recomputeViewports(boolean redrawScene) {
+        ViewBox previousLatLonViewport = this.latLonViewport == null ? null : this.latLonViewport.copy();
+        ViewBox previousWidgetViewport = this.widgetViewport.copy();
         if(trackingOrbit != null) {
             // If you are tracking, easy: the center is the spacecraft position
             SpacecraftPosition sp = trackingOrbit.getCurrentSpacecraftPosition();
@@ -269,11 +286,22 @@ public class Scene2D implements Initializable {
         bry = this.scene2dImage.getHeight()/180.0 * (90 - this.latLonViewport.getEndY());
         this.imageSourceViewport.update(tlx, tly, brx, bry);
 
+        // All layers depend on the viewport
+        if(!this.latLonViewport.equals(previousLatLonViewport) || !this.widgetViewport.equals(previousWidgetViewport)) {
+            invalidateAllLayers();
+        }
+
         if(redrawScene) {
             refreshScene();
         }
     }
 
+    private void invalidateAllLayers() {
+        this.mapDirty = true;
+        this.tracksDirty = true;
+        this.spacecraftDirty = true;
+    }
+
     public void configure(Region parentRegion) {
         scene2d.heightProperty().unbind();
         scene2d.widthProperty().unbind();
@@ -287,16 +315,87 @@ public class Scene2D implements Initializable {
         this.selectedOrbitSupplier = selectedOrbitSupplier;
     }
 
+    /**
+     * Redraw ground tracks, ground stations and spacecraft. The map is redrawn only if the viewport changed.
+     */
     public void refreshScene() {
+        this.tracksDirty = true;
+        this.spacecraftDirty = true;
+        redrawLayers();
+    }
+
+    /**
+     * Redraw the spacecraft positions only. Other layers are redrawn only if the viewport changed (e.g. when tracking
+     * a spacecraft).
+     */
+    public void refreshSpacecraft() {
+        this.spacecraftDirty = true;
+        redrawLayers();
+    }
+
+    private void redrawLayers() {
         //
         if(trackingOrbit != null) {
             recomputeViewports(false);
         }
         // Handle 2D view
-        GraphicsContext gc = scene2d.getGraphicsContext2D();
-        gc.setFill(Color.BLACK);
-        gc.fillRect(0, 0, scene2d.getWidth(), scene2d.getHeight());
-        drawMap(gc);
+        if(this.mapDirty) {
+            GraphicsContext gc = scene2d.getGraphicsContext2D();
+            gc.setFill(Color.BLACK);
+            gc.fillRect(0, 0, scene2d.getWidth(), scene2d.getHeight());
+            drawMap(gc);
+            this.mapDirty = false;
+        }
+        if(this.tracksDirty) {
+            GraphicsContext gc = startLayer(trackLayer);
+            if(groundStationsSupplier != null && selectedOrbitSupplier != null) {
+                OrbitGraphics selectedOrbitGraphics = selectedOrbitSupplier.get();
+                for (GroundStationGraphics gs : groundStationsSupplier.get()) {
+                    gs.draw(gc, selectedOrbitGraphics, widgetViewport, latLonViewport, gs.equals(this.selectedGroundStation));
+                }
+            }
+            if(orbitsSupplier != null) {
+                OrbitGraphics selectedOrbit = null;
+                for (OrbitGraphics gs : orbitsSupplier.get()) {
+                    if(gs.equals(this.selectedOrbit)) {
+                        selectedOrbit = gs;
+                    } else {
+                        gs.drawGroundTrack(gc, widgetViewport, latLonViewport, false);
+                    }
+                }
+                // Draw selected orbit at the end
+                if(selectedOrbit != null) {
+                    selectedOrbit.drawGroundTrack(gc, widgetViewport, latLonViewport, true);
+                }
+            }
+            gc.restore();
+            this.tracksDirty = false;
+        }
+        if(this.spacecraftDirty) {
+            GraphicsContext gc = startLayer(spacecraftLayer);
+            if(orbitsSupplier != null) {
+                OrbitGraphics selectedOrbit = null;
+                for (OrbitGraphics gs : orbitsSupplier.get()) {
+                    if(gs.equals(this.selectedOrbit)) {
+                        selectedOrbit = gs;
+                    } else {
+                        gs.drawSpacecraft(gc, widgetViewport, latLonViewport, false);
+                    }
+                }
+                // Draw selected orbit at the end
+                if(selectedOrbit != null) {
+                    selectedOrbit.drawSpacecraft(gc, widgetViewport, latLonViewport, true);
+                }
+            }
+            gc.restore();
+            this.spacecraftDirty = false;
+        }
+        // Done
+    }
+
+    private GraphicsContext startLayer(Canvas layer) {
+        GraphicsContext gc = layer.getGraphicsContext2D();
+        gc.clearRect(0, 0, layer.getWidth(), layer.getHeight());
         // Clipping
         gc.save();
         gc.beginPath();
@@ -308,27 +407,7 @@ public class Scene2D implements Initializable {
         gc.closePath();
         gc.clip();
         // End clipping
-        if(groundStationsSupplier != null && selectedOrbitSupplier != null) {
-            for (GroundStationGraphics gs : groundStationsSupplier.get()) {
-                gs.draw(gc, selectedOrbitSupplier.get(), widgetViewport, latLonViewport, gs.equals(this.selectedGroundStation));
-            }
-        }
-        if(orbitsSupplier != null) {
-            OrbitGraphics selectedOrbit = null;
-            for (OrbitGraphics gs : orbitsSupplier.get()) {
-                if(gs.equals(this.selectedOrbit)) {
-                    selectedOrbit = gs;
-                } else {
-                    gs.draw(gc, widgetViewport, latLonViewport, false);
-                }
-            }
-            // Draw selected orbit at the end
-            if(selectedOrbit != null) {
-                selectedOrbit.draw(gc, widgetViewport, latLonViewport, true);
-            }
-        }
-        gc.restore();
-        // Done
+        return gc;
     }
 
     private void drawMap(GraphicsContext gc) {
@@ -338,7 +417,7 @@ public class Scene2D implements Initializable {
     }
 
     public Node getMainScene() {
-        return this.scene2d;
+        return this.scene2dPane;
     }
 
     public void activateTracking(OrbitGraphics og) {
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Clock driving the real-time and replay tracking. The tracking time is derived from the wall clock
+ * (start time + elapsed time * speed), so that a tick always moves to the latest time. At most one time update is
+ * pending at any time: if the previous update is still queued or running, the tick is dropped. The tick period adapts
+ * to the measured cost of the updates, so that the update executor is never saturated.
+ */
+public class TrackingClock {
+
+    private static final Logger LOGGER = Logger.getLogger(TrackingClock.class.getName());
+
+    // Weight of the last measurement in the average update cost
+    private static final double COST_SMOOTHING_FACTOR = 0.3;
+    // The period is at least the average update cost times this factor, to leave room to other tasks
+    private static final double COST_PERIOD_FACTOR = 1.5;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor((e) -> {
+        Thread t = new Thread(e);
+        t.setDaemon(true);
+        t.setName("Dr Orbiteex - Tracking Clock Thread");
+        return t;
+    });
+
+    private final ExecutorService updateExecutor;
+    private final Consumer<Date> timeUpdater;
+    private final Consumer<TrackingClock> statusListener;
+
+    private final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+    private volatile boolean running = false;
+    private volatile long startTime;
+    private volatile long wallClockStartTime;
+    private volatile double speed;
+    private volatile long nominalPeriod;
+    private volatile long period;
+    private volatile double averageCost;
+    private volatile long lag;
+    private volatile long droppedTicks;
+    private ScheduledFuture<?> nextTick;
+
+    /**
+     * Create a tracking clock.
+     *
+     * @param updateExecutor the executor running the time updates
+     * @param timeUpdater the time update, run by the update executor
+     * @param statusListener informed, from the update executor, after each time update
+     */
+    public TrackingClock(ExecutorService updateExecutor, Consumer<Date> timeUpdater, Consumer<TrackingClock> statusListener) {
+        this.updateExecutor = updateExecutor;
+        this.timeUpdater = timeUpdater;
+        this.statusListener = statusListener;
+    }
+
+    /**
+     * Start the clock. The first tick is immediate.
+     *
+     * @param start the tracking time at start
+     * @param speed the tracking time speed with respect to the wall clock (1.0 is real time)
+     * @param nominalPeriod the tick period (ms), used if the updates are fast enough
+     */
+    public synchronized void start(Date start, double speed, long nominalPeriod) {
+        if(this.running) {
+            stop();
+        }
+        this.startTime = start.getTime();
+        this.wallClockStartTime = System.currentTimeMillis();
+        this.speed = speed;
+        this.nominalPeriod = nominalPeriod;
+        this.period = Math.max(nominalPeriod, Math.round(this.averageCost * COST_PERIOD_FACTOR));
+        this.lag = 0;
+        this.droppedTicks = 0;
+        this.running = true;
+        this.nextTick = this.scheduler.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        this.running = false;
+        if(this.nextTick != null) {
+            this.nextTick.cancel(false);
+            this.nextTick = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Return the current tracking time, which does not depend on the ticks.
+     */
+    public Date getCurrentTime() {
+        return new Date(this.startTime + Math.round((System.currentTimeMillis() - this.wallClockStartTime) * this.speed));
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Return the current tick period (ms).
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Return the average cost of a time update (ms).
+     */
+    public double getAverageCost() {
+        return averageCost;
+    }
+
+    /**
+     * Return the time between the last tick and the completion of the corresponding time update (ms).
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * Return the number of ticks dropped since start, because the previous time update was not completed.
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    private synchronized void tick() {
+        if(!this.running) {
+            return;
+        }
+        if(this.updatePending.compareAndSet(false, true)) {
+            final Date time = getCurrentTime();
+            final long tickTime = System.currentTimeMillis();
+            try {
+                this.updateExecutor.submit(() -> runUpdate(time, tickTime));
+            } catch (RejectedExecutionException e) {
+                this.updatePending.set(false);
+                LOGGER.log(Level.WARNING, "Tracking time update rejected: " + e.getMessage(), e);
+            }
+        } else {
+            // Previous update still pending: skip, the next tick will use the latest time
+            ++this.droppedTicks;
+        }
+        this.nextTick = this.scheduler.schedule(this::tick, this.period, TimeUnit.MILLISECONDS);
+    }
+
+    private void runUpdate(Date time, long tickTime) {
+        long updateStart = System.currentTimeMillis();
+        try {
+            if(this.running) {
+                this.timeUpdater.accept(time);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error when updating tracking time: " + e.getMessage(), e);
+        } finally {
+            long updateEnd = System.currentTimeMillis();
+            long cost = updateEnd - updateStart;
+            this.averageCost = this.averageCost == 0 ? cost : COST_SMOOTHING_FACTOR * cost + (1 - COST_SMOOTHING_FACTOR) * this.averageCost;
+            this.period = Math.max(this.nominalPeriod, Math.round(this.averageCost * COST_PERIOD_FACTOR));
+            this.lag = updateEnd - tickTime;
+            this.updatePending.set(false);
+        }
+        if(this.statusListener != null) {
+            this.statusListener.accept(this);
+        }
+    }
+}
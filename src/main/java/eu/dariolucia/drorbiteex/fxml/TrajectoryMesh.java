@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.dariolucia.drorbiteex.fxml;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.geometry.Point3D;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.List;
+
+/**
+ * Trajectory rendered as a single tube mesh: when the trajectory is updated, the mesh points are overwritten in place
+ * and the faces are recomputed only if the number of trajectory points changes. Materials are shared by colour (see
+ * {@link DrawingUtils#getMaterial(Color)}).
+ * To be used only from the JavaFX thread.
+ */
+public class TrajectoryMesh {
+
+    // Number of sides of the tube section
+    private static final int SIDES = 4;
+
+    private final double radius;
+    private final TriangleMesh mesh;
+    private final MeshView meshView;
+
+    private float[] points = new float[0];
+    private int trajectoryPoints = 0;
+
+    public TrajectoryMesh(double radius) {
+        this.radius = radius;
+        this.mesh = new TriangleMesh();
+        // Single texture coordinate, the material has no texture
+        this.mesh.getTexCoords().addAll(0, 0);
+        this.meshView = new MeshView(this.mesh);
+        // The tube is thin: render both sides, so that the winding of the faces does not matter
+        this.meshView.setCullFace(CullFace.NONE);
+    }
+
+    public MeshView getNode() {
+        return meshView;
+    }
+
+    public void setColor(Color color) {
+        this.meshView.setMaterial(DrawingUtils.getMaterial(color));
+    }
+
+    public void update(List<Point3D> trajectory) {
+        int n = trajectory.size() < 2 ? 0 : trajectory.size();
+        int pointArraySize = n * SIDES * 3;
+        if(this.points.length != pointArraySize) {
+            this.points = new float[pointArraySize];
+        }
+        // Compute the section of the tube around each trajectory point
+        for(int i = 0; i < n; ++i) {
+            Point3D p = trajectory.get(i);
+            Point3D tangent = trajectory.get(Math.min(i + 1, n - 1)).subtract(trajectory.get(Math.max(i - 1, 0))).normalize();
+            // Use the radial direction as reference, fall back to the Y axis if aligned with the tangent
+            Point3D u = tangent.crossProduct(p);
+            if(u.magnitude() < 1e-9) {
+                u = tangent.crossProduct(0, 1, 0);
+            }
+            u = u.normalize();
+            Point3D v = u.crossProduct(tangent).normalize();
+            for(int s = 0; s < SIDES; ++s) {
+                double angle = 2 * Math.PI * s / SIDES;
+                double cos = Math.cos(angle) * radius;
+                double sin = Math.sin(angle) * radius;
+                int idx = (i * SIDES + s) * 3;
+                this.points[idx] = (float) (p.getX() + cos * u.getX() + sin * v.getX());
+                this.points[idx + 1] = (float) (p.getY() + cos * u.getY() + sin * v.getY());
+                this.points[idx + 2] = (float) (p.getZ() + cos * u.getZ() + sin * v.getZ());
+            }
+        }
+        ObservableFloatArray meshPoints = this.mesh.getPoints();
+        if(meshPoints.size() == pointArraySize) {
+            // Same topology: overwrite the points in place
+            meshPoints.set(0, this.points, 0, pointArraySize);
+        } else {
+            meshPoints.setAll(this.points);
+        }
+        if(n != this.trajectoryPoints) {
+            updateFaces(n);
+            this.trajectoryPoints = n;
+        }
+    }
+
+    private void updateFaces(int n) {
+        // Two triangles for each side of each segment, format: p0, t0, p1, t1, p2, t2
+        int[] faces = new int[Math.max(0, n - 1) * SIDES * 2 * 6];
+        int idx = 0;
+        for(int i = 0; i < n - 1; ++i) {
+            for(int s = 0; s < SIDES; ++s) {
+                int a = i * SIDES + s;
+                int b = i * SIDES + (s + 1) % SIDES;
+                int c = (i + 1) * SIDES + s;
+                int d = (i + 1) * SIDES + (s + 1) % SIDES;
+                faces[idx++] = a; faces[idx++] = 0;
+                faces[idx++] = c; faces[idx++] = 0;
+                faces[idx++] = b; faces[idx++] = 0;
+                faces[idx++] = b; faces[idx++] = 0;
+                faces[idx++] = c; faces[idx++] = 0;
+                faces[idx++] = d; faces[idx++] = 0;
+            }
+        }
+        this.mesh.getFaces().setAll(faces);
+        this.mesh.getFaceSmoothingGroups().clear();
+    }
+}
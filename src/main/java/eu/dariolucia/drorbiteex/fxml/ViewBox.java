@@ -18,6 +18,8 @@ package eu.dariolucia.drorbiteex.fxml;
 
 import javafx.geometry.Point2D;
 
+import java.util.Objects;
+
 public class ViewBox {
     private double startX;
     private double startY;
@@ -96,6 +98,23 @@ public class ViewBox {
         return px >= startX && px <= endX && py >= startY && py <= endY;
     }
 
+    public ViewBox copy() {
+        return new ViewBox(startX, startY, endX, endY);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ViewBox viewBox = (ViewBox) o;
+        return Double.compare(viewBox.startX, startX) == 0 && Double.compare(viewBox.startY, startY) == 0 && Double.compare(viewBox.endX, endX) == 0 && Double.compare(viewBox.endY, endY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startX, startY, endX, endY);
+    }
+
     @Override
     public String toString() {
         return "ViewBox{" +
@@ -19,18 +19,17 @@ package eu.dariolucia.drorbiteex.model;
 import eu.dariolucia.drorbiteex.model.orbit.*;
 import eu.dariolucia.drorbiteex.model.schedule.*;
 import eu.dariolucia.drorbiteex.model.station.*;
+import eu.dariolucia.drorbiteex.model.tle.CelestrakTleMonitor;
 import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
 import eu.dariolucia.drorbiteex.model.util.TimeUtils;
+import eu.dariolucia.drorbiteex.model.util.WriteBehindPersister;
 import org.orekit.propagation.events.EventDetector;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.time.TimeScalesFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.Date;
-import java.util.List;
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -39,15 +38,53 @@ public class ModelManager implements IOrbitListener, IGroundStationListener {
 
     private static final Logger LOGGER = Logger.getLogger(ModelManager.class.getName());
 
+    public static final long DEFAULT_PERSISTENCE_INTERVAL_MS = 5000;
+    public static final String OEM_STORE_FOLDER_NAME = "oem-store";
+    public static final String CELESTRAK_CACHE_FOLDER_NAME = "celestrak-cache";
+    public static final int CELESTRAK_MAX_CONCURRENT_GROUPS = 2;
+
     private final OrbitManager orbitManager;
     private final GroundStationManager groundStationManager;
 
     private final String orbitFileStorage;
     private final String groundStationFileStorage;
 
+    private final WriteBehindPersister orbitPersister;
+    private final WriteBehindPersister groundStationPersister;
+
+    private final CelestrakTleMonitor celestrakTleMonitor;
+
+    // Orbit changes not yet written, as snapshots taken by the model thread: the persister thread never accesses the
+    // live orbits. If only some orbits changed, the orbit file is updated incrementally.
+    private final Map<UUID, Orbit> changedOrbits = new HashMap<>();
+    private final Set<UUID> removedOrbits = new HashSet<>();
+    // Snapshot for the full write of the orbit file, null if not needed
+    private Map<UUID, Orbit> orbitFileSnapshot = null;
+    private OrbitParameterConfiguration orbitConfigurationSnapshot = null;
+    // OEM payloads referenced by the last full write of the orbit file, to clean up the store once written
+    private Set<String> writtenOemReferences = null;
+
     public ModelManager(String orbitFileStorage, String groundStationFileStorage) {
+        this(orbitFileStorage, groundStationFileStorage, DEFAULT_PERSISTENCE_INTERVAL_MS);
+    }
+
+    /**
+     * Create the model manager.
+     *
+     * @param orbitFileStorage the path of the orbit configuration file
+     * @param groundStationFileStorage the path of the ground station configuration file
+     * @param persistenceIntervalMillis the minimum interval between two writes of the same configuration file. Changes
+     *                                  are written in background: call {@link ModelManager#shutdown()} to write the
+     *                                  pending changes.
+     */
+    public ModelManager(String orbitFileStorage, String groundStationFileStorage, long persistenceIntervalMillis) {
         this.orbitFileStorage = orbitFileStorage;
         this.groundStationFileStorage = groundStationFileStorage;
+        // OEM payloads are stored next to the orbit configuration file, which only references them
+        OemStore.setDefault(new OemStore(Paths.get(orbitFileStorage).toAbsolutePath().getParent().resolve(OEM_STORE_FOLDER_NAME)));
+        // Celestrak catalogues are cached next to the orbit configuration file, so that they survive restarts
+        CelestrakCatalogueCache.setDefault(new CelestrakCatalogueCache(Paths.get(orbitFileStorage).toAbsolutePath().getParent().resolve(CELESTRAK_CACHE_FOLDER_NAME),
+                CelestrakCatalogueCache.getConfiguredUrlTemplate(), CelestrakCatalogueCache.DEFAULT_TTL_MILLIS));
         this.orbitManager = new OrbitManager();
         File orbitFile = new File(orbitFileStorage);
         if(orbitFile.exists()) {
@@ -70,14 +107,29 @@ public class ModelManager implements IOrbitListener, IGroundStationListener {
         for(GroundStation gs : this.groundStationManager.getGroundStations()) {
             this.orbitManager.addListener(gs);
         }
+        // Create the persisters
+        this.orbitPersister = new WriteBehindPersister("Orbit", Paths.get(orbitFileStorage), persistenceIntervalMillis, this::writeOrbitFile, this::cleanOemStore);
+        this.groundStationPersister = new WriteBehindPersister("Ground Station", Paths.get(groundStationFileStorage), persistenceIntervalMillis, this.groundStationManager::persist);
         // Register the manager as listener
         this.orbitManager.addListener(this);
         this.groundStationManager.addListener(this);
+        // Keep Celestrak orbits up to date in background, if enabled in the orbit parameters
+        this.celestrakTleMonitor = new CelestrakTleMonitor(this.orbitManager, CELESTRAK_MAX_CONCURRENT_GROUPS);
+        applyCelestrakMonitorConfiguration(this.orbitManager.getConfiguration());
     }
 
     public void updateOrbitParameters(OrbitParameterConfiguration configuration) {
         this.orbitManager.updateConfiguration(configuration);
-        saveOrbitFile();
+        applyCelestrakMonitorConfiguration(this.orbitManager.getConfiguration());
+        saveOrbitFile(null, false);
+    }
+
+    private void applyCelestrakMonitorConfiguration(OrbitParameterConfiguration configuration) {
+        if(configuration.isCelestrakMonitorEnabled() && configuration.getCelestrakCheckInterval() > 0 && configuration.getCelestrakMaxEpochAge() > 0) {
+            this.celestrakTleMonitor.start(configuration.getCelestrakCheckInterval() * 1000L, configuration.getCelestrakMaxEpochAge() * 1000L);
+        } else {
+            this.celestrakTleMonitor.stop();
+        }
     }
 
     public void updateGroundStationParameters(GroundStationParameterConfiguration props) {
@@ -87,6 +139,10 @@ public class ModelManager implements IOrbitListener, IGroundStationListener {
         orbitManager.refresh();
     }
 
+    public CelestrakTleMonitor getCelestrakTleMonitor() {
+        return celestrakTleMonitor;
+    }
+
     public OrbitManager getOrbitManager() {
         return orbitManager;
     }
@@ -105,33 +161,170 @@ public class ModelManager implements IOrbitListener, IGroundStationListener {
         // If an orbit is added, recompute all orbital parameters
         this.orbitManager.refresh();
         // Save configuration
-        saveOrbitFile();
+        saveOrbitFile(orbit, false);
+    }
+
+    private void saveOrbitFile(Orbit changedOrbit, boolean removed) {
+        // Called by the model thread: the snapshots are taken here, consistently with the model updates
+        boolean fullWrite = changedOrbit == null || !new File(orbitFileStorage).exists();
+        Orbit snapshot = changedOrbit == null || removed ? null : changedOrbit.copy();
+        Map<UUID, Orbit> fullSnapshot = null;
+        if(fullWrite) {
+            fullSnapshot = new HashMap<>();
+            for(Orbit o : this.orbitManager.getOrbits()) {
+                fullSnapshot.put(o.getId(), o == changedOrbit ? snapshot : o.copy());
+            }
+        }
+        synchronized (this.changedOrbits) {
+            if(fullSnapshot != null) {
+                // The full write replaces all the pending changes
+                this.orbitFileSnapshot = fullSnapshot;
+                this.orbitConfigurationSnapshot = this.orbitManager.getConfiguration().copy();
+                this.changedOrbits.clear();
+                this.removedOrbits.clear();
+            } else if(this.orbitFileSnapshot != null) {
+                // Full write pending: update it
+                if(removed) {
+                    this.orbitFileSnapshot.remove(changedOrbit.getId());
+                } else {
+                    this.orbitFileSnapshot.put(changedOrbit.getId(), snapshot);
+                }
+            } else if(removed) {
+                this.changedOrbits.remove(changedOrbit.getId());
+                this.removedOrbits.add(changedOrbit.getId());
+            } else {
+                this.removedOrbits.remove(changedOrbit.getId());
+                this.changedOrbits.put(changedOrbit.getId(), snapshot);
+            }
+        }
+        // Written in background, changes are coalesced
+        this.orbitPersister.markDirty();
+    }
+
+    private void writeOrbitFile(OutputStream outputStream) throws IOException {
+        // Called by the persister thread: only the snapshots are accessed
+        // References are set only by a full write, and used only if this write succeeds
+        this.writtenOemReferences = null;
+        Map<UUID, Orbit> changed;
+        Set<UUID> removed;
+        Map<UUID, Orbit> fullSnapshot;
+        OrbitParameterConfiguration configurationSnapshot;
+        synchronized (this.changedOrbits) {
+            changed = new HashMap<>(this.changedOrbits);
+            removed = new HashSet<>(this.removedOrbits);
+            fullSnapshot = this.orbitFileSnapshot;
+            configurationSnapshot = this.orbitConfigurationSnapshot;
+            this.changedOrbits.clear();
+            this.removedOrbits.clear();
+            this.orbitFileSnapshot = null;
+            this.orbitConfigurationSnapshot = null;
+        }
+        try {
+            if(fullSnapshot != null) {
+                List<Orbit> orbits = new ArrayList<>(fullSnapshot.values());
+                Collections.sort(orbits);
+                this.writtenOemReferences = externaliseOems(orbits);
+                OrbitConfiguration oc = new OrbitConfiguration();
+                oc.setOrbits(orbits);
+                oc.setConfiguration(configurationSnapshot);
+                OrbitConfiguration.save(oc, outputStream);
+                outputStream.flush();
+            } else {
+                // Copy the current file, replacing only the changed orbits
+                externaliseOems(changed.values());
+                try (InputStream is = new BufferedInputStream(new FileInputStream(orbitFileStorage))) {
+                    OrbitConfiguration.update(is, outputStream, null, changed.values(), removed);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not written: keep the changes for the next attempt, unless more recent snapshots were taken meanwhile
+            synchronized (this.changedOrbits) {
+                if(fullSnapshot != null) {
+                    if(this.orbitFileSnapshot == null) {
+                        fullSnapshot.keySet().removeAll(this.removedOrbits);
+                        fullSnapshot.putAll(this.changedOrbits);
+                        this.orbitFileSnapshot = fullSnapshot;
+                        this.orbitConfigurationSnapshot = configurationSnapshot;
+                        this.changedOrbits.clear();
+                        this.removedOrbits.clear();
+                    }
+                } else if(this.orbitFileSnapshot == null) {
+                    for(Map.Entry<UUID, Orbit> entry : changed.entrySet()) {
+                        if(!this.removedOrbits.contains(entry.getKey())) {
+                            this.changedOrbits.putIfAbsent(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    for(UUID id : removed) {
+                        if(!this.changedOrbits.containsKey(id)) {
+                            this.removedOrbits.add(id);
+                        }
+                    }
+                }
+            }
+            throw e;
+        }
     }
 
-    private void saveOrbitFile() {
+    private static Set<String> externaliseOems(Collection<Orbit> orbits) {
+        // OEM payloads are written to the store, the orbit file keeps only the reference
+        OemStore store = OemStore.getDefault();
+        Set<String> references = new HashSet<>();
+        for(Orbit o : orbits) {
+            if(o.getModel() instanceof OemOrbitModel) {
+                OemOrbitModel model = (OemOrbitModel) o.getModel();
+                model.externalise(store);
+                if(model.getOemReference() != null) {
+                    references.add(model.getOemReference());
+                }
+            }
+        }
+        return references;
+    }
+
+    private void cleanOemStore() {
+        // Called by the persister thread once the orbit file is replaced: after a full write, the payloads that are not
+        // referenced by the orbit file anymore (deleted or replaced OEM orbits) are removed from the store
+        Set<String> references = this.writtenOemReferences;
+        this.writtenOemReferences = null;
+        OemStore store = OemStore.getDefault();
+        if(references == null || store == null) {
+            return;
+        }
         try {
-            File orbitFile = new File(orbitFileStorage);
-            if(!orbitFile.exists()) {
-                orbitFile.getParentFile().mkdirs();
-                orbitFile.createNewFile();
+            int deleted = store.retainOnly(references);
+            if(deleted > 0) {
+                LOGGER.log(Level.INFO, deleted + " unreferenced OEM payloads removed from " + store.getFolder());
             }
-            this.orbitManager.persist(new FileOutputStream(orbitFile));
         } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Cannot save orbit manager: " + e.getMessage(), e);
+            LOGGER.log(Level.WARNING, "Cannot clean up OEM store " + store.getFolder() + ": " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Write all pending configuration changes and stop the background persistence.
+     */
+    public void shutdown() {
+        this.celestrakTleMonitor.stop();
+        this.orbitPersister.close();
+        this.groundStationPersister.close();
+    }
+
     @Override
     public void orbitRemoved(OrbitManager manager, Orbit orbit) {
         LOGGER.log(Level.INFO, "Orbit removed: " + orbit);
         // Save configuration
-        saveOrbitFile();
+        saveOrbitFile(orbit, true);
     }
 
     @Override
     public void orbitModelDataUpdated(Orbit orbit, List<SpacecraftPosition> spacecraftPositions, SpacecraftPosition currentPosition) {
+        // Nothing to do: recomputed data is not persisted
+    }
+
+    @Override
+    public void orbitDefinitionUpdated(Orbit orbit) {
         // Save configuration
-        saveOrbitFile();
+        saveOrbitFile(orbit, false);
     }
 
     @Override
@@ -151,16 +344,8 @@ public class ModelManager implements IOrbitListener, IGroundStationListener {
     }
 
     private void saveGroundStationFile() {
-        try {
-            File stationFile = new File(groundStationFileStorage);
-            if(!stationFile.exists()) {
-                stationFile.getParentFile().mkdirs();
-                stationFile.createNewFile();
-            }
-            this.groundStationManager.persist(new FileOutputStream(stationFile));
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Cannot save ground station manager: " + e.getMessage(), e);
-        }
+        // Written in background, changes are coalesced
+        this.groundStationPersister.markDirty();
     }
 
     @Override
@@ -17,10 +17,11 @@
 package eu.dariolucia.drorbiteex.model.collinearity;
 
 import eu.dariolucia.drorbiteex.fxml.PolarPlotPainter;
-import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleData;
+import eu.dariolucia.drorbiteex.model.orbit.CelestrakCatalogueCache;
 import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleOrbitModel;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.OrbitParameterConfiguration;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
 import eu.dariolucia.drorbiteex.model.station.GroundStation;
 import eu.dariolucia.drorbiteex.model.station.GroundStationParameterConfiguration;
 import eu.dariolucia.drorbiteex.model.station.VisibilityWindow;
@@ -57,16 +58,19 @@ public class SkyCoverageAnalyser {
         if(request.getCelestrakGroup() != null) {
             monitor.progress(-1, -1, "Fetching Celestrak data for group " + request.getCelestrakGroup());
             // Fetch all selected satellites in Celestrak
-            List<CelestrakTleData> active = CelestrakTleData.retrieveSpacecraftList(request.getCelestrakGroup());
-            if(active == null) {
-                throw new IOException("Cannot fetch Celestrak data for '" + request.getCelestrakGroup() + "'satellites");
+            TleCatalogue active;
+            try {
+                // Shared catalogue: TLEs are downloaded and parsed once, until the next Celestrak update
+                active = CelestrakCatalogueCache.getDefault().getCatalogue(request.getCelestrakGroup()).getTleCatalogue();
+            } catch (IOException e) {
+                throw new IOException("Cannot fetch Celestrak data for '" + request.getCelestrakGroup() + "'satellites", e);
             }
             if(monitor.isCancelled()) {
                 return null;
             }
-            targetOrbits = active
+            targetOrbits = active.getEntries()
                     .stream()
-                    .map(o -> new Orbit(UUID.randomUUID(), o.getName(), o.getName(), "#FF0000", true, new CelestrakTleOrbitModel(o.getGroup(), o.getName(), o.getTle())))
+                    .map(o -> new Orbit(UUID.randomUUID(), o.getName(), o.getName(), "#FF0000", true, new CelestrakTleOrbitModel(o.getGroup(), o.getName(), o.getTle(), o.getTleObject())))
                     .collect(Collectors.toList());
         } else {
             targetOrbits = request.getTargetOrbits().stream().map(Orbit::copy).peek(o -> o.setColor("#FF0000")).collect(Collectors.toList());
@@ -21,10 +21,12 @@ import eu.dariolucia.drorbiteex.model.util.TimeUtils;
 import org.hipparchus.linear.MatrixDecomposer;
 import org.hipparchus.linear.QRDecomposer;
 import org.hipparchus.optim.nonlinear.vector.leastsquares.GaussNewtonOptimizer;
+import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresProblem;
 import org.orekit.attitudes.NadirPointing;
 import org.orekit.estimation.leastsquares.BatchLSEstimator;
 import org.orekit.estimation.leastsquares.BatchLSObserver;
 import org.orekit.estimation.measurements.AbstractMeasurement;
+import org.orekit.estimation.measurements.EstimationsProvider;
 import org.orekit.estimation.measurements.EstimatedMeasurement;
 import org.orekit.estimation.measurements.ObservableSatellite;
 import org.orekit.estimation.measurements.ObservedMeasurement;
@@ -32,6 +34,7 @@ import org.orekit.frames.Frame;
 import org.orekit.frames.FramesFactory;
 import org.orekit.frames.ITRFVersion;
 import org.orekit.models.earth.ReferenceEllipsoid;
+import org.orekit.orbits.Orbit;
 import org.orekit.orbits.PositionAngle;
 import org.orekit.propagation.Propagator;
 import org.orekit.propagation.SpacecraftState;
@@ -41,6 +44,7 @@ import org.orekit.propagation.analytical.tle.TLEPropagator;
 import org.orekit.propagation.conversion.TLEPropagatorBuilder;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.utils.IERSConventions;
+import org.orekit.utils.ParameterDriversList;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -62,7 +66,9 @@ public class TleOrbitDetermination {
     public static final int ESTIMATOR_MAX_ITERATIONS = 25;
     public static final int ESTIMATOR_MAX_EVALUATIONS = 35;
     private BatchLSObserver observer;
+    private double rmsConvergenceThreshold = 0;
     private Frame orbitPropagatorFrame;
+    private TLEPropagatorBuilder propagatorBuilder;
     private BatchLSEstimator estimator;
     private final List<AbstractMeasurement<?>> measurements = new LinkedList<>();
     private ObservableSatellite observableSatellite;
@@ -103,15 +109,15 @@ public class TleOrbitDetermination {
         // ---------------------------------------------------
         // Setting up propagator
         // ---------------------------------------------------
-        TLEPropagatorBuilder propagatorBuilder = new TLEPropagatorBuilder(TLE.stateToTLE(initialState, startingTLE), PositionAngle.MEAN, ESTIMATOR_POSITION_SCALE);
-        propagatorBuilder.setAttitudeProvider(nadirPointing);
-        this.orbitPropagatorFrame = propagatorBuilder.getFrame();
+        this.propagatorBuilder = new TLEPropagatorBuilder(TLE.stateToTLE(initialState, startingTLE), PositionAngle.MEAN, ESTIMATOR_POSITION_SCALE);
+        this.propagatorBuilder.setAttitudeProvider(nadirPointing);
+        this.orbitPropagatorFrame = this.propagatorBuilder.getFrame();
         // ---------------------------------------------------
         // Setting up the estimator
         // ---------------------------------------------------
         MatrixDecomposer matrixDecomposer = new QRDecomposer(1e-11);
         GaussNewtonOptimizer optimizer = new GaussNewtonOptimizer(matrixDecomposer, false);
-        this.estimator = new BatchLSEstimator(optimizer, propagatorBuilder);
+        this.estimator = new BatchLSEstimator(optimizer, this.propagatorBuilder);
         this.estimator.setParametersConvergenceThreshold(ESTIMATOR_CONVERGENCE_THRES);
         this.estimator.setMaxIterations(ESTIMATOR_MAX_ITERATIONS);
         this.estimator.setMaxEvaluations(ESTIMATOR_MAX_EVALUATIONS);
@@ -134,13 +140,23 @@ public class TleOrbitDetermination {
         // ---------------------------------------------------
         // Adding the observers
         // ---------------------------------------------------
-        estimator.setObserver(this.observer);
+        if(this.rmsConvergenceThreshold > 0) {
+            estimator.setObserver(new RmsConvergenceObserver(this.observer, this.rmsConvergenceThreshold));
+        } else {
+            estimator.setObserver(this.observer);
+        }
         // ---------------------------------------------------
         // Starting the estimation
         // ---------------------------------------------------
-        Propagator[] propagators = estimator.estimate();
-        // Get the final data
-        TLEPropagator estimatedPropagator = (TLEPropagator) propagators[0]; // to return
+        TLEPropagator estimatedPropagator; // to return
+        try {
+            Propagator[] propagators = estimator.estimate();
+            // Get the final data
+            estimatedPropagator = (TLEPropagator) propagators[0];
+        } catch (RmsConvergedException e) {
+            // Early exit: the drivers of the propagator builder contain the values of the last evaluation
+            estimatedPropagator = (TLEPropagator) this.propagatorBuilder.buildPropagator(this.propagatorBuilder.getSelectedNormalizedParameters());
+        }
         // Generate TLE
         TLE fitted = estimatedPropagator.getTLE();
         // Residuals
@@ -176,6 +192,19 @@ public class TleOrbitDetermination {
         this.observer = observer;
     }
     
+    /**
+     * Set the threshold on the relative RMS improvement between two consecutive evaluations, below which the estimation
+     * is considered converged and stopped, even if the parameters convergence criterion is not met yet.
+     *
+     * @param rmsConvergenceThreshold the threshold, 0 or negative to disable the check
+     */
+    public void setRmsConvergenceThreshold(double rmsConvergenceThreshold) {
+        if(!initialised) {
+            throw new IllegalStateException("Not initialised");
+        }
+        this.rmsConvergenceThreshold = rmsConvergenceThreshold;
+    }
+
     public void addMeasurements(List<AbstractMeasurement<?>> measurements) {
         if(!initialised) {
             throw new IllegalStateException("Not initialised");
@@ -183,6 +212,35 @@ public class TleOrbitDetermination {
         this.measurements.addAll(measurements);
     }
 
+    private static class RmsConvergenceObserver implements BatchLSObserver {
+        private final BatchLSObserver delegate;
+        private final double threshold;
+        private double previousRms = Double.NaN;
+
+        public RmsConvergenceObserver(BatchLSObserver delegate, double threshold) {
+            this.delegate = delegate;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void evaluationPerformed(int iterationsCount, int evaluationsCount, Orbit[] orbits, ParameterDriversList estimatedOrbitalParameters, ParameterDriversList estimatedPropagatorParameters, ParameterDriversList estimatedMeasurementsParameters, EstimationsProvider evaluationsProvider, LeastSquaresProblem.Evaluation lspEvaluation) {
+            if(delegate != null) {
+                delegate.evaluationPerformed(iterationsCount, evaluationsCount, orbits, estimatedOrbitalParameters, estimatedPropagatorParameters, estimatedMeasurementsParameters, evaluationsProvider, lspEvaluation);
+            }
+            double rms = lspEvaluation.getRMS();
+            if(!Double.isNaN(previousRms) && Math.abs(previousRms - rms) <= threshold * previousRms) {
+                throw new RmsConvergedException();
+            }
+            previousRms = rms;
+        }
+    }
+
+    private static class RmsConvergedException extends RuntimeException {
+        public RmsConvergedException() {
+            super("RMS converged", null, false, false);
+        }
+    }
+
     public static class Result {
         private final TLE tle;
         private final TLEPropagator propagator;
@@ -41,7 +41,8 @@ import java.util.Date;
 
 public abstract class AbstractXmlPostProcessor implements IOemPostProcessor {
 
-    private XPath xPath = XPathFactory.newInstance().newXPath();
+    // XPath objects are not thread-safe, post-processors can be invoked concurrently by batch exports
+    private final ThreadLocal<XPath> xPath = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
 
     @Override
     public void postProcess(String filePath, OemGenerationRequest request, Date generationDate) {
@@ -71,7 +72,7 @@ public abstract class AbstractXmlPostProcessor implements IOemPostProcessor {
     }
 
     protected NodeList find(Document doc, String expression) throws XPathExpressionException {
-        return (NodeList) xPath.compile(expression).evaluate(doc, XPathConstants.NODESET);
+        return (NodeList) xPath.get().compile(expression).evaluate(doc, XPathConstants.NODESET);
     }
 
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.oem;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BatchOemExporterProcess {
+
+    private static final Logger LOG = Logger.getLogger(BatchOemExporterProcess.class.getName());
+
+    /**
+     * Generate one OEM file per orbit of the provided request, in the request folder and using the request name
+     * generator and post-processor. Files are generated in parallel, using at most request.getCores() threads.
+     *
+     * @param request the batch request
+     * @param monitor the progress monitor, reporting the aggregated progress of all generations (can be null)
+     * @return the list of generated files, in the same order of the request orbits, or null if cancelled
+     * @throws IOException in case of generation problems
+     */
+    public List<String> exportOem(BatchOemGenerationRequest request, ITaskProgressMonitor monitor) throws IOException {
+        if(monitor == null) {
+            monitor = ITaskProgressMonitor.DUMMY_MONITOR;
+        }
+        if(request.getFolder() == null) {
+            throw new IllegalArgumentException("No output folder");
+        }
+        if(monitor.isCancelled()) {
+            return null;
+        }
+        // Progress is computed on the total number of points plus one step per file
+        long pointsPerFile = OemExporterProcess.computeNumberOfPoints(request.getStartTime(), request.getEndTime(), request.getPeriodSeconds());
+        long totalProgress = (pointsPerFile + 1) * request.getOrbits().size();
+
+        // One orbit, one thread: use thread pool
+        int threadsToUse = Math.max(1, request.getCores());
+        ExecutorService service = Executors.newFixedThreadPool(threadsToUse, (r) -> {
+            Thread t = new Thread(r, "Batch OEM Exporter Task");
+            t.setDaemon(true);
+            return t;
+        });
+
+        AggregatedProgressMonitor aggregatedMonitor = new AggregatedProgressMonitor(monitor, totalProgress);
+        List<WorkerFutureTask> futures = new LinkedList<>();
+        for (Orbit o : request.getOrbits()) {
+            if (monitor.isCancelled()) {
+                service.shutdownNow();
+                return null;
+            }
+            WorkerFutureTask futureTask = new WorkerFutureTask(new Worker(request, o, aggregatedMonitor));
+            service.submit(futureTask);
+            futures.add(futureTask);
+        }
+
+        // Shutdown the executor
+        service.shutdown();
+        // Get the results of the futures
+        List<String> generatedFiles = new ArrayList<>(futures.size());
+        for(WorkerFutureTask f : futures) {
+            try {
+                String generatedFile = f.get();
+                if(monitor.isCancelled()) {
+                    service.shutdownNow();
+                    return null;
+                }
+                generatedFiles.add(generatedFile);
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "OEM export of '" + f.getDescription() + "' raised error: " + e.getMessage(), e);
+                service.shutdownNow();
+                throw new IOException(e);
+            }
+        }
+        return generatedFiles;
+    }
+
+    private static class Worker implements Callable<String> {
+        private final BatchOemGenerationRequest batchRequest;
+        private final Orbit orbit;
+        private final AggregatedProgressMonitor monitor;
+
+        public Worker(BatchOemGenerationRequest batchRequest, Orbit orbit, AggregatedProgressMonitor monitor) {
+            this.batchRequest = batchRequest;
+            this.orbit = orbit;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public String toString() {
+            return orbit.getName();
+        }
+
+        @Override
+        public String call() throws Exception {
+            // The propagator is built here, in the worker thread
+            OemGenerationRequest request = batchRequest.toOemGenerationRequest(orbit);
+            return new OemExporterProcess().exportOem(request, new ITaskProgressMonitor() {
+                private long lastProgress = 0;
+
+                @Override
+                public void progress(long current, long total, String message) {
+                    // Report only the increment with respect to the last progress of this generation
+                    if(current > lastProgress) {
+                        monitor.increment(current - lastProgress, request.getName() + " - " + message);
+                        lastProgress = current;
+                    }
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return monitor.isCancelled();
+                }
+            });
+        }
+    }
+
+    private static class WorkerFutureTask extends FutureTask<String> {
+
+        private final String description;
+
+        public WorkerFutureTask(Worker callable) {
+            super(callable);
+            this.description = callable.toString();
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static class AggregatedProgressMonitor {
+        private final ITaskProgressMonitor delegate;
+        private final long totalProgress;
+        private final AtomicLong progress = new AtomicLong(0);
+
+        public AggregatedProgressMonitor(ITaskProgressMonitor delegate, long totalProgress) {
+            this.delegate = delegate;
+            this.totalProgress = totalProgress;
+        }
+
+        public void increment(long delta, String message) {
+            long current = progress.addAndGet(delta);
+            synchronized (this) {
+                delegate.progress(current, totalProgress, message);
+            }
+        }
+
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+    }
+}
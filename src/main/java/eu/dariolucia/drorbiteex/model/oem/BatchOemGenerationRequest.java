@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.oem;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import org.orekit.files.ccsds.utils.FileFormat;
+import org.orekit.frames.Frame;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BatchOemGenerationRequest {
+    private final List<Orbit> orbits;
+    private final Date startTime;
+    private final Date endTime;
+    private final int periodSeconds;
+
+    private final Frame frame;
+
+    private final FileFormat format;
+
+    private final String folder;
+
+    private final String nameGenerator;
+
+    private final String postProcessor;
+
+    private final int cores;
+
+    private final int maxSegmentPoints;
+
+    public BatchOemGenerationRequest(List<Orbit> orbits, Date startTime, Date endTime, int periodSeconds, Frame frame, FileFormat format, String folder, String nameGenerator, String postProcessor, int cores) {
+        this(orbits, startTime, endTime, periodSeconds, frame, format, folder, nameGenerator, postProcessor, cores, 0);
+    }
+
+    public BatchOemGenerationRequest(List<Orbit> orbits, Date startTime, Date endTime, int periodSeconds, Frame frame, FileFormat format, String folder, String nameGenerator, String postProcessor, int cores, int maxSegmentPoints) {
+        // Snapshot of the orbits, taken by the caller: the propagators are built later in the generation threads
+        this.orbits = orbits.stream().map(Orbit::copy).collect(Collectors.toUnmodifiableList());
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.periodSeconds = periodSeconds;
+        this.frame = frame;
+        this.format = format;
+        this.folder = folder;
+        this.nameGenerator = nameGenerator;
+        this.postProcessor = postProcessor;
+        this.cores = cores;
+        this.maxSegmentPoints = maxSegmentPoints;
+    }
+
+    /**
+     * Derive the single-orbit request for the provided orbit. The propagator is built from the orbit snapshot: this
+     * method is meant to be called by the thread processing the generated request.
+     *
+     * @param orbit the orbit (one of the orbits of this request)
+     * @return the OEM generation request
+     */
+    public OemGenerationRequest toOemGenerationRequest(Orbit orbit) {
+        return new OemGenerationRequest(orbit.getModel().getPropagator(), orbit.getCode(), orbit.getName(),
+                startTime, endTime, periodSeconds, null, frame, format, folder, nameGenerator, postProcessor, maxSegmentPoints);
+    }
+
+    public List<Orbit> getOrbits() {
+        return orbits;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public int getPeriodSeconds() {
+        return periodSeconds;
+    }
+
+    public Frame getFrame() {
+        return frame;
+    }
+
+    public FileFormat getFormat() {
+        return format;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public String getNameGenerator() {
+        return nameGenerator;
+    }
+
+    public String getPostProcessor() {
+        return postProcessor;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public int getMaxSegmentPoints() {
+        return maxSegmentPoints;
+    }
+}
@@ -37,7 +37,7 @@ public class DefaultGenerator implements IOemNameGenerator {
     }
 
     @Override
-    public String generateFileName(OemGenerationRequest request, Date generationDate) {
+    public synchronized String generateFileName(OemGenerationRequest request, Date generationDate) {
         String suffix = request.getFormat() == FileFormat.XML ? "xml" : "txt";
         return request.getCode() + "_OEM_" + dateFormatter.format(generationDate) + "_" + dateFormatter.format(request.getStartTime()) + "_" + dateFormatter.format(request.getEndTime()) + "." + suffix;
     }
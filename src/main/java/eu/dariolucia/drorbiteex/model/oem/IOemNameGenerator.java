@@ -19,7 +19,8 @@ package eu.dariolucia.drorbiteex.model.oem;
 import java.util.Date;
 
 /**
- * Name generator implementation for CCSDS OEM files.
+ * Name generator implementation for CCSDS OEM files. Implementations must be thread-safe, as they can be invoked
+ * concurrently by batch exports.
  */
 public interface IOemNameGenerator {
     /**
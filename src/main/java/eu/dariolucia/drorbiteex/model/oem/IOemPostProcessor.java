@@ -20,6 +20,7 @@ import java.util.Date;
 
 /**
  * Post-processor for CCSDS OEM files. The postProcess() method will be invoked after the full generation of the OEM file.
+ * Implementations must be thread-safe, as they can be invoked concurrently by batch exports.
  */
 public interface IOemPostProcessor {
     /**
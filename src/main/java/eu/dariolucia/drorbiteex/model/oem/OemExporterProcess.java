@@ -16,80 +16,46 @@
 
 package eu.dariolucia.drorbiteex.model.oem;
 
-import eu.dariolucia.drorbiteex.model.orbit.IOrbitModel;
-import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
 import eu.dariolucia.drorbiteex.model.util.TimeUtils;
-import org.orekit.attitudes.Attitude;
 import org.orekit.bodies.CelestialBodyFactory;
 import org.orekit.files.ccsds.definitions.BodyFacade;
 import org.orekit.files.ccsds.definitions.FrameFacade;
 import org.orekit.files.ccsds.definitions.TimeSystem;
-import org.orekit.files.ccsds.ndm.WriterBuilder;
-import org.orekit.files.ccsds.ndm.odm.oem.EphemerisWriter;
 import org.orekit.files.ccsds.ndm.odm.oem.InterpolationMethod;
 import org.orekit.files.ccsds.ndm.odm.oem.OemMetadata;
 import org.orekit.files.ccsds.section.Header;
 import org.orekit.files.ccsds.utils.FileFormat;
-import org.orekit.files.general.OrekitEphemerisFile;
 import org.orekit.frames.Frame;
 import org.orekit.propagation.Propagator;
 import org.orekit.propagation.SpacecraftState;
 import org.orekit.time.AbsoluteDate;
-import org.orekit.time.TimeScales;
 import org.orekit.time.TimeScalesFactory;
-import org.orekit.utils.AbsolutePVCoordinates;
-import org.orekit.utils.TimeStampedPVCoordinates;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Date;
-import java.util.List;
 
 public class OemExporterProcess {
 
+    private static final int INTERPOLATION_DEGREE = 7;
+
     public String exportOem(OemGenerationRequest request, ITaskProgressMonitor monitor) throws IOException {
         Propagator p = request.getPropagator();
         if(p == null) {
             throw new IllegalArgumentException("No propagator");
         }
 
-        AbsoluteDate startDate = TimeUtils.toAbsoluteDate(request.getStartTime());
-        AbsoluteDate endDate = TimeUtils.toAbsoluteDate(request.getEndTime());
+        Frame frame = request.getFrame();
 
         // Check https://forum.orekit.org/t/spacececraftstate-in-wgs84/1813
 
-        // Propagate from startDate
-        List<SpacecraftState> states = new ArrayList<>();
-        SpacecraftState ss1 = p.propagate(startDate);
-        states.add(convert(ss1, request.getFrame()));
-
-        // Move propagation by steps of periodSeconds - compute progress
-        long totalProgress = 0;
-        {
-            AbsoluteDate currentDate = startDate;
-            while (currentDate.isBefore(endDate)) {
-                currentDate = currentDate.shiftedBy(request.getPeriodSeconds());
-                ++totalProgress;
-            }
-        }
-        totalProgress += 1; // for file generation
-        //
-        long progress = 0;
-        AbsoluteDate currentDate = startDate;
-        while(currentDate.isBefore(endDate)) {
-            currentDate = currentDate.shiftedBy(request.getPeriodSeconds());
-            SpacecraftState ss = p.propagate(currentDate);
-            states.add(convert(ss, request.getFrame()));
-            if(monitor != null && monitor.isCancelled()) {
-                return null;
-            }
-            if(monitor != null) {
-                monitor.progress(progress, totalProgress, "Date: " + TimeUtils.formatDate(currentDate.toDate(TimeScalesFactory.getUTC())));
-            }
-            ++progress;
-        }
+        long totalPoints = computeNumberOfPoints(request);
+        long totalProgress = totalPoints + 1; // for file generation
+        // Segment splitting
+        long pointsPerSegment = request.getMaxSegmentPoints() > 0 ? request.getMaxSegmentPoints() : totalPoints;
 
         if(monitor != null && monitor.isCancelled()) {
             return null;
@@ -106,39 +72,35 @@ public class OemExporterProcess {
             generatedFile = folder;
         }
 
-        // Write OEM
-        OrekitEphemerisFile ephemerisFile = new OrekitEphemerisFile();
-        OrekitEphemerisFile.OrekitSatelliteEphemeris satellite = ephemerisFile.addSatellite(request.getCode());
-        satellite.addNewSegment(states, 7);
-
-        OemMetadata template = new OemMetadata(7);
+        OemMetadata template = new OemMetadata(INTERPOLATION_DEGREE);
         template.setTimeSystem(TimeSystem.UTC);
         template.setObjectID(request.getCode());
         template.setObjectName(request.getName());
         template.setCenter(new BodyFacade("EARTH", CelestialBodyFactory.getCelestialBodies().getEarth()));
-        template.setReferenceFrame(FrameFacade.map(request.getFrame()));
+        template.setReferenceFrame(FrameFacade.map(frame));
         template.setInterpolationMethod(InterpolationMethod.LAGRANGE);
-        template.setInterpolationDegree(7);
-        template.setUseableStartTime(startDate);
-        template.setUseableStopTime(states.get(states.size() - 1).getDate());
+        template.setInterpolationDegree(INTERPOLATION_DEGREE);
 
         Header header = new Header(2);
         header.setOriginator("Dr Orbiteex");
         header.setCreationDate(TimeUtils.toAbsoluteDate(generationDate));
-        EphemerisWriter writer;
         if(request.getFormat() == FileFormat.XML) {
             header.setFormatVersion(2.0);
-            //
-            writer = new DrOrbiteexEphemerisWriter(new WriterBuilder().buildOemWriter(),
-                    header, template, request.getFormat(), "dummy", 60);
-        } else {
-            writer = new EphemerisWriter(new WriterBuilder().buildOemWriter(),
-                    header, template, request.getFormat(), "dummy", 60);
         }
-        if(monitor != null && monitor.isCancelled()) {
+
+        // Write OEM while propagating: only the current state is kept in memory
+        boolean completed = false;
+        try {
+            completed = writeOem(generatedFile, header, template, request, p, monitor, totalPoints, pointsPerSegment);
+        } finally {
+            if(!completed) {
+                // Cancelled or failed: remove the partially generated file
+                Files.deleteIfExists(Paths.get(generatedFile));
+            }
+        }
+        if(!completed) {
             return null;
         }
-        writer.write(generatedFile, ephemerisFile);
 
         // Post process
         if(request.getPostProcessor() != null) {
@@ -154,19 +116,52 @@ public class OemExporterProcess {
         return generatedFile;
     }
 
-    private SpacecraftState convert(SpacecraftState ss, Frame targetFrame) {
-        if(ss.getFrame().equals(targetFrame)) {
-            return ss;
-        } else {
-            // Spacecraft conversion implies:
-            // 1. Attitude conversion
-            // 2. Position conversion
-            TimeStampedPVCoordinates tsPV = ss.getPVCoordinates(targetFrame);
-            AbsolutePVCoordinates absolutePVCoordinates = new AbsolutePVCoordinates(targetFrame, tsPV);
-            //
-            Attitude newAttitude = ss.getAttitude().withReferenceFrame(targetFrame);
-            //
-            return new SpacecraftState(absolutePVCoordinates, newAttitude, ss.getMass());
+    private boolean writeOem(String generatedFile, Header header, OemMetadata template, OemGenerationRequest request, Propagator p, ITaskProgressMonitor monitor, long totalPoints, long pointsPerSegment) throws IOException {
+        AbsoluteDate startDate = TimeUtils.toAbsoluteDate(request.getStartTime());
+        Frame frame = request.getFrame();
+        int period = request.getPeriodSeconds();
+        long totalProgress = totalPoints + 1; // for file generation
+        try (OemStreamWriter writer = new OemStreamWriter(generatedFile, header, template, request.getFormat())) {
+            long progress = 0;
+            while (progress < totalPoints) {
+                // Start a new segment if needed
+                if (progress % pointsPerSegment == 0) {
+                    if (progress > 0) {
+                        writer.endSegment();
+                    }
+                    long lastSegmentPoint = Math.min(progress + pointsPerSegment, totalPoints) - 1;
+                    writer.startSegment(startDate.shiftedBy((double) progress * period), startDate.shiftedBy((double) lastSegmentPoint * period));
+                }
+                AbsoluteDate currentDate = startDate.shiftedBy((double) progress * period);
+                SpacecraftState ss = p.propagate(currentDate);
+                writer.write(ss.getPVCoordinates(frame));
+                if (monitor != null && monitor.isCancelled()) {
+                    return false;
+                }
+                if (monitor != null) {
+                    monitor.progress(progress, totalProgress, "Date: " + TimeUtils.formatDate(currentDate.toDate(TimeScalesFactory.getUTC())));
+                }
+                ++progress;
+            }
         }
+        return true;
+    }
+
+    /**
+     * Compute the number of OEM data lines generated by the provided request. Steps of periodSeconds are added until
+     * the end date is reached or passed, i.e. the last generated point is the first one not before the end date.
+     *
+     * @param request the request
+     * @return the number of OEM data lines
+     */
+    public static long computeNumberOfPoints(OemGenerationRequest request) {
+        return computeNumberOfPoints(request.getStartTime(), request.getEndTime(), request.getPeriodSeconds());
+    }
+
+    static long computeNumberOfPoints(Date startTime, Date endTime, int periodSeconds) {
+        long durationMs = endTime.getTime() - startTime.getTime();
+        long periodMs = periodSeconds * 1000L;
+        long totalSteps = durationMs <= 0 ? 0 : (durationMs + periodMs - 1) / periodMs;
+        return totalSteps + 1;
     }
 }
@@ -42,7 +42,17 @@ public class OemGenerationRequest {
 
     private final Propagator propagator;
 
+    private final int maxSegmentPoints;
+
     public OemGenerationRequest(Propagator propagator, String code, String name, Date startTime, Date endTime, int periodSeconds, String file, Frame frame, FileFormat format, String folder, String nameGenerator, String postProcessor) {
+        this(propagator, code, name, startTime, endTime, periodSeconds, file, frame, format, folder, nameGenerator, postProcessor, 0);
+    }
+
+    /**
+     * Constructor with OEM segment splitting: a new segment is started every maxSegmentPoints data lines. If
+     * maxSegmentPoints is 0 or negative, a single segment is generated.
+     */
+    public OemGenerationRequest(Propagator propagator, String code, String name, Date startTime, Date endTime, int periodSeconds, String file, Frame frame, FileFormat format, String folder, String nameGenerator, String postProcessor, int maxSegmentPoints) {
         this.propagator = propagator;
         this.code = code;
         this.name = name;
@@ -55,6 +65,7 @@ public class OemGenerationRequest {
         this.folder = folder;
         this.nameGenerator = nameGenerator;
         this.postProcessor = postProcessor;
+        this.maxSegmentPoints = maxSegmentPoints;
     }
 
     public Propagator getPropagator() {
@@ -104,4 +115,8 @@ public class OemGenerationRequest {
     public String getPostProcessor() {
         return postProcessor;
     }
+
+    public int getMaxSegmentPoints() {
+        return maxSegmentPoints;
+    }
 }
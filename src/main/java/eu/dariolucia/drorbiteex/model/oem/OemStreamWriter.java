@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.oem;
+
+import org.orekit.files.ccsds.ndm.WriterBuilder;
+import org.orekit.files.ccsds.ndm.odm.oem.OemMetadata;
+import org.orekit.files.ccsds.ndm.odm.oem.OemWriter;
+import org.orekit.files.ccsds.section.Header;
+import org.orekit.files.ccsds.utils.FileFormat;
+import org.orekit.files.ccsds.utils.generation.Generator;
+import org.orekit.files.ccsds.utils.generation.KvnGenerator;
+import org.orekit.files.ccsds.utils.generation.XmlGenerator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.TimeStampedPVCoordinates;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * CCSDS OEM writer that emits header, metadata and data lines as soon as they are provided, without keeping the
+ * ephemeris in memory. Segments are opened and closed explicitly: since the OEM metadata must contain the start and stop
+ * time of the segment, these must be known by the caller when the segment is started.
+ */
+public class OemStreamWriter implements AutoCloseable {
+
+    private static final int UNITS_COLUMN = 60;
+
+    private final OemWriter writer;
+    private final Header header;
+    private final OemMetadata template;
+    private final FileFormat format;
+    private final BufferedWriter output;
+    private final Generator generator;
+
+    private OemMetadata currentMetadata;
+
+    public OemStreamWriter(String filePath, Header header, OemMetadata template, FileFormat format) throws IOException {
+        this.writer = new WriterBuilder().buildOemWriter();
+        this.header = header;
+        this.template = template;
+        this.format = format;
+        this.output = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8);
+        if(format == FileFormat.KVN) {
+            this.generator = new KvnGenerator(this.output, OemWriter.KVN_PADDING_WIDTH, filePath, UNITS_COLUMN);
+        } else {
+            this.generator = new XmlGenerator(this.output, XmlGenerator.DEFAULT_INDENT, filePath, true);
+        }
+        // Write the header immediately
+        this.writer.writeHeader(this.generator, this.header);
+    }
+
+    public void startSegment(AbsoluteDate start, AbsoluteDate stop) throws IOException {
+        if(this.currentMetadata != null) {
+            throw new IllegalStateException("Segment already started");
+        }
+        OemMetadata metadata = this.template.copy(this.header == null ? this.writer.getDefaultVersion() : this.header.getFormatVersion());
+        metadata.setStartTime(start);
+        metadata.setStopTime(stop);
+        metadata.setUseableStartTime(start);
+        metadata.setUseableStopTime(stop);
+        if(this.format == FileFormat.XML) {
+            // Open the segment section, not written by the Orekit OEM writer in streaming mode
+            this.generator.writeRawData("   <segment>");
+        }
+        this.writer.writeMetadata(this.generator, metadata);
+        this.writer.startData(this.generator);
+        this.currentMetadata = metadata;
+    }
+
+    public void write(TimeStampedPVCoordinates coordinates) throws IOException {
+        if(this.currentMetadata == null) {
+            throw new IllegalStateException("Segment not started");
+        }
+        this.writer.writeOrbitEphemerisLine(this.generator, this.currentMetadata, coordinates, true);
+    }
+
+    public void endSegment() throws IOException {
+        if(this.currentMetadata == null) {
+            throw new IllegalStateException("Segment not started");
+        }
+        this.writer.endData(this.generator);
+        if(this.format == FileFormat.XML) {
+            // Close the segment section
+            this.generator.writeRawData("   </segment>\n");
+        }
+        this.currentMetadata = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if(this.currentMetadata != null) {
+                endSegment();
+            }
+            this.writer.writeFooter(this.generator);
+            this.generator.close();
+        } finally {
+            this.output.close();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.orbit;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of Celestrak TLE catalogues, one per group. A catalogue is downloaded only if the cached one is older than the
+ * configured time-to-live: in such case, the request is conditional (ETag and Last-Modified), so that an unchanged
+ * catalogue is not transferred again. If a cache folder is provided, catalogues are also stored on disk and survive
+ * application restarts. If the download fails, the cached catalogue (even if expired) is returned.
+ */
+public class CelestrakCatalogueCache {
+
+    private static final Logger LOG = Logger.getLogger(CelestrakCatalogueCache.class.getName());
+
+    public static final String DEFAULT_URL_TEMPLATE = "https://celestrak.org/NORAD/elements/gp.php?GROUP=<group>&FORMAT=tle";
+    // System property to override the URL template, e.g. to use a local mirror
+    public static final String URL_TEMPLATE_PROPERTY_KEY = "drorbiteex.celestrak.url";
+    // Celestrak data is updated every 2 hours
+    public static final long DEFAULT_TTL_MILLIS = 2 * 3600 * 1000L;
+
+    private static final int CONNECTION_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private static final String DATA_FILE_EXTENSION = ".tle";
+    private static final String METADATA_FILE_EXTENSION = ".properties";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+    private static final String FETCH_TIME_KEY = "fetch-time";
+
+    private static volatile CelestrakCatalogueCache defaultCache = new CelestrakCatalogueCache(null, getConfiguredUrlTemplate(), DEFAULT_TTL_MILLIS);
+
+    /**
+     * Return the URL template set by the {@link CelestrakCatalogueCache#URL_TEMPLATE_PROPERTY_KEY} system property, or
+     * {@link CelestrakCatalogueCache#DEFAULT_URL_TEMPLATE} if not set.
+     *
+     * @return the URL template to use
+     */
+    public static String getConfiguredUrlTemplate() {
+        String template = System.getProperty(URL_TEMPLATE_PROPERTY_KEY);
+        return template != null && !template.isBlank() ? template : DEFAULT_URL_TEMPLATE;
+    }
+
+    public static CelestrakCatalogueCache getDefault() {
+        return defaultCache;
+    }
+
+    public static void setDefault(CelestrakCatalogueCache cache) {
+        defaultCache = cache;
+    }
+
+    private final Path cacheFolder;
+    private final String urlTemplate;
+    private final long ttlMillis;
+
+    private final Map<String, Catalogue> catalogues = new ConcurrentHashMap<>();
+    private final Map<String, Object> groupLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new cache.
+     *
+     * @param cacheFolder the folder where catalogues are stored, null for in-memory cache only
+     * @param urlTemplate the URL to retrieve a group catalogue, where the group name is specified as &lt;group&gt;
+     * @param ttlMillis the time-to-live of a catalogue, in milliseconds
+     */
+    public CelestrakCatalogueCache(Path cacheFolder, String urlTemplate, long ttlMillis) {
+        this.cacheFolder = cacheFolder;
+        this.urlTemplate = urlTemplate;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Return the URL used to retrieve the catalogue of the provided group.
+     *
+     * @param group the Celestrak group
+     * @return the URL
+     */
+    public String getUrl(String group) {
+        return this.urlTemplate.replace("<group>", group);
+    }
+
+    /**
+     * Return the catalogue of the provided group, downloading it if the cached one is missing or expired.
+     *
+     * @param group the Celestrak group
+     * @return the catalogue
+     * @throws IOException if the catalogue is not cached and cannot be downloaded
+     */
+    public Catalogue getCatalogue(String group) throws IOException {
+        // One retrieval per group at a time: concurrent requests of the same group wait for the first one
+        synchronized (this.groupLocks.computeIfAbsent(group, g -> new Object())) {
+            Catalogue cached = this.catalogues.get(group);
+            if(cached == null) {
+                cached = loadFromDisk(group);
+                if(cached != null) {
+                    this.catalogues.put(group, cached);
+                }
+            }
+            if(cached != null && !cached.isExpired(this.ttlMillis)) {
+                return cached;
+            }
+            try {
+                Catalogue updated = download(group, cached);
+                this.catalogues.put(group, updated);
+                storeToDisk(updated);
+                return updated;
+            } catch (IOException e) {
+                if(cached != null) {
+                    LOG.log(Level.WARNING, "Cannot refresh Celestrak group " + group + ", using cached catalogue: " + e.getMessage(), e);
+                    return cached;
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard the cached catalogue of the provided group, so that the next request downloads it again.
+     *
+     * @param group the Celestrak group
+     */
+    public void invalidate(String group) {
+        synchronized (this.groupLocks.computeIfAbsent(group, g -> new Object())) {
+            this.catalogues.remove(group);
+            if(this.cacheFolder != null) {
+                try {
+                    Files.deleteIfExists(metadataFile(group));
+                } catch (IOException e) {
+                    LOG.log(Level.WARNING, "Cannot invalidate cached Celestrak group " + group + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private Catalogue download(String group, Catalogue cached) throws IOException {
+        URL url = new URL(getUrl(group));
+        URLConnection conn = url.openConnection();
+        conn.setConnectTimeout(CONNECTION_TIMEOUT_MILLIS);
+        conn.setReadTimeout(READ_TIMEOUT_MILLIS);
+        if(cached != null) {
+            // Conditional request
+            if(cached.getEtag() != null) {
+                conn.setRequestProperty("If-None-Match", cached.getEtag());
+            }
+            if(cached.getLastModified() != null) {
+                conn.setRequestProperty("If-Modified-Since", cached.getLastModified());
+            }
+        }
+        if(conn instanceof HttpURLConnection) {
+            HttpURLConnection httpConn = (HttpURLConnection) conn;
+            int code = httpConn.getResponseCode();
+            if(code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                LOG.log(Level.FINE, "Celestrak group " + group + " not modified");
+                return cached.revalidated(System.currentTimeMillis());
+            } else if(code != HttpURLConnection.HTTP_OK) {
+                httpConn.disconnect();
+                throw new IOException("Cannot retrieve Celestrak group " + group + ": HTTP " + code);
+            }
+        }
+        String content;
+        try (InputStream is = conn.getInputStream()) {
+            content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        LOG.log(Level.INFO, "Celestrak group " + group + " downloaded");
+        return new Catalogue(group, content, conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified"), System.currentTimeMillis());
+    }
+
+    private Catalogue loadFromDisk(String group) {
+        if(this.cacheFolder == null) {
+            return null;
+        }
+        Path metadataFile = metadataFile(group);
+        Path dataFile = dataFile(group);
+        if(!Files.exists(metadataFile) || !Files.exists(dataFile)) {
+            return null;
+        }
+        try {
+            Properties props = new Properties();
+            try (InputStream is = Files.newInputStream(metadataFile)) {
+                props.load(is);
+            }
+            String content = Files.readString(dataFile, StandardCharsets.UTF_8);
+            return new Catalogue(group, content, props.getProperty(ETAG_KEY), props.getProperty(LAST_MODIFIED_KEY),
+                    Long.parseLong(props.getProperty(FETCH_TIME_KEY, "0")));
+        } catch (IOException | NumberFormatException e) {
+            LOG.log(Level.WARNING, "Cannot load cached Celestrak group " + group + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void storeToDisk(Catalogue catalogue) {
+        if(this.cacheFolder == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(this.cacheFolder);
+            // Data first, then metadata: the metadata file validates the data file
+            writeAtomically(dataFile(catalogue.getGroup()), catalogue.getContent().getBytes(StandardCharsets.UTF_8));
+            Properties props = new Properties();
+            if(catalogue.getEtag() != null) {
+                props.setProperty(ETAG_KEY, catalogue.getEtag());
+            }
+            if(catalogue.getLastModified() != null) {
+                props.setProperty(LAST_MODIFIED_KEY, catalogue.getLastModified());
+            }
+            props.setProperty(FETCH_TIME_KEY, String.valueOf(catalogue.getFetchTime()));
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            props.store(bos, "Celestrak group " + catalogue.getGroup());
+            writeAtomically(metadataFile(catalogue.getGroup()), bos.toByteArray());
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Cannot store Celestrak group " + catalogue.getGroup() + " to cache: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] data) throws IOException {
+        Path tempFile = Files.createTempFile(this.cacheFolder, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, data);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Path dataFile(String group) {
+        return this.cacheFolder.resolve(toFileName(group) + DATA_FILE_EXTENSION);
+    }
+
+    private Path metadataFile(String group) {
+        return this.cacheFolder.resolve(toFileName(group) + METADATA_FILE_EXTENSION);
+    }
+
+    private static String toFileName(String group) {
+        return group.replaceAll("[^A-Za-z0-9_\\-]", "_");
+    }
+
+    /**
+     * Immutable TLE catalogue of a Celestrak group, indexed by satellite name and NORAD catalogue number.
+     */
+    public static class Catalogue {
+
+        private final String group;
+        private final String content;
+        private final String etag;
+        private final String lastModified;
+        private final long fetchTime;
+
+        private final List<CelestrakTleData> entries;
+        private final Map<String, CelestrakTleData> byName;
+        private final Map<Integer, CelestrakTleData> byNoradId;
+
+        private volatile TleCatalogue tleCatalogue;
+
+        private Catalogue(String group, String content, String etag, String lastModified, long fetchTime) throws IOException {
+            this(group, content, etag, lastModified, fetchTime, CelestrakTleData.parseData(group, new BufferedReader(new StringReader(content))), null);
+        }
+
+        private Catalogue(String group, String content, String etag, String lastModified, long fetchTime, List<CelestrakTleData> entries, TleCatalogue tleCatalogue) {
+            this.group = group;
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchTime = fetchTime;
+            this.entries = List.copyOf(entries);
+            this.tleCatalogue = tleCatalogue;
+            Map<String, CelestrakTleData> names = new HashMap<>();
+            Map<Integer, CelestrakTleData> ids = new HashMap<>();
+            for(CelestrakTleData d : this.entries) {
+                // In case of duplicates, the first entry wins
+                names.putIfAbsent(d.getName(), d);
+                int noradId = extractNoradId(d.getTle());
+                if(noradId >= 0) {
+                    ids.putIfAbsent(noradId, d);
+                }
+            }
+            this.byName = Collections.unmodifiableMap(names);
+            this.byNoradId = Collections.unmodifiableMap(ids);
+        }
+
+        private Catalogue revalidated(long newFetchTime) {
+            return new Catalogue(group, content, etag, lastModified, newFetchTime, entries, tleCatalogue);
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - fetchTime > ttlMillis;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        String getContent() {
+            return content;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getFetchTime() {
+            return fetchTime;
+        }
+
+        /**
+         * Return the entries of the catalogue. The returned objects are shared: use {@link CelestrakTleData#copy()}
+         * to obtain objects, whose selection state can be changed.
+         *
+         * @return the (unmodifiable) list of entries
+         */
+        public List<CelestrakTleData> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Return the catalogue with validated and parsed TLEs. Parsing is done on first request and the result is kept
+         * as long as the catalogue content does not change.
+         *
+         * @return the parsed catalogue
+         */
+        public TleCatalogue getTleCatalogue() {
+            TleCatalogue result = this.tleCatalogue;
+            if(result == null) {
+                synchronized (this) {
+                    result = this.tleCatalogue;
+                    if(result == null) {
+                        result = TleCatalogue.parse(group, content);
+                        this.tleCatalogue = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        public CelestrakTleData getByName(String name) {
+            return byName.get(name);
+        }
+
+        public CelestrakTleData getByNoradId(int noradId) {
+            return byNoradId.get(noradId);
+        }
+
+        private static int extractNoradId(String tle) {
+            // Columns 3-7 of the first TLE line
+            try {
+                return Integer.parseInt(tle.substring(2, 7).trim());
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+    }
+}
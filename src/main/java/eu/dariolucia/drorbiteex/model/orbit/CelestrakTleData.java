@@ -22,15 +22,14 @@ import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class CelestrakTleData {
 
-    private static final String CELESTRAK_PATH = "https://celestrak.org/NORAD/elements/gp.php?GROUP=<group>&FORMAT=tle";
+    private static final Logger LOG = Logger.getLogger(CelestrakTleData.class.getName());
 
     public static final String[] CELESTRAK_GROUPS = new String[] {"last-30-days", "weather", "dmc", "sarsar", "noaa", "resource", "gps-ops", "galileo", "geo", "cubesat", "active"};
 
@@ -61,6 +60,15 @@ public class CelestrakTleData {
         return this.selectedProperty;
     }
 
+    /**
+     * Return a copy of this object, with an independent selection state.
+     *
+     * @return the copy
+     */
+    public CelestrakTleData copy() {
+        return new CelestrakTleData(name, group, tle);
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -68,19 +76,25 @@ public class CelestrakTleData {
 
     public static List<CelestrakTleData> retrieveSpacecraftList(String group) {
         try {
-            URL url = new URL(CELESTRAK_PATH.replace("<group>", group));
-            URLConnection conn = url.openConnection();
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            List<CelestrakTleData> list = extractData(group, br);
-            br.close();
+            CelestrakCatalogueCache.Catalogue catalogue = CelestrakCatalogueCache.getDefault().getCatalogue(group);
+            // Callers can change the selection state, so return copies of the cached entries
+            List<CelestrakTleData> list = new LinkedList<>();
+            for(CelestrakTleData d : catalogue.getEntries()) {
+                list.add(d.copy());
+            }
             return list;
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.log(Level.WARNING, "Cannot retrieve Celestrak group " + group + " (" + getSource(group) + "): " + e.getMessage(), e);
             return null;
         }
     }
 
-    private static List<CelestrakTleData> extractData(String group, BufferedReader br) throws IOException {
+    private static String getSource(String group) {
+        CelestrakCatalogueCache cache = CelestrakCatalogueCache.getDefault();
+        return cache != null ? cache.getUrl(group) : "cache not configured";
+    }
+
+    static List<CelestrakTleData> parseData(String group, BufferedReader br) throws IOException {
         List<CelestrakTleData> list = new LinkedList<>();
         String read;
         String satelliteId = null;
@@ -113,7 +127,7 @@ public class CelestrakTleData {
     public static List<CelestrakTleData> processCelestrakFile(String group, String file) {
         try {
             BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-            List<CelestrakTleData> list = extractData(group, br);
+            List<CelestrakTleData> list = parseData(group, br);
             br.close();
             return list;
         } catch (Exception e) {
@@ -123,10 +137,11 @@ public class CelestrakTleData {
     }
 
     public static String retrieveUpdatedTle(String group, String name) {
-        List<CelestrakTleData> sats = retrieveSpacecraftList(group);
-        if(sats != null) {
-            return sats.stream().filter(o -> o.getName().equals(name)).map(CelestrakTleData::getTle).findFirst().orElse(null);
-        } else {
+        try {
+            CelestrakTleData data = CelestrakCatalogueCache.getDefault().getCatalogue(group).getByName(name);
+            return data != null ? data.getTle() : null;
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Cannot retrieve updated TLE of " + name + " from Celestrak group " + group + " (" + getSource(group) + "): " + e.getMessage(), e);
             return null;
         }
     }
@@ -16,6 +16,8 @@
 
 package eu.dariolucia.drorbiteex.model.orbit;
 
+import org.orekit.propagation.analytical.tle.TLE;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -37,6 +39,12 @@ public class CelestrakTleOrbitModel extends TleOrbitModel {
         this.celestrakName = celestrakName;
     }
 
+    public CelestrakTleOrbitModel(String group, String celestrakName, String tle, TLE tleObject) {
+        super(tle, tleObject);
+        this.group = group;
+        this.celestrakName = celestrakName;
+    }
+
     @XmlAttribute
     public synchronized String getGroup() {
         return group;
@@ -68,7 +76,7 @@ public class CelestrakTleOrbitModel extends TleOrbitModel {
     }
 
     @Override
-    public IOrbitModel copy() {
-        return new CelestrakTleOrbitModel(getGroup(), getCelestrakName(), getTle());
+    public synchronized IOrbitModel copy() {
+        return copyPreparedDataTo(new CelestrakTleOrbitModel(getGroup(), getCelestrakName(), getTle(), getTleObject()));
     }
 }
@@ -29,6 +29,14 @@ public interface IOrbitListener {
 
     void spacecraftPositionUpdated(Orbit orbit, SpacecraftPosition currentPosition);
 
+    /**
+     * Called when the definition of the orbit (code, name, color, visibility or propagation model) changes, after the
+     * related model data update. Not called when the model data is only recomputed.
+     */
+    default void orbitDefinitionUpdated(Orbit orbit) {
+        // Do nothing
+    }
+
     default void startOrbitTimeUpdate(Date referenceTime, boolean isForced) {
         // Do nothing
     }
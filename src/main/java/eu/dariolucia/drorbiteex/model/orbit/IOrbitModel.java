@@ -30,4 +30,12 @@ public interface IOrbitModel {
 
     IOrbitModel copy();
 
+    /**
+     * Compute the data derived from the model definition, which is otherwise computed on first use. It can be called
+     * in a background thread to reduce the latency of the first use.
+     */
+    default void prepare() {
+        // Nothing to do by default
+    }
+
 }
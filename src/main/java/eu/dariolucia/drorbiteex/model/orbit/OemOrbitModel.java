@@ -33,13 +33,23 @@ import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @XmlAccessorType(XmlAccessType.PROPERTY)
 public class OemOrbitModel implements IOrbitModel {
 
+    private static final Logger LOG = Logger.getLogger(OemOrbitModel.class.getName());
+
+    // The OEM payload is loaded from the OemStore on first use, if only the reference is known. If the configuration
+    // contains also the inline payload, this is used and the reference is not resolved.
     private String oem;
+    // Key of the OEM payload in the OemStore, null if not externalised
+    private String oemReference;
+    // Parsed on first use
     private Oem oemObject;
     private BoundedPropagator oemPropagator;
 
@@ -55,30 +65,107 @@ public class OemOrbitModel implements IOrbitModel {
         initialiseOem();
     }
 
+    private OemOrbitModel(OemOrbitModel model) {
+        // Share the payload, but not the parsed objects: parsing is performed by the copy on first use
+        synchronized (model) {
+            this.oem = model.oem;
+            this.oemReference = model.oemReference;
+        }
+    }
+
     private void initialiseOem() {
         OemParser parser = new ParserBuilder().buildOemParser();
-        this.oemObject = parser.parse(new DataSource("oem", () -> new ByteArrayInputStream(oem.getBytes(StandardCharsets.UTF_8))));
+        String oemText = getOem();
+        this.oemObject = parser.parse(new DataSource("oem", () -> new ByteArrayInputStream(oemText.getBytes(StandardCharsets.UTF_8))));
         // Well... next call can deserve surprises, perhaps it would be better to handle it differently
         this.oemPropagator = this.oemObject.getSatellites().values().iterator().next().getPropagator();
     }
 
-    @XmlElement
-    @XmlJavaTypeAdapter(Base64Adapter.class)
+    private void ensureOemParsed() {
+        if(this.oemObject == null) {
+            initialiseOem();
+        }
+    }
+
+    @XmlTransient
     public synchronized String getOem() {
+        if(this.oem == null && this.oemReference != null) {
+            OemStore store = OemStore.getDefault();
+            if(store == null) {
+                throw new IllegalStateException("OEM " + this.oemReference + " cannot be loaded: OEM store not configured");
+            }
+            try {
+                this.oem = store.load(this.oemReference);
+            } catch (IOException e) {
+                throw new IllegalStateException("OEM " + this.oemReference + " cannot be loaded: " + e.getMessage(), e);
+            }
+        }
         return oem;
     }
 
-    private void setOem(String oem) {
+    @XmlElement(name = "oem")
+    @XmlJavaTypeAdapter(Base64Adapter.class)
+    private synchronized String getInlineOem() {
+        // The payload is inline only if it cannot be externalised
+        return getOemReference() == null ? getOem() : null;
+    }
+
+    private synchronized void setInlineOem(String oem) {
         if(oem == null || oem.isBlank()) {
             throw new IllegalArgumentException("oem argument invalid: " + oem);
         }
         if(!oem.equals(this.oem)) {
+            // An already set reference is kept: the inline payload is used as fallback, if the reference cannot be
+            // resolved
             this.oem = oem;
-            initialiseOem();
+            resetOem();
         }
     }
 
-    public Date getStart() {
+    @XmlElement(name = "oem-ref")
+    public synchronized String getOemReference() {
+        return oemReference;
+    }
+
+    private synchronized void setOemReference(String oemReference) {
+        if(oemReference != null && !oemReference.equals(this.oemReference)) {
+            this.oemReference = oemReference;
+            resetOem();
+        }
+    }
+
+    /**
+     * Store the OEM payload into the provided store, so that the configuration holds only the reference. If the
+     * payload cannot be stored, it is kept inline. To be called before persisting the model.
+     *
+     * @param store the store, if null the call has no effect
+     */
+    public synchronized void externalise(OemStore store) {
+        if(store == null || this.oem == null) {
+            return;
+        }
+        if(this.oemReference == null || !store.contains(this.oemReference)) {
+            try {
+                this.oemReference = store.store(this.oem);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Cannot store OEM into " + store.getFolder() + ", keeping it inline: " + e.getMessage(), e);
+                this.oemReference = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void prepare() {
+        ensureOemParsed();
+    }
+
+    private void resetOem() {
+        this.oemObject = null;
+        this.oemPropagator = null;
+    }
+
+    public synchronized Date getStart() {
+        ensureOemParsed();
         if(this.oemObject != null && !this.oemObject.getSegments().isEmpty()) {
             return this.oemObject.getSegments().get(0).getStart().toDate(TimeScalesFactory.getUTC());
         } else {
@@ -86,7 +173,8 @@ public class OemOrbitModel implements IOrbitModel {
         }
     }
 
-    public Date getEnd() {
+    public synchronized Date getEnd() {
+        ensureOemParsed();
         if(this.oemObject != null && !this.oemObject.getSegments().isEmpty()) {
             return this.oemObject.getSegments().get(0).getStop().toDate(TimeScalesFactory.getUTC());
         } else {
@@ -96,6 +184,7 @@ public class OemOrbitModel implements IOrbitModel {
 
     @Override
     public synchronized Propagator getPropagator() {
+        ensureOemParsed();
         if(this.oemPropagator == null) {
             throw new IllegalStateException("oemPropagator cannot be null at this point");
         }
@@ -106,9 +195,11 @@ public class OemOrbitModel implements IOrbitModel {
     public synchronized boolean updateModel(IOrbitModel model) {
         if(model instanceof OemOrbitModel) {
             OemOrbitModel iModel = (OemOrbitModel) model;
-            if(!iModel.getOem().equals(this.oem)) {
-                this.oem = iModel.getOem();
-                initialiseOem();
+            String newOem = iModel.getOem();
+            if(!newOem.equals(getOem())) {
+                this.oem = newOem;
+                this.oemReference = null;
+                resetOem();
                 return true;
             } else {
                 return false;
@@ -120,6 +211,7 @@ public class OemOrbitModel implements IOrbitModel {
 
     @Override
     public synchronized int computeOrbitNumberAt(Date time) {
+        ensureOemParsed();
         if(this.oemObject != null) {
             // Get the reference orbit
             Orbit o = this.oemPropagator.getInitialState().getOrbit();
@@ -141,7 +233,7 @@ public class OemOrbitModel implements IOrbitModel {
 
     @Override
     public IOrbitModel copy() {
-        return new OemOrbitModel(getOem());
+        return new OemOrbitModel(this);
     }
 
     public static class Base64Adapter extends XmlAdapter<byte[], String> {
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.orbit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of OEM payloads. Each payload is stored GZIP-compressed in a separate file, named after the
+ * SHA-256 hash of its content. Identical payloads are stored once and stored files are never modified.
+ */
+public class OemStore {
+
+    private static final String FILE_EXTENSION = ".oem.gz";
+
+    private static volatile OemStore defaultStore = null;
+
+    /**
+     * Return the store used by {@link OemOrbitModel} objects to externalise their OEM payloads.
+     *
+     * @return the default store, or null if payloads are kept inline
+     */
+    public static OemStore getDefault() {
+        return defaultStore;
+    }
+
+    public static void setDefault(OemStore store) {
+        defaultStore = store;
+    }
+
+    private final Path folder;
+
+    public OemStore(Path folder) {
+        this.folder = folder;
+    }
+
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * Store the provided OEM, if not already stored.
+     *
+     * @param oem the OEM payload
+     * @return the key of the stored payload
+     * @throws IOException in case of I/O problems
+     */
+    public String store(String oem) throws IOException {
+        String key = computeKey(oem);
+        Path target = resolve(key);
+        if(Files.exists(target)) {
+            return key;
+        }
+        Files.createDirectories(this.folder);
+        // Write to a temporary file first, so that a stored file is always complete
+        Path tempFile = Files.createTempFile(this.folder, key, ".tmp");
+        try {
+            try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
+                os.write(oem.getBytes(StandardCharsets.UTF_8));
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // Concurrently stored by someone else: same key, same content
+                if(!Files.exists(target)) {
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return key;
+    }
+
+    /**
+     * Load the OEM payload with the provided key.
+     *
+     * @param key the key of the payload
+     * @return the OEM payload
+     * @throws IOException if the payload is not available or cannot be read
+     */
+    public String load(String key) throws IOException {
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(resolve(key)))) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public boolean contains(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    /**
+     * Delete the stored payloads whose key is not in the provided set.
+     *
+     * @param keys the keys of the payloads to keep
+     * @return the number of deleted payloads
+     * @throws IOException in case of I/O problems
+     */
+    public int retainOnly(Set<String> keys) throws IOException {
+        if(!Files.isDirectory(this.folder)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(this.folder)) {
+            for(Path p : (Iterable<Path>) files::iterator) {
+                String fileName = p.getFileName().toString();
+                if(fileName.endsWith(FILE_EXTENSION) && !keys.contains(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()))) {
+                    Files.deleteIfExists(p);
+                    ++deleted;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private Path resolve(String key) {
+        // Avoid path traversal through manipulated keys
+        if(!key.matches("[0-9a-f]+")) {
+            throw new IllegalArgumentException("Invalid OEM key: " + key);
+        }
+        return this.folder.resolve(key + FILE_EXTENSION);
+    }
+
+    public static String computeKey(String oem) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(oem.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for(byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory in every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
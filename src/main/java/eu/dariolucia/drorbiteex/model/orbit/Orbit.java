@@ -87,6 +87,7 @@ public class Orbit implements Comparable<Orbit> {
     public synchronized void setCode(String code) {
         this.code = code;
         notifyDataUpdate();
+        notifyDefinitionUpdate();
     }
 
     @XmlAttribute(required = true)
@@ -97,6 +98,7 @@ public class Orbit implements Comparable<Orbit> {
     public synchronized void setName(String name) {
         this.name = name;
         notifyDataUpdate();
+        notifyDefinitionUpdate();
     }
 
     @XmlAttribute
@@ -107,6 +109,7 @@ public class Orbit implements Comparable<Orbit> {
     public synchronized void setColor(String color) {
         this.color = color;
         notifyDataUpdate();
+        notifyDefinitionUpdate();
     }
 
     @XmlAttribute
@@ -117,6 +120,7 @@ public class Orbit implements Comparable<Orbit> {
     public synchronized void setVisible(boolean visible) {
         this.visible = visible;
         notifyDataUpdate();
+        notifyDefinitionUpdate();
     }
 
     @XmlElements({
@@ -153,7 +157,7 @@ public class Orbit implements Comparable<Orbit> {
         return Objects.hash(id);
     }
 
-    public final void update(Orbit gs) {
+    public final synchronized void update(Orbit gs) {
         this.code = gs.getCode();
         this.name = gs.getName();
         this.color = gs.getColor();
@@ -165,6 +169,7 @@ public class Orbit implements Comparable<Orbit> {
         } else {
             notifyDataUpdate();
         }
+        notifyDefinitionUpdate();
     }
 
     /**
@@ -250,6 +255,16 @@ public class Orbit implements Comparable<Orbit> {
         this.listeners.removeIf(o -> o.get() == null);
     }
 
+    private void notifyDefinitionUpdate() {
+        // Notify listeners
+        this.listeners.forEach(o -> {
+            IOrbitListener l = o.get();
+            if(l != null) {
+                l.orbitDefinitionUpdated(this);
+            }
+        });
+    }
+
     private void notifySpacecraftPositionUpdate() {
         // Notify listeners
         this.listeners.forEach(o -> {
@@ -290,6 +305,18 @@ public class Orbit implements Comparable<Orbit> {
         return this.currentSpacecraftPosition.getSpacecraftState();
     }
 
+    /**
+     * Set the current spacecraft position, computed elsewhere (e.g. from precomputed ephemerides), and notify the
+     * listeners. The orbit data is not recomputed.
+     *
+     * @param position the new position of the spacecraft
+     */
+    public synchronized void updateOrbitPosition(SpacecraftPosition position) {
+        this.currentPositionTime = position.getTime();
+        this.currentSpacecraftPosition = position;
+        notifySpacecraftPositionUpdate();
+    }
+
     public synchronized void refresh() {
         recomputeData(this.currentPositionTime);
     }
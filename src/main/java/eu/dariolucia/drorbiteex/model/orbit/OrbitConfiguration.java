@@ -16,43 +16,66 @@
 
 package eu.dariolucia.drorbiteex.model.orbit;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
+import eu.dariolucia.drorbiteex.model.util.StreamingXmlConfiguration;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-@XmlRootElement(name = "orbit-config", namespace = "http://dariolucia.eu/drorbiteex/orbit")
+@XmlRootElement(name = "orbit-config", namespace = OrbitConfiguration.NAMESPACE)
 @XmlAccessorType(XmlAccessType.PROPERTY)
 public class OrbitConfiguration {
 
+    public static final String NAMESPACE = "http://dariolucia.eu/drorbiteex/orbit";
+
+    // JAXB is used for the single elements only: the file is read and written as a stream
+    private static final StreamingXmlConfiguration<OrbitParameterConfiguration, Orbit> STREAMING = new StreamingXmlConfiguration<>(
+            new QName(NAMESPACE, "orbit-config"), "configuration", OrbitParameterConfiguration.class,
+            "orbit", Orbit.class, "id", o -> o.getId().toString());
+
     public static OrbitConfiguration load(InputStream is) throws IOException {
-        try {
-            JAXBContext jc = JAXBContext.newInstance(OrbitConfiguration.class);
-            Unmarshaller u = jc.createUnmarshaller();
-            return (OrbitConfiguration) u.unmarshal(is);
-        } catch (JAXBException e) {
-            throw new IOException(e);
-        }
+        OrbitConfiguration c = new OrbitConfiguration();
+        load(is, c::setConfiguration, c.getOrbits()::add);
+        return c;
+    }
+
+    /**
+     * Read the configuration file, providing each element as soon as it is read.
+     *
+     * @param is the input stream
+     * @param configurationConsumer the consumer of the configuration element
+     * @param orbitConsumer the consumer of the orbit elements
+     * @throws IOException in case of I/O or format problems
+     */
+    public static void load(InputStream is, Consumer<OrbitParameterConfiguration> configurationConsumer, Consumer<Orbit> orbitConsumer) throws IOException {
+        STREAMING.load(is, configurationConsumer, orbitConsumer);
     }
 
     public static void save(OrbitConfiguration d, OutputStream out) throws IOException {
-        try {
-            JAXBContext context = JAXBContext.newInstance(OrbitConfiguration.class);
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            marshaller.marshal(d, out);
-        } catch (JAXBException e) {
-            throw new IOException(e);
-        }
+        STREAMING.save(out, d.getConfiguration(), d.getOrbits());
+    }
+
+    /**
+     * Copy the current configuration file, replacing or appending the updated orbits and skipping the removed ones.
+     * Unchanged elements are copied without being unmarshalled.
+     *
+     * @param current the input stream of the current configuration file
+     * @param out the output stream of the new configuration file
+     * @param configuration the new configuration element, null to keep the current one
+     * @param updated the orbits to replace or append
+     * @param removed the IDs of the orbits to remove
+     * @throws IOException in case of I/O or format problems
+     */
+    public static void update(InputStream current, OutputStream out, OrbitParameterConfiguration configuration, Collection<Orbit> updated, Set<UUID> removed) throws IOException {
+        STREAMING.copyWithChanges(current, out, configuration, updated, removed.stream().map(UUID::toString).collect(Collectors.toSet()));
     }
 
     private List<Orbit> orbits = new LinkedList<>();
@@ -33,6 +33,8 @@ import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -57,6 +59,31 @@ public class OrbitManager {
         for(Orbit orbit : oc.getOrbits()) {
             registerOrbit(orbit);
         }
+        // Expensive derived data (e.g. node crossing, OEM parsing) is computed on first use: anticipate it in background
+        prepareModels(oc.getOrbits());
+    }
+
+    private void prepareModels(List<Orbit> orbitsToPrepare) {
+        if(orbitsToPrepare.isEmpty()) {
+            return;
+        }
+        ExecutorService service = Executors.newFixedThreadPool(Math.min(orbitsToPrepare.size(), Runtime.getRuntime().availableProcessors()), (r) -> {
+            Thread t = new Thread(r, "Orbit Model Preparation Task");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        for(Orbit orbit : orbitsToPrepare) {
+            service.submit(() -> {
+                try {
+                    orbit.getModel().prepare();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Cannot prepare orbit model for " + orbit.getName() + ": " + e.getMessage(), e);
+                }
+            });
+        }
+        // Threads terminate when all models are prepared
+        service.shutdown();
     }
 
     public void persist(OutputStream outputStream) throws IOException {
@@ -26,6 +26,10 @@ public class OrbitParameterConfiguration {
     private int afterPropagationSteps = 150;
     private int stepInterval = 120; // Seconds
     private int recomputeFullDataInterval = 600; // Seconds
+    // Background refresh of the Celestrak orbits, disabled by default
+    private boolean celestrakMonitorEnabled = false;
+    private int celestrakCheckInterval = 1800; // Seconds
+    private int celestrakMaxEpochAge = 43200; // Seconds
 
     public OrbitParameterConfiguration() {
     }
@@ -37,11 +41,22 @@ public class OrbitParameterConfiguration {
         this.recomputeFullDataInterval = recomputeFullDataInterval;
     }
 
+    public OrbitParameterConfiguration(int beforePropagationSteps, int afterPropagationSteps, int stepInterval, int recomputeFullDataInterval,
+                                       boolean celestrakMonitorEnabled, int celestrakCheckInterval, int celestrakMaxEpochAge) {
+        this(beforePropagationSteps, afterPropagationSteps, stepInterval, recomputeFullDataInterval);
+        this.celestrakMonitorEnabled = celestrakMonitorEnabled;
+        this.celestrakCheckInterval = celestrakCheckInterval;
+        this.celestrakMaxEpochAge = celestrakMaxEpochAge;
+    }
+
     public void update(OrbitParameterConfiguration p) {
         this.beforePropagationSteps = p.beforePropagationSteps;
         this.afterPropagationSteps = p.afterPropagationSteps;
         this.stepInterval = p.stepInterval;
         this.recomputeFullDataInterval = p.recomputeFullDataInterval;
+        this.celestrakMonitorEnabled = p.celestrakMonitorEnabled;
+        this.celestrakCheckInterval = p.celestrakCheckInterval;
+        this.celestrakMaxEpochAge = p.celestrakMaxEpochAge;
     }
 
     public int getBeforePropagationSteps() {
@@ -76,6 +91,30 @@ public class OrbitParameterConfiguration {
         this.recomputeFullDataInterval = recomputeFullDataInterval;
     }
 
+    public boolean isCelestrakMonitorEnabled() {
+        return celestrakMonitorEnabled;
+    }
+
+    public void setCelestrakMonitorEnabled(boolean celestrakMonitorEnabled) {
+        this.celestrakMonitorEnabled = celestrakMonitorEnabled;
+    }
+
+    public int getCelestrakCheckInterval() {
+        return celestrakCheckInterval;
+    }
+
+    public void setCelestrakCheckInterval(int celestrakCheckInterval) {
+        this.celestrakCheckInterval = celestrakCheckInterval;
+    }
+
+    public int getCelestrakMaxEpochAge() {
+        return celestrakMaxEpochAge;
+    }
+
+    public void setCelestrakMaxEpochAge(int celestrakMaxEpochAge) {
+        this.celestrakMaxEpochAge = celestrakMaxEpochAge;
+    }
+
     @Override
     public String toString() {
         return "OrbitParameterConfiguration{" +
@@ -83,10 +122,14 @@ public class OrbitParameterConfiguration {
                 ", afterPropagationSteps=" + afterPropagationSteps +
                 ", stepInterval=" + stepInterval +
                 ", recomputeFullDataInterval=" + recomputeFullDataInterval +
+                ", celestrakMonitorEnabled=" + celestrakMonitorEnabled +
+                ", celestrakCheckInterval=" + celestrakCheckInterval +
+                ", celestrakMaxEpochAge=" + celestrakMaxEpochAge +
                 '}';
     }
 
     public OrbitParameterConfiguration copy() {
-        return new OrbitParameterConfiguration(this.beforePropagationSteps, this.afterPropagationSteps, this.stepInterval, this.recomputeFullDataInterval);
+        return new OrbitParameterConfiguration(this.beforePropagationSteps, this.afterPropagationSteps, this.stepInterval, this.recomputeFullDataInterval,
+                this.celestrakMonitorEnabled, this.celestrakCheckInterval, this.celestrakMaxEpochAge);
     }
 }
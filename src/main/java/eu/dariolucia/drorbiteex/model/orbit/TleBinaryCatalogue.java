@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.orbit;
+
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Read-only TLE catalogue in binary format, accessed through a memory-mapped file: the mapped pages are shared by all
+ * the processes opening the same file, and entries are decoded only when requested. The file contains:
+ * <ul>
+ *     <li>a fixed-size header, with magic, version, number of records and offsets of the sections;</li>
+ *     <li>the records, one per TLE, of fixed size: NORAD ID, name reference and parsed mean elements;</li>
+ *     <li>the name table, containing the UTF-8 names referenced by the records;</li>
+ *     <li>the index, i.e. pairs (NORAD ID, record number) sorted by NORAD ID.</li>
+ * </ul>
+ * All values are big-endian. Epochs are stored as seconds from {@link AbsoluteDate#J2000_EPOCH}. Instances are
+ * thread-safe.
+ */
+public class TleBinaryCatalogue {
+
+    public static final String FILE_EXTENSION = ".tlebin";
+
+    private static final byte[] MAGIC = "DRORBTLE".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 120;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int LAUNCH_PIECE_SIZE = 4;
+
+    // Record layout
+    private static final int NORAD_ID_OFFSET = 0;
+    private static final int NAME_OFFSET_OFFSET = 4;
+    private static final int NAME_LENGTH_OFFSET = 8;
+    private static final int CLASSIFICATION_OFFSET = 12;
+    private static final int EPHEMERIS_TYPE_OFFSET = 14;
+    private static final int LAUNCH_YEAR_OFFSET = 16;
+    private static final int LAUNCH_NUMBER_OFFSET = 20;
+    private static final int LAUNCH_PIECE_OFFSET = 24;
+    private static final int ELEMENT_NUMBER_OFFSET = 28;
+    private static final int REVOLUTION_NUMBER_OFFSET = 32;
+    private static final int EPOCH_OFFSET = 40;
+    private static final int MEAN_MOTION_OFFSET = 48;
+    private static final int MEAN_MOTION_DOT_OFFSET = 56;
+    private static final int MEAN_MOTION_DOT_DOT_OFFSET = 64;
+    private static final int E_OFFSET = 72;
+    private static final int I_OFFSET = 80;
+    private static final int PA_OFFSET = 88;
+    private static final int RAAN_OFFSET = 96;
+    private static final int MEAN_ANOMALY_OFFSET = 104;
+    private static final int BSTAR_OFFSET = 112;
+
+    /**
+     * Write the provided catalogue in binary format. The file is written to a temporary file first and then moved to
+     * the target path.
+     *
+     * @param catalogue the catalogue to write
+     * @param file the target file
+     * @throws IOException in case of I/O problems
+     */
+    public static void write(TleCatalogue catalogue, Path file) throws IOException {
+        List<TleCatalogue.Entry> entries = catalogue.getEntries();
+        // Name table
+        ByteBuffer names = ByteBuffer.allocate(entries.stream().mapToInt(e -> e.getName().length() * 4).sum());
+        int[] nameOffsets = new int[entries.size()];
+        int[] nameLengths = new int[entries.size()];
+        for(int i = 0; i < entries.size(); ++i) {
+            byte[] name = entries.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i] = names.position();
+            nameLengths[i] = name.length;
+            names.put(name);
+        }
+        names.flip();
+        long recordsOffset = HEADER_SIZE;
+        long namesOffset = recordsOffset + (long) RECORD_SIZE * entries.size();
+        // Keep the index aligned to 8 bytes
+        long indexOffset = (namesOffset + names.limit() + 7) & ~7L;
+        long fileSize = indexOffset + (long) INDEX_ENTRY_SIZE * entries.size();
+        if(fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Catalogue too large: " + entries.size() + " entries");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+        // Header
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(entries.size());
+        buffer.putInt(RECORD_SIZE);
+        buffer.putInt(0); // Reserved
+        buffer.putLong(recordsOffset);
+        buffer.putLong(namesOffset);
+        buffer.putLong(names.limit());
+        buffer.putLong(indexOffset);
+        // Records
+        for(int i = 0; i < entries.size(); ++i) {
+            TLE tle = entries.get(i).getTleObject();
+            int base = (int) recordsOffset + i * RECORD_SIZE;
+            buffer.putInt(base + NORAD_ID_OFFSET, tle.getSatelliteNumber());
+            buffer.putInt(base + NAME_OFFSET_OFFSET, nameOffsets[i]);
+            buffer.putInt(base + NAME_LENGTH_OFFSET, nameLengths[i]);
+            buffer.putChar(base + CLASSIFICATION_OFFSET, tle.getClassification());
+            buffer.put(base + EPHEMERIS_TYPE_OFFSET, (byte) tle.getEphemerisType());
+            buffer.putInt(base + LAUNCH_YEAR_OFFSET, tle.getLaunchYear());
+            buffer.putInt(base + LAUNCH_NUMBER_OFFSET, tle.getLaunchNumber());
+            byte[] launchPiece = Arrays.copyOf(tle.getLaunchPiece().trim().getBytes(StandardCharsets.US_ASCII), LAUNCH_PIECE_SIZE);
+            for(int j = 0; j < LAUNCH_PIECE_SIZE; ++j) {
+                buffer.put(base + LAUNCH_PIECE_OFFSET + j, launchPiece[j]);
+            }
+            buffer.putInt(base + ELEMENT_NUMBER_OFFSET, tle.getElementNumber());
+            buffer.putInt(base + REVOLUTION_NUMBER_OFFSET, tle.getRevolutionNumberAtEpoch());
+            buffer.putDouble(base + EPOCH_OFFSET, tle.getDate().durationFrom(AbsoluteDate.J2000_EPOCH));
+            buffer.putDouble(base + MEAN_MOTION_OFFSET, tle.getMeanMotion());
+            buffer.putDouble(base + MEAN_MOTION_DOT_OFFSET, tle.getMeanMotionFirstDerivative());
+            buffer.putDouble(base + MEAN_MOTION_DOT_DOT_OFFSET, tle.getMeanMotionSecondDerivative());
+            buffer.putDouble(base + E_OFFSET, tle.getE());
+            buffer.putDouble(base + I_OFFSET, tle.getI());
+            buffer.putDouble(base + PA_OFFSET, tle.getPerigeeArgument());
+            buffer.putDouble(base + RAAN_OFFSET, tle.getRaan());
+            buffer.putDouble(base + MEAN_ANOMALY_OFFSET, tle.getMeanAnomaly());
+            buffer.putDouble(base + BSTAR_OFFSET, tle.getBStar());
+        }
+        // Names
+        buffer.position((int) namesOffset);
+        buffer.put(names);
+        // Index, sorted by NORAD ID
+        Integer[] order = new Integer[entries.size()];
+        for(int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> entries.get(i).getNoradId()));
+        buffer.position((int) indexOffset);
+        for(Integer i : order) {
+            buffer.putInt(entries.get(i).getNoradId());
+            buffer.putInt(i);
+        }
+        // Write to file
+        buffer.flip();
+        Path target = file.toAbsolutePath();
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Open the provided binary catalogue file.
+     *
+     * @param file the file to open
+     * @return the catalogue
+     * @throws IOException in case of I/O problems or invalid file
+     */
+    public static TleBinaryCatalogue open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new TleBinaryCatalogue(file.toString(), buffer);
+    }
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int recordsOffset;
+    private final int namesOffset;
+    private final int indexOffset;
+
+    private TleBinaryCatalogue(String file, ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if(buffer.limit() < HEADER_SIZE) {
+            throw new IOException("File " + file + " is not a binary TLE catalogue: too short");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        for(int i = 0; i < MAGIC.length; ++i) {
+            magic[i] = buffer.get(i);
+        }
+        if(!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("File " + file + " is not a binary TLE catalogue: wrong magic");
+        }
+        int version = buffer.getInt(8);
+        if(version != VERSION) {
+            throw new IOException("File " + file + " has unsupported binary TLE catalogue version " + version);
+        }
+        this.size = buffer.getInt(12);
+        if(buffer.getInt(16) != RECORD_SIZE) {
+            throw new IOException("File " + file + " has unsupported record size " + buffer.getInt(16));
+        }
+        this.recordsOffset = (int) buffer.getLong(24);
+        this.namesOffset = (int) buffer.getLong(32);
+        this.indexOffset = (int) buffer.getLong(48);
+        if(this.indexOffset + (long) INDEX_ENTRY_SIZE * this.size > buffer.limit()) {
+            throw new IOException("File " + file + " is truncated");
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNoradId(int record) {
+        return buffer.getInt(recordBase(record) + NORAD_ID_OFFSET);
+    }
+
+    public String getName(int record) {
+        int base = recordBase(record);
+        byte[] name = new byte[buffer.getInt(base + NAME_LENGTH_OFFSET)];
+        int offset = namesOffset + buffer.getInt(base + NAME_OFFSET_OFFSET);
+        for(int i = 0; i < name.length; ++i) {
+            name[i] = buffer.get(offset + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    public Date getEpoch(int record) {
+        return readEpoch(recordBase(record)).toDate(TimeScalesFactory.getUTC());
+    }
+
+    /**
+     * Build the TLE of the provided record. The TLE is not cached.
+     *
+     * @param record the record number
+     * @return the TLE
+     */
+    public TLE getTle(int record) {
+        int base = recordBase(record);
+        StringBuilder launchPiece = new StringBuilder(LAUNCH_PIECE_SIZE);
+        for(int j = 0; j < LAUNCH_PIECE_SIZE; ++j) {
+            byte b = buffer.get(base + LAUNCH_PIECE_OFFSET + j);
+            if(b != 0) {
+                launchPiece.append((char) b);
+            }
+        }
+        return new TLE(buffer.getInt(base + NORAD_ID_OFFSET),
+                buffer.getChar(base + CLASSIFICATION_OFFSET),
+                buffer.getInt(base + LAUNCH_YEAR_OFFSET),
+                buffer.getInt(base + LAUNCH_NUMBER_OFFSET),
+                launchPiece.toString(),
+                buffer.get(base + EPHEMERIS_TYPE_OFFSET),
+                buffer.getInt(base + ELEMENT_NUMBER_OFFSET),
+                readEpoch(base),
+                buffer.getDouble(base + MEAN_MOTION_OFFSET),
+                buffer.getDouble(base + MEAN_MOTION_DOT_OFFSET),
+                buffer.getDouble(base + MEAN_MOTION_DOT_DOT_OFFSET),
+                buffer.getDouble(base + E_OFFSET),
+                buffer.getDouble(base + I_OFFSET),
+                buffer.getDouble(base + PA_OFFSET),
+                buffer.getDouble(base + RAAN_OFFSET),
+                buffer.getDouble(base + MEAN_ANOMALY_OFFSET),
+                buffer.getInt(base + REVOLUTION_NUMBER_OFFSET),
+                buffer.getDouble(base + BSTAR_OFFSET));
+    }
+
+    /**
+     * Build the catalogue entry of the provided record. The entry is not cached.
+     *
+     * @param record the record number
+     * @param group the group to assign to the entry
+     * @return the entry
+     */
+    public TleCatalogue.Entry getEntry(int record, String group) {
+        TLE tle = getTle(record);
+        return new TleCatalogue.Entry(getName(record), group, tle.getLine1() + "\n" + tle.getLine2(), tle);
+    }
+
+    /**
+     * Look up the record of the provided NORAD ID, using the index.
+     *
+     * @param noradId the NORAD ID
+     * @return the record number, or -1 if not present
+     */
+    public int findRecord(int noradId) {
+        int low = 0;
+        int high = size - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(indexOffset + mid * INDEX_ENTRY_SIZE);
+            if(midId < noradId) {
+                low = mid + 1;
+            } else if(midId > noradId) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(indexOffset + mid * INDEX_ENTRY_SIZE + 4);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return a view of the catalogue as list of entries, decoded on access.
+     *
+     * @param group the group to assign to the entries
+     * @return the list view
+     */
+    public List<TleCatalogue.Entry> asList(String group) {
+        return new AbstractList<>() {
+            @Override
+            public TleCatalogue.Entry get(int index) {
+                return getEntry(index, group);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private AbsoluteDate readEpoch(int base) {
+        return AbsoluteDate.J2000_EPOCH.shiftedBy(buffer.getDouble(base + EPOCH_OFFSET));
+    }
+
+    private int recordBase(int record) {
+        if(record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " out of range, size " + size);
+        }
+        return recordsOffset + record * RECORD_SIZE;
+    }
+}
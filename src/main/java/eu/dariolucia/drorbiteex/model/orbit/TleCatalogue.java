@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.orbit;
+
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.TimeScalesFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Immutable catalogue of TLEs in three-line format (name, line 1, line 2), indexed by name and NORAD catalogue number.
+ * Each TLE is validated (line format and checksum) and parsed exactly once, when the catalogue is built: large
+ * catalogues are parsed in parallel chunks. Invalid entries are skipped and reported by {@link TleCatalogue#getRejected()}.
+ */
+public class TleCatalogue {
+
+    private static final Logger LOG = Logger.getLogger(TleCatalogue.class.getName());
+
+    private static final int TLE_LINE_LENGTH = 69;
+    // Below this number of entries, parsing is done in the calling thread
+    private static final int MIN_ENTRIES_PER_CHUNK = 512;
+
+    public static TleCatalogue parse(String group, Path file) throws IOException {
+        return parse(group, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    public static TleCatalogue parse(String group, String content) {
+        return parse(group, content, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parse the provided content.
+     *
+     * @param group the group to assign to the entries
+     * @param content the catalogue content, in three-line format
+     * @param threads the maximum number of threads to use
+     * @return the catalogue
+     */
+    public static TleCatalogue parse(String group, String content, int threads) {
+        // Split the content in records: this is cheap, the expensive part is the TLE parsing
+        List<TleRecord> records = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        splitRecords(content, records, rejected);
+        // Parse the records in chunks
+        int chunks = Math.max(1, Math.min(threads, records.size() / MIN_ENTRIES_PER_CHUNK));
+        int chunkSize = (records.size() + chunks - 1) / Math.max(1, chunks);
+        List<Entry> entries = new ArrayList<>(records.size());
+        if(chunks == 1) {
+            parseChunk(group, records, 0, records.size(), entries, rejected);
+        } else {
+            ExecutorService service = Executors.newFixedThreadPool(chunks, (r) -> {
+                Thread t = new Thread(r, "TLE Catalogue Parser Task");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<List<Entry>>> futures = new ArrayList<>(chunks);
+                List<List<String>> chunkRejections = new ArrayList<>(chunks);
+                for(int start = 0; start < records.size(); start += chunkSize) {
+                    final int from = start;
+                    final int to = Math.min(records.size(), start + chunkSize);
+                    final List<String> chunkRejected = new ArrayList<>();
+                    chunkRejections.add(chunkRejected);
+                    futures.add(service.submit(() -> {
+                        List<Entry> chunkEntries = new ArrayList<>(to - from);
+                        parseChunk(group, records, from, to, chunkEntries, chunkRejected);
+                        return chunkEntries;
+                    }));
+                }
+                // Collect the chunks in order, to keep the file order
+                for(Future<List<Entry>> f : futures) {
+                    entries.addAll(f.get());
+                }
+                chunkRejections.forEach(rejected::addAll);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("TLE catalogue parsing interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("TLE catalogue parsing failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                service.shutdownNow();
+            }
+        }
+        if(!rejected.isEmpty()) {
+            LOG.log(Level.WARNING, rejected.size() + " TLE entries rejected while parsing catalogue " + group);
+        }
+        return new TleCatalogue(entries, rejected);
+    }
+
+    private static void splitRecords(String content, List<TleRecord> records, List<String> rejected) {
+        String name = null;
+        String line1 = null;
+        int line1Index = -1;
+        int lineIndex = -1;
+        int lineStart = 0;
+        int length = content.length();
+        while(lineStart < length) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            if(lineEnd == -1) {
+                lineEnd = length;
+            }
+            String line = content.substring(lineStart, lineEnd).trim();
+            lineStart = lineEnd + 1;
+            ++lineIndex;
+            if(line.isEmpty()) {
+                continue;
+            }
+            if(line1 != null) {
+                if(line.startsWith("2 ")) {
+                    records.add(new TleRecord(name, line1, line, line1Index, lineIndex));
+                } else {
+                    rejected.add(name + ": missing TLE line 2");
+                }
+                name = null;
+                line1 = null;
+            } else if(name != null && line.startsWith("1 ")) {
+                line1 = line;
+                line1Index = lineIndex;
+            } else {
+                if(name != null) {
+                    rejected.add(name + ": missing TLE line 1");
+                }
+                name = line;
+            }
+        }
+        if(name != null) {
+            rejected.add(name + ": incomplete TLE");
+        }
+    }
+
+    private static void parseChunk(String group, List<TleRecord> records, int from, int to, List<Entry> entries, List<String> rejected) {
+        for(int i = from; i < to; ++i) {
+            TleRecord record = records.get(i);
+            String name = record.name;
+            String line1 = record.line1;
+            String line2 = record.line2;
+            if(!isValidLine(line1) || !isValidLine(line2)) {
+                rejected.add(name + ": invalid TLE line length or checksum");
+                continue;
+            }
+            try {
+                TLE tleObject = new TLE(line1, line2);
+                entries.add(new Entry(name, group, line1 + "\n" + line2, tleObject, record.line1Index, record.line2Index));
+            } catch (RuntimeException e) {
+                rejected.add(name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Check the length and the checksum of a TLE line: the checksum is the sum of all digits (minus signs count as 1),
+     * modulo 10.
+     *
+     * @param line the TLE line
+     * @return true if the line is valid, otherwise false
+     */
+    public static boolean isValidLine(String line) {
+        if(line.length() != TLE_LINE_LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        for(int i = 0; i < TLE_LINE_LENGTH - 1; ++i) {
+            char c = line.charAt(i);
+            if(c >= '0' && c <= '9') {
+                sum += c - '0';
+            } else if(c == '-') {
+                sum += 1;
+            }
+        }
+        char checksum = line.charAt(TLE_LINE_LENGTH - 1);
+        return checksum >= '0' && checksum <= '9' && (sum % 10) == checksum - '0';
+    }
+
+    private final List<Entry> entries;
+    private final List<String> rejected;
+    private final Map<String, Entry> byName;
+    private final Map<Integer, Entry> byNoradId;
+
+    private TleCatalogue(List<Entry> entries, List<String> rejected) {
+        this.entries = List.copyOf(entries);
+        this.rejected = List.copyOf(rejected);
+        Map<String, Entry> names = new HashMap<>();
+        Map<Integer, Entry> ids = new HashMap<>();
+        for(Entry e : this.entries) {
+            // In case of duplicates, the first entry wins
+            names.putIfAbsent(e.getName(), e);
+            ids.putIfAbsent(e.getNoradId(), e);
+        }
+        this.byName = Collections.unmodifiableMap(names);
+        this.byNoradId = Collections.unmodifiableMap(ids);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public List<String> getRejected() {
+        return rejected;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Entry getByName(String name) {
+        return byName.get(name);
+    }
+
+    public Entry getByNoradId(int noradId) {
+        return byNoradId.get(noradId);
+    }
+
+    private static class TleRecord {
+
+        private final String name;
+        private final String line1;
+        private final String line2;
+        private final int line1Index;
+        private final int line2Index;
+
+        private TleRecord(String name, String line1, String line2, int line1Index, int line2Index) {
+            this.name = name;
+            this.line1 = line1;
+            this.line2 = line2;
+            this.line1Index = line1Index;
+            this.line2Index = line2Index;
+        }
+    }
+
+    /**
+     * Catalogue entry: the TLE is already parsed and can be reused to build orbit models, without further parsing.
+     */
+    public static class Entry {
+
+        private final String name;
+        private final String group;
+        private final String tle;
+        private final TLE tleObject;
+        private final Date epoch;
+        private final int line1Index;
+        private final int line2Index;
+
+        Entry(String name, String group, String tle, TLE tleObject) {
+            this(name, group, tle, tleObject, -1, -1);
+        }
+
+        Entry(String name, String group, String tle, TLE tleObject, int line1Index, int line2Index) {
+            this.name = name;
+            this.group = group;
+            this.tle = tle;
+            this.tleObject = tleObject;
+            this.epoch = tleObject.getDate().toDate(TimeScalesFactory.getUTC());
+            this.line1Index = line1Index;
+            this.line2Index = line2Index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getTle() {
+            return tle;
+        }
+
+        public TLE getTleObject() {
+            return tleObject;
+        }
+
+        public int getNoradId() {
+            return tleObject.getSatelliteNumber();
+        }
+
+        public Date getEpoch() {
+            return new Date(epoch.getTime());
+        }
+
+        /**
+         * Return the index (0-based) of the line containing the TLE line 1 in the parsed content.
+         *
+         * @return the line index, or -1 if the entry was not parsed from text
+         */
+        public int getLine1Index() {
+            return line1Index;
+        }
+
+        /**
+         * Return the index (0-based) of the line containing the TLE line 2 in the parsed content. Empty lines between
+         * line 1 and line 2 are tolerated, so this is not necessarily {@link Entry#getLine1Index()} + 1.
+         *
+         * @return the line index, or -1 if the entry was not parsed from text
+         */
+        public int getLine2Index() {
+            return line2Index;
+        }
+
+        public CelestrakTleData toCelestrakTleData() {
+            return new CelestrakTleData(name, group, tle);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -42,6 +42,7 @@ public class TleOrbitModel implements IOrbitModel {
     private transient TLE tleObject;
     private transient Date firstCrossTime; // Time of right ascension node crossing after epoch
     private transient int orbitAtCrossTime;
+    private transient boolean crossTimeComputed; // The node crossing is computed on first use
 
     public TleOrbitModel() {
         //
@@ -55,18 +56,52 @@ public class TleOrbitModel implements IOrbitModel {
         initialiseTle();
     }
 
+    /**
+     * Create the model from an already parsed TLE, which must correspond to the provided TLE text.
+     *
+     * @param tle the TLE text (two lines)
+     * @param tleObject the parsed TLE
+     */
+    public TleOrbitModel(String tle, TLE tleObject) {
+        if(tle == null || tle.isBlank()) {
+            throw new IllegalArgumentException("tle argument invalid: " + tle);
+        }
+        this.tle = tle;
+        initialiseTle(tleObject);
+    }
+
     private void initialiseTle() {
-        this.tleObject = new TLE(this.tle.substring(0, this.tle.indexOf("\n")).trim(), this.tle.substring(this.tle.indexOf("\n")).trim());
+        initialiseTle(new TLE(this.tle.substring(0, this.tle.indexOf("\n")).trim(), this.tle.substring(this.tle.indexOf("\n")).trim()));
+    }
+
+    private void initialiseTle(TLE tleObject) {
+        this.tleObject = tleObject;
         this.tlePropagator = TLEPropagator.selectExtrapolator(tleObject);
-        // Get the initial position
-        SpacecraftState initialSpacecraftState = this.tlePropagator.getInitialState();
-        // Get the keplerian period
-        Orbit o = initialSpacecraftState.getOrbit();
-        double period = o.getKeplerianPeriod();
-        long periodSec = Math.round(period);
-        // Compute the time the spacecraft crosses the right ascension node (first time after epoch time)
-        firstCrossTime = computeCrossRightAscensionNodeAfter(initialSpacecraftState, periodSec);
-        orbitAtCrossTime = this.tleObject.getRevolutionNumberAtEpoch() + 1;
+        this.orbitAtCrossTime = this.tleObject.getRevolutionNumberAtEpoch() + 1;
+        // Node crossing computation requires a propagation: deferred
+        this.firstCrossTime = null;
+        this.crossTimeComputed = false;
+    }
+
+    private void ensureCrossTimeComputed() {
+        if(!this.crossTimeComputed && this.tleObject != null) {
+            // Use a dedicated propagator, the model propagator could be in use
+            TLEPropagator propagator = TLEPropagator.selectExtrapolator(this.tleObject);
+            // Get the initial position
+            SpacecraftState initialSpacecraftState = propagator.getInitialState();
+            // Get the keplerian period
+            Orbit o = initialSpacecraftState.getOrbit();
+            double period = o.getKeplerianPeriod();
+            long periodSec = Math.round(period);
+            // Compute the time the spacecraft crosses the right ascension node (first time after epoch time)
+            this.firstCrossTime = computeCrossRightAscensionNodeAfter(propagator, initialSpacecraftState, periodSec);
+            this.crossTimeComputed = true;
+        }
+    }
+
+    @Override
+    public synchronized void prepare() {
+        ensureCrossTimeComputed();
     }
 
     @XmlElement
@@ -103,7 +138,13 @@ public class TleOrbitModel implements IOrbitModel {
             TleOrbitModel iModel = (TleOrbitModel) model;
             if(!iModel.getTle().equals(this.tle)) {
                 this.tle = iModel.getTle();
-                initialiseTle();
+                // TLE objects are immutable: reuse the already parsed one
+                TLE parsed = iModel.getTleObject();
+                if(parsed != null) {
+                    initialiseTle(parsed);
+                } else {
+                    initialiseTle();
+                }
                 return true;
             } else {
                 return false;
@@ -115,6 +156,7 @@ public class TleOrbitModel implements IOrbitModel {
 
     @Override
     public synchronized int computeOrbitNumberAt(Date time) {
+        ensureCrossTimeComputed();
         if(this.tleObject != null) {
             // Get the keplerian period
             Orbit o = this.tlePropagator.getInitialState().getOrbit();
@@ -131,12 +173,12 @@ public class TleOrbitModel implements IOrbitModel {
         }
     }
 
-    private Date computeCrossRightAscensionNodeAfter(SpacecraftState initialSpacecraftState, long keplerianPeriodSec) {
+    private Date computeCrossRightAscensionNodeAfter(TLEPropagator propagator, SpacecraftState initialSpacecraftState, long keplerianPeriodSec) {
         NodeDetector detector = new NodeDetector(0.001, initialSpacecraftState.getOrbit(), EarthReferenceUtils.getITRF());
         EventsLogger el = new EventsLogger();
         EventDetector ed = el.monitorDetector(detector);
-        this.tlePropagator.addEventDetector(ed);
-        this.tlePropagator.propagate(initialSpacecraftState.getDate().shiftedBy(2 * keplerianPeriodSec));
+        propagator.addEventDetector(ed);
+        propagator.propagate(initialSpacecraftState.getDate().shiftedBy(2 * keplerianPeriodSec));
         Date found = null;
         if(!el.getLoggedEvents().isEmpty()) {
             // Get the latest event, it should be the right one
@@ -147,14 +189,27 @@ public class TleOrbitModel implements IOrbitModel {
                 }
             }
         }
-        this.tlePropagator.clearEventsDetectors();
-        // Move to initial date
-        this.tlePropagator.propagate(initialSpacecraftState.getDate());
+        propagator.clearEventsDetectors();
         return found;
     }
 
     @Override
-    public IOrbitModel copy() {
-        return new TleOrbitModel(getTle());
+    public synchronized IOrbitModel copy() {
+        return copyPreparedDataTo(new TleOrbitModel(this.tle, this.tleObject));
+    }
+
+    /**
+     * Transfer the already computed node crossing to the provided copy of this model, so that the copy does not need
+     * to compute it again. To be called while holding the lock of this model, with a copy built from the same TLE.
+     */
+    protected TleOrbitModel copyPreparedDataTo(TleOrbitModel copy) {
+        if(this.crossTimeComputed) {
+            synchronized (copy) {
+                copy.firstCrossTime = this.firstCrossTime;
+                copy.orbitAtCrossTime = this.orbitAtCrossTime;
+                copy.crossTimeComputed = true;
+            }
+        }
+        return copy;
     }
 }
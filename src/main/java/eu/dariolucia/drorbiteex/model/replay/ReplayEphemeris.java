@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.replay;
+
+import eu.dariolucia.drorbiteex.model.orbit.IOrbitModel;
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.orbit.SpacecraftPosition;
+import eu.dariolucia.drorbiteex.model.station.GroundStation;
+import eu.dariolucia.drorbiteex.model.station.TrackPoint;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
+import eu.dariolucia.drorbiteex.model.util.TimeUtils;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.orbits.CartesianOrbit;
+import org.orekit.propagation.Propagator;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.PVCoordinates;
+import org.orekit.utils.TimeStampedPVCoordinates;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ephemerides of a set of orbits over a time interval, sampled at a fixed step, with the azimuth, elevation, range and
+ * range rate of each orbit from a set of ground stations. Once computed, the spacecraft position and the ground station
+ * track points at any time of the interval are interpolated from the tables, without propagation: this allows the
+ * replay of the interval at any speed, and instant seeking.
+ */
+public class ReplayEphemeris {
+
+    public static final int DEFAULT_STEP_SECONDS = 10;
+
+    /**
+     * Size of the tables above which the user shall be warned before computing.
+     */
+    public static final long MEMORY_WARNING_BYTES = 256L * 1024 * 1024;
+
+    private static final Frame TABLE_FRAME = FramesFactory.getEME2000();
+
+    private final Date startTime;
+    private final Date endTime;
+    private final int stepSeconds;
+    private final int samples;
+    private final Map<Orbit, OrbitTable> orbitTables;
+
+    private ReplayEphemeris(Date startTime, Date endTime, int stepSeconds, int samples, Map<Orbit, OrbitTable> orbitTables) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.stepSeconds = stepSeconds;
+        this.samples = samples;
+        this.orbitTables = orbitTables;
+    }
+
+    /**
+     * Compute the ephemerides. Each orbit is propagated in its own task, with a copy of its model.
+     *
+     * @param orbits the orbits
+     * @param stations the ground stations
+     * @param startTime the start of the interval
+     * @param endTime the end of the interval
+     * @param stepSeconds the sampling step
+     * @param cores the number of threads to use
+     * @param monitor the progress monitor, can be null
+     * @return the ephemerides, or null if cancelled
+     * @throws IOException in case of propagation error
+     */
+    public static ReplayEphemeris compute(List<Orbit> orbits, List<GroundStation> stations, Date startTime, Date endTime, int stepSeconds, int cores, ITaskProgressMonitor monitor) throws IOException {
+        if(monitor == null) {
+            monitor = ITaskProgressMonitor.DUMMY_MONITOR;
+        }
+        if(!endTime.after(startTime)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        if(stepSeconds <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + stepSeconds);
+        }
+        long memory = estimateMemory(orbits.size(), stations.size(), startTime, endTime, stepSeconds);
+        if(memory > getMemoryLimit()) {
+            throw new IOException(String.format("Cannot compute replay ephemeris: %d MB required, limit is %d MB", memory / (1024 * 1024), getMemoryLimit() / (1024 * 1024)));
+        }
+        final int samples = getSamples(startTime, endTime, stepSeconds);
+        // Station frames are shared (immutable), ground stations are not accessed from the tasks
+        Map<GroundStation, TopocentricFrame> stationFrames = new LinkedHashMap<>();
+        for(GroundStation gs : stations) {
+            stationFrames.put(gs, gs.getStationFrame());
+        }
+        ExecutorService service = Executors.newFixedThreadPool(Math.max(1, cores), (r) -> {
+            Thread t = new Thread(r, "Replay Ephemeris Task");
+            t.setDaemon(true);
+            return t;
+        });
+        final ITaskProgressMonitor theMonitor = monitor;
+        Map<Orbit, Future<OrbitTable>> futures = new LinkedHashMap<>();
+        for(Orbit orbit : orbits) {
+            final IOrbitModel model = orbit.getModel().copy();
+            futures.put(orbit, service.submit(() -> computeTable(model, stationFrames, startTime, stepSeconds, samples, theMonitor)));
+        }
+        service.shutdown();
+        // Orbits can be excluded while the tables are in use
+        Map<Orbit, OrbitTable> tables = new ConcurrentHashMap<>();
+        long progress = 0;
+        try {
+            for (Map.Entry<Orbit, Future<OrbitTable>> e : futures.entrySet()) {
+                OrbitTable table = e.getValue().get();
+                if (table == null || monitor.isCancelled()) {
+                    service.shutdownNow();
+                    return null;
+                }
+                tables.put(e.getKey(), table);
+                ++progress;
+                monitor.progress(progress, futures.size(), "Ephemeris of " + e.getKey().getName() + " computed");
+            }
+        } catch (InterruptedException e) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            service.shutdownNow();
+            throw new IOException("Cannot compute replay ephemeris: " + e.getMessage(), e);
+        }
+        return new ReplayEphemeris(startTime, endTime, stepSeconds, samples, tables);
+    }
+
+    /**
+     * Estimate the size in bytes of the tables for the provided number of orbits and ground stations.
+     *
+     * @param orbits the number of orbits
+     * @param stations the number of ground stations
+     * @param startTime the start of the interval
+     * @param endTime the end of the interval
+     * @param stepSeconds the sampling step
+     * @return the estimated size in bytes
+     */
+    public static long estimateMemory(int orbits, int stations, Date startTime, Date endTime, int stepSeconds) {
+        long samples = getSamples(startTime, endTime, stepSeconds);
+        // Per orbit: 6 doubles and 1 int per sample. Per orbit and station: 4 floats per sample.
+        long perOrbit = samples * (6 * Double.BYTES + Integer.BYTES) + stations * samples * 4L * Float.BYTES;
+        return orbits * perOrbit;
+    }
+
+    /**
+     * Return the maximum size of the tables, i.e. half of the maximum heap size.
+     *
+     * @return the limit in bytes
+     */
+    public static long getMemoryLimit() {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    private static int getSamples(Date startTime, Date endTime, int stepSeconds) {
+        return (int) ((endTime.getTime() - startTime.getTime()) / (stepSeconds * 1000L)) + 2;
+    }
+
+    private static OrbitTable computeTable(IOrbitModel model, Map<GroundStation, TopocentricFrame> stationFrames, Date startTime, int stepSeconds, int samples, ITaskProgressMonitor monitor) {
+        Propagator propagator = model.getPropagator();
+        AbsoluteDate start = TimeUtils.toAbsoluteDate(startTime);
+        OrbitTable table = new OrbitTable(model, samples, stationFrames.keySet());
+        for(int i = 0; i < samples; ++i) {
+            if(i % 1000 == 0 && monitor.isCancelled()) {
+                return null;
+            }
+            AbsoluteDate date = start.shiftedBy((double) i * stepSeconds);
+            SpacecraftState state = propagator.propagate(date);
+            PVCoordinates pv = state.getPVCoordinates(TABLE_FRAME);
+            table.set(i, pv, model.computeOrbitNumberAt(new Date(startTime.getTime() + i * stepSeconds * 1000L)));
+            if(i == 0) {
+                table.mu = state.getMu();
+            }
+            for(Map.Entry<GroundStation, TopocentricFrame> e : stationFrames.entrySet()) {
+                PVCoordinates pvStation = state.getFrame().getTransformTo(e.getValue(), date).transformPVCoordinates(state.getPVCoordinates());
+                double[] azEl = GroundStation.computeAzimuthElevation(pvStation.getPosition());
+                double range = pvStation.getPosition().getNorm();
+                double rangeRate = Vector3D.dotProduct(pvStation.getPosition(), pvStation.getVelocity()) / range;
+                table.stationTables.get(e.getKey()).set(i, azEl[0], azEl[1], range, rangeRate);
+            }
+        }
+        return table;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public Set<Orbit> getOrbits() {
+        return Collections.unmodifiableSet(orbitTables.keySet());
+    }
+
+    /**
+     * Check if the propagation model of the orbit changed since the tables were computed.
+     *
+     * @param orbit the orbit
+     * @return true if the orbit is covered and its table is outdated, otherwise false
+     */
+    public boolean isOutdated(Orbit orbit) {
+        OrbitTable table = this.orbitTables.get(orbit);
+        if(table == null) {
+            return false;
+        }
+        try {
+            // Work on a copy: the model used for the table is not modified
+            return table.model.copy().updateModel(orbit.getModel());
+        } catch (IllegalArgumentException e) {
+            // Different type of model
+            return true;
+        }
+    }
+
+    /**
+     * Remove the orbit from the tables: the orbit is no longer updated by {@link ReplayEphemeris#apply(Date)}.
+     *
+     * @param orbit the orbit
+     * @return true if the orbit was covered, otherwise false
+     */
+    public boolean exclude(Orbit orbit) {
+        return this.orbitTables.remove(orbit) != null;
+    }
+
+    public boolean covers(Orbit orbit, Date time) {
+        return this.orbitTables.containsKey(orbit) && !time.before(this.startTime) && !time.after(this.endTime);
+    }
+
+    /**
+     * Return the interpolated position of the orbit at the provided time.
+     *
+     * @param orbit the orbit
+     * @param time the time, to be within the interval
+     * @return the position, or null if the orbit or the time are not covered
+     */
+    public SpacecraftPosition getPosition(Orbit orbit, Date time) {
+        OrbitTable table = this.orbitTables.get(orbit);
+        if(table == null || !covers(orbit, time)) {
+            return null;
+        }
+        double offset = (time.getTime() - this.startTime.getTime()) / (this.stepSeconds * 1000.0);
+        int i = Math.min((int) offset, this.samples - 2);
+        double t = offset - i;
+        double dt = this.stepSeconds;
+        // Cubic Hermite interpolation of the position, linear interpolation of the velocity
+        double h00 = 2 * t * t * t - 3 * t * t + 1;
+        double h10 = t * t * t - 2 * t * t + t;
+        double h01 = -2 * t * t * t + 3 * t * t;
+        double h11 = t * t * t - t * t;
+        double[] pv = table.pv;
+        int a = i * 6;
+        int b = a + 6;
+        Vector3D position = new Vector3D(
+                h00 * pv[a] + h10 * dt * pv[a + 3] + h01 * pv[b] + h11 * dt * pv[b + 3],
+                h00 * pv[a + 1] + h10 * dt * pv[a + 4] + h01 * pv[b + 1] + h11 * dt * pv[b + 4],
+                h00 * pv[a + 2] + h10 * dt * pv[a + 5] + h01 * pv[b + 2] + h11 * dt * pv[b + 5]);
+        Vector3D velocity = new Vector3D(
+                pv[a + 3] + t * (pv[b + 3] - pv[a + 3]),
+                pv[a + 4] + t * (pv[b + 4] - pv[a + 4]),
+                pv[a + 5] + t * (pv[b + 5] - pv[a + 5]));
+        TimeStampedPVCoordinates tpv = new TimeStampedPVCoordinates(TimeUtils.toAbsoluteDate(time), position, velocity);
+        SpacecraftState state = new SpacecraftState(new CartesianOrbit(tpv, TABLE_FRAME, table.mu));
+        int orbitNumber = t < 0.5 ? table.orbitNumbers[i] : table.orbitNumbers[i + 1];
+        return new SpacecraftPosition(orbit, orbitNumber, state);
+    }
+
+    /**
+     * Move the covered orbits to the provided time, notifying their listeners. Orbits not covered are not updated.
+     *
+     * @param time the time, to be within the interval
+     */
+    public void apply(Date time) {
+        for(Orbit orbit : this.orbitTables.keySet()) {
+            SpacecraftPosition position = getPosition(orbit, time);
+            if(position != null) {
+                orbit.updateOrbitPosition(position);
+            }
+        }
+    }
+
+    /**
+     * Return the track point of the provided position from the ground station, interpolated from the tables if
+     * available, computed otherwise.
+     *
+     * @param station the ground station
+     * @param position the spacecraft position
+     * @return the track point, or null if the spacecraft is below the horizon
+     */
+    public TrackPoint getTrackPoint(GroundStation station, SpacecraftPosition position) {
+        OrbitTable table = this.orbitTables.get(position.getOrbit());
+        StationTable stationTable = table != null ? table.stationTables.get(station) : null;
+        if(stationTable == null || !covers(position.getOrbit(), position.getTime())) {
+            return station.getTrackPointOf(position);
+        }
+        double offset = (position.getTime().getTime() - this.startTime.getTime()) / (this.stepSeconds * 1000.0);
+        int i = Math.min((int) offset, this.samples - 2);
+        double t = offset - i;
+        double elevation = interpolate(stationTable.elevation, i, t);
+        if(elevation < 0) {
+            return null;
+        }
+        double az0 = stationTable.azimuth[i];
+        double az1 = stationTable.azimuth[i + 1];
+        // Azimuth wrap around 0/360
+        if(az1 - az0 > 180) {
+            az1 -= 360;
+        } else if(az0 - az1 > 180) {
+            az1 += 360;
+        }
+        double azimuth = az0 + t * (az1 - az0);
+        if(azimuth < 0) {
+            azimuth += 360;
+        } else if(azimuth >= 360) {
+            azimuth -= 360;
+        }
+        return new TrackPoint(position.getTime(), position, station, azimuth, elevation,
+                interpolate(stationTable.range, i, t), interpolate(stationTable.rangeRate, i, t));
+    }
+
+    private static double interpolate(float[] values, int i, double t) {
+        return values[i] + t * (values[i + 1] - values[i]);
+    }
+
+    private static class OrbitTable {
+        // Copy of the orbit model used to compute the table
+        private final IOrbitModel model;
+        // x, y, z, vx, vy, vz per sample, in EME2000
+        private final double[] pv;
+        private final int[] orbitNumbers;
+        private final Map<GroundStation, StationTable> stationTables = new HashMap<>();
+        private double mu;
+
+        private OrbitTable(IOrbitModel model, int samples, Collection<GroundStation> stations) {
+            this.model = model;
+            this.pv = new double[samples * 6];
+            this.orbitNumbers = new int[samples];
+            for(GroundStation gs : stations) {
+                this.stationTables.put(gs, new StationTable(samples));
+            }
+        }
+
+        private void set(int i, PVCoordinates coordinates, int orbitNumber) {
+            Vector3D p = coordinates.getPosition();
+            Vector3D v = coordinates.getVelocity();
+            int idx = i * 6;
+            this.pv[idx] = p.getX();
+            this.pv[idx + 1] = p.getY();
+            this.pv[idx + 2] = p.getZ();
+            this.pv[idx + 3] = v.getX();
+            this.pv[idx + 4] = v.getY();
+            this.pv[idx + 5] = v.getZ();
+            this.orbitNumbers[i] = orbitNumber;
+        }
+    }
+
+    private static class StationTable {
+        // Single precision is enough for display
+        private final float[] azimuth;
+        private final float[] elevation;
+        private final float[] range;
+        private final float[] rangeRate;
+
+        private StationTable(int samples) {
+            this.azimuth = new float[samples];
+            this.elevation = new float[samples];
+            this.range = new float[samples];
+            this.rangeRate = new float[samples];
+        }
+
+        private void set(int i, double azimuth, double elevation, double range, double rangeRate) {
+            this.azimuth[i] = (float) azimuth;
+            this.elevation[i] = (float) elevation;
+            this.range[i] = (float) range;
+            this.rangeRate[i] = (float) rangeRate;
+        }
+    }
+}
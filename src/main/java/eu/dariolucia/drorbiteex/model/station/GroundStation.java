@@ -20,6 +20,7 @@ import eu.dariolucia.drorbiteex.model.orbit.IOrbitVisibilityProcessor;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
 import eu.dariolucia.drorbiteex.model.orbit.OrbitManager;
 import eu.dariolucia.drorbiteex.model.orbit.SpacecraftPosition;
+import eu.dariolucia.drorbiteex.model.replay.ReplayEphemeris;
 import eu.dariolucia.drorbiteex.model.util.EarthReferenceUtils;
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.hipparchus.ode.events.Action;
@@ -280,6 +281,7 @@ public class GroundStation implements EventHandler<ElevationDetector>, IOrbitVis
 
     // Temporary variables used for visibility computation
     private transient Map<Orbit, Date> temporaryPointMap = new HashMap<>();
+    private transient ReplayEphemeris replayEphemeris;
     private transient Orbit currentOrbit;
     private transient boolean eventRaised;
 
@@ -445,7 +447,17 @@ public class GroundStation implements EventHandler<ElevationDetector>, IOrbitVis
 
     public synchronized double[] getAzimuthElevationOf(SpacecraftState ss) {
         PVCoordinates pv = ss.getFrame().getTransformTo(getStationFrame(), ss.getDate()).transformPVCoordinates(ss.getPVCoordinates());
-        Vector3D p = pv.getPosition();
+        return computeAzimuthElevation(pv.getPosition());
+    }
+
+    /**
+     * Compute azimuth and elevation (degrees) of the provided position, expressed in the topocentric frame of a ground
+     * station.
+     *
+     * @param p the position in the station frame
+     * @return azimuth and elevation
+     */
+    public static double[] computeAzimuthElevation(Vector3D p) {
         double azimuth   = Math.toDegrees(p.getAlpha());
         if(azimuth < 0) {
             azimuth += 360.0;
@@ -481,7 +493,8 @@ public class GroundStation implements EventHandler<ElevationDetector>, IOrbitVis
 
     @Override
     public synchronized void spacecraftPositionUpdated(Orbit orbit, SpacecraftPosition currentPosition) {
-        TrackPoint tp = getTrackPointOf(currentPosition);
+        // During a precomputed replay, the track points are interpolated from the replay tables
+        TrackPoint tp = this.replayEphemeris != null ? this.replayEphemeris.getTrackPoint(this, currentPosition) : getTrackPointOf(currentPosition);
         if(tp == null && this.currentVisibilityMap.containsKey(orbit)) {
             this.currentVisibilityMap.remove(orbit);
             notifySpacecraftPositionListeners(orbit, null);
@@ -491,6 +504,15 @@ public class GroundStation implements EventHandler<ElevationDetector>, IOrbitVis
         }
     }
 
+    /**
+     * Set the replay ephemeris to use for the computation of the current track points, or null to compute them.
+     *
+     * @param replayEphemeris the replay ephemeris
+     */
+    public synchronized void setReplayEphemeris(ReplayEphemeris replayEphemeris) {
+        this.replayEphemeris = replayEphemeris;
+    }
+
     public synchronized TrackPoint getTrackPointOf(SpacecraftPosition sp) {
         double[] azEl = getAzimuthElevationOf(sp.getSpacecraftState());
         if(azEl[1] < 0) {
@@ -17,44 +17,66 @@
 package eu.dariolucia.drorbiteex.model.station;
 
 import eu.dariolucia.drorbiteex.model.orbit.OrbitParameterConfiguration;
+import eu.dariolucia.drorbiteex.model.util.StreamingXmlConfiguration;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-@XmlRootElement(name = "ground-station-config", namespace = "http://dariolucia.eu/drorbiteex/groundstation")
+@XmlRootElement(name = "ground-station-config", namespace = GroundStationConfiguration.NAMESPACE)
 @XmlAccessorType(XmlAccessType.PROPERTY)
 public class GroundStationConfiguration {
 
+    public static final String NAMESPACE = "http://dariolucia.eu/drorbiteex/groundstation";
+
+    // JAXB is used for the single elements only: the file is read and written as a stream
+    private static final StreamingXmlConfiguration<GroundStationParameterConfiguration, GroundStation> STREAMING = new StreamingXmlConfiguration<>(
+            new QName(NAMESPACE, "ground-station-config"), "configuration", GroundStationParameterConfiguration.class,
+            "ground-station", GroundStation.class, "id", o -> o.getId().toString());
+
     public static GroundStationConfiguration load(InputStream is) throws IOException {
-        try {
-            JAXBContext jc = JAXBContext.newInstance(GroundStationConfiguration.class);
-            Unmarshaller u = jc.createUnmarshaller();
-            return (GroundStationConfiguration) u.unmarshal(is);
-        } catch (JAXBException e) {
-            throw new IOException(e);
-        }
+        GroundStationConfiguration c = new GroundStationConfiguration();
+        load(is, c::setConfiguration, c.getGroundStations()::add);
+        return c;
+    }
+
+    /**
+     * Read the configuration file, providing each element as soon as it is read.
+     *
+     * @param is the input stream
+     * @param configurationConsumer the consumer of the configuration element
+     * @param groundStationConsumer the consumer of the ground station elements
+     * @throws IOException in case of I/O or format problems
+     */
+    public static void load(InputStream is, Consumer<GroundStationParameterConfiguration> configurationConsumer, Consumer<GroundStation> groundStationConsumer) throws IOException {
+        STREAMING.load(is, configurationConsumer, groundStationConsumer);
     }
 
     public static void save(GroundStationConfiguration d, OutputStream out) throws IOException {
-        try {
-            JAXBContext context = JAXBContext.newInstance(GroundStationConfiguration.class);
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            marshaller.marshal(d, out);
-        } catch (JAXBException e) {
-            throw new IOException(e);
-        }
+        STREAMING.save(out, d.getConfiguration(), d.getGroundStations());
+    }
+
+    /**
+     * Copy the current configuration file, replacing or appending the updated ground stations and skipping the removed ones.
+     * Unchanged elements are copied without being unmarshalled.
+     *
+     * @param current the input stream of the current configuration file
+     * @param out the output stream of the new configuration file
+     * @param configuration the new configuration element, null to keep the current one
+     * @param updated the ground stations to replace or append
+     * @param removed the IDs of the ground stations to remove
+     * @throws IOException in case of I/O or format problems
+     */
+    public static void update(InputStream current, OutputStream out, GroundStationParameterConfiguration configuration, Collection<GroundStation> updated, Set<UUID> removed) throws IOException {
+        STREAMING.copyWithChanges(current, out, configuration, updated, removed.stream().map(UUID::toString).collect(Collectors.toSet()));
     }
 
     private List<GroundStation> groundStations = new LinkedList<>();
@@ -16,6 +16,10 @@
 
 package eu.dariolucia.drorbiteex.model.station;
 
+import eu.dariolucia.drorbiteex.model.tracking.TrackingPredictionExporterProcess;
+import eu.dariolucia.drorbiteex.model.tracking.TrackingPredictionRequest;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -137,4 +141,12 @@ public class GroundStationManager {
         }
         gs.exportTrackingInfo(outputStream, orbitId, visibilityWindowId);
     }
+
+    public List<String> exportVisibilityData(VisibilityExportRequest request, ITaskProgressMonitor monitor) throws IOException {
+        return new VisibilityExporterProcess().exportVisibilityData(request, monitor);
+    }
+
+    public String exportTrackingPrediction(TrackingPredictionRequest request, ITaskProgressMonitor monitor) throws IOException {
+        return new TrackingPredictionExporterProcess().exportTrackingPrediction(request, monitor);
+    }
 }
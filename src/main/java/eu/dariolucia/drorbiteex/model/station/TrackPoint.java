@@ -48,6 +48,17 @@ public class TrackPoint {
         this.doppler = Vector3D.dotProduct(pvStation.getPosition(), pvStation.getVelocity()) / this.range;
     }
 
+    public TrackPoint(Date time, SpacecraftPosition spacecraftPosition, GroundStation station, double azimuth, double elevation, double range, double doppler) {
+        this.time = time;
+        this.orbitNumber = spacecraftPosition.getOrbitNumber();
+        this.spacecraftPosition = spacecraftPosition;
+        this.station = station;
+        this.elevation = elevation;
+        this.azimuth = azimuth;
+        this.range = range;
+        this.doppler = doppler;
+    }
+
     public Date getTime() {
         return time;
     }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.station;
+
+import java.util.List;
+import java.util.UUID;
+
+public class VisibilityExportRequest {
+
+    private final List<GroundStation> groundStations;
+    private final List<UUID> orbitIds;
+    private final boolean includeGroundTracks;
+    private final VisibilityExportFormatEnum format;
+    private final String filePath;
+
+    /**
+     * Create a new bulk visibility export request.
+     *
+     * @param groundStations the ground stations, whose visibility windows must be exported
+     * @param orbitIds the IDs of the orbits to export, null to export all orbits
+     * @param includeGroundTracks if true, the ground track of each visibility window is exported as well
+     * @param format the output format. In CSV format, ground tracks are exported in a separate file, named after the
+     *               provided file path with the suffix "_tracks".
+     * @param filePath the path of the output file
+     */
+    public VisibilityExportRequest(List<GroundStation> groundStations, List<UUID> orbitIds, boolean includeGroundTracks, VisibilityExportFormatEnum format, String filePath) {
+        this.groundStations = List.copyOf(groundStations);
+        this.orbitIds = orbitIds != null ? List.copyOf(orbitIds) : null;
+        this.includeGroundTracks = includeGroundTracks;
+        this.format = format;
+        this.filePath = filePath;
+    }
+
+    public List<GroundStation> getGroundStations() {
+        return groundStations;
+    }
+
+    public List<UUID> getOrbitIds() {
+        return orbitIds;
+    }
+
+    public boolean isIncludeGroundTracks() {
+        return includeGroundTracks;
+    }
+
+    public VisibilityExportFormatEnum getFormat() {
+        return format;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+}
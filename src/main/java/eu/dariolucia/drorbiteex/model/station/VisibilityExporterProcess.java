@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.station;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.util.BufferedChannelWriter;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bulk exporter of visibility windows and ground tracks of several ground stations and orbits.
+ * <p>
+ * In binary format, the output file has the following layout (big endian):
+ * <ul>
+ *     <li>magic number "DRORBVIS" (8 bytes), format version (int32), creation time in ms since epoch (int64), number of tables (int32)</li>
+ *     <li>for each table: name (as per {@link java.io.DataOutput#writeUTF(String)}), number of rows (int64), number of columns (int32)
+ *     and, for each column: name (as per {@link java.io.DataOutput#writeUTF(String)}), type (int8, see {@link ColumnType}), offset in bytes of the
+ *     column data from the beginning of the file (int64), length in bytes of the column data (int64)</li>
+ *     <li>the data of each column, starting at an offset aligned to 8 bytes: one value per row. STRING columns
+ *     contain (rows + 1) int32 offsets, relative to the end of the offset array, followed by the UTF-8 encoded strings.</li>
+ * </ul>
+ * The following tables are present:
+ * <ul>
+ *     <li>STATION: CODE, NAME</li>
+ *     <li>ORBIT: CODE, NAME</li>
+ *     <li>PASS: STATION (row in STATION), ORBIT (row in ORBIT), ORBIT_NUMBER, AOS, LOS (ms since epoch, {@link Long#MIN_VALUE} if not available),
+ *     AOS_EL, AOS_AZ, LOS_EL, LOS_AZ (degrees, first and last point of the ground track, NaN if not available), TRACK_OFFSET (row in TRACK),
+ *     TRACK_COUNT</li>
+ *     <li>TRACK (only if ground tracks are requested): TIME (ms since epoch), EL (deg), AZ (deg), RANGE (m), DOPPLER (m/s)</li>
+ * </ul>
+ * Since the file is organised by columns, it can be memory-mapped and each column read as a typed buffer.
+ * <p>
+ * In CSV format, the visibility windows are exported as per {@link VisibilityWindow#exportVisibilityInfoTo(java.io.OutputStream)}
+ * and, if requested, the ground tracks as per {@link VisibilityWindow#exportGroundTrackingInfoTo(java.io.OutputStream)}
+ * into a separate file.
+ */
+public class VisibilityExporterProcess {
+
+    public static final byte[] MAGIC_NUMBER = "DRORBVIS".getBytes(StandardCharsets.US_ASCII);
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int ALIGNMENT = 8;
+
+    public enum ColumnType {
+        INT32(1),
+        INT64(2),
+        FLOAT64(3),
+        STRING(4);
+
+        private final int code;
+
+        ColumnType(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+
+    /**
+     * Export the visibility windows (and ground tracks if requested) as specified by the request.
+     *
+     * @param request the export request
+     * @param monitor the progress monitor, can be null
+     * @return the list of generated files, null if the operation was cancelled
+     * @throws IOException in case of I/O problems
+     */
+    public List<String> exportVisibilityData(VisibilityExportRequest request, ITaskProgressMonitor monitor) throws IOException {
+        if(monitor == null) {
+            monitor = ITaskProgressMonitor.DUMMY_MONITOR;
+        }
+        // Take a snapshot of the data to export
+        List<PassEntry> passes = collectPasses(request);
+        if(monitor.isCancelled()) {
+            return null;
+        }
+        List<Path> generatedFiles = new ArrayList<>(2);
+        boolean completed = false;
+        try {
+            if(request.getFormat() == VisibilityExportFormatEnum.BINARY) {
+                Path outputFile = Paths.get(request.getFilePath());
+                generatedFiles.add(outputFile);
+                completed = writeBinary(request, passes, outputFile, monitor);
+            } else {
+                Path outputFile = Paths.get(request.getFilePath());
+                generatedFiles.add(outputFile);
+                Path trackFile = null;
+                if(request.isIncludeGroundTracks()) {
+                    trackFile = deriveTrackFilePath(outputFile);
+                    generatedFiles.add(trackFile);
+                }
+                completed = writeCsv(passes, outputFile, trackFile, monitor);
+            }
+        } finally {
+            if(!completed) {
+                // Remove partially generated files
+                for(Path p : generatedFiles) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+        if(!completed) {
+            return null;
+        }
+        List<String> toReturn = new ArrayList<>(generatedFiles.size());
+        for(Path p : generatedFiles) {
+            toReturn.add(p.toAbsolutePath().toString());
+        }
+        return toReturn;
+    }
+
+    private List<PassEntry> collectPasses(VisibilityExportRequest request) {
+        List<PassEntry> passes = new ArrayList<>();
+        Map<UUID, Integer> stationIndexes = new HashMap<>();
+        Map<UUID, Integer> orbitIndexes = new HashMap<>();
+        long trackOffset = 0;
+        for(GroundStation gs : request.getGroundStations()) {
+            int stationIndex = stationIndexes.computeIfAbsent(gs.getId(), id -> stationIndexes.size());
+            List<Orbit> orbits = new ArrayList<>(gs.getAllVisibilityWindows().keySet());
+            Collections.sort(orbits);
+            for(Orbit orbit : orbits) {
+                if(request.getOrbitIds() != null && !request.getOrbitIds().contains(orbit.getId())) {
+                    continue;
+                }
+                int orbitIndex = orbitIndexes.computeIfAbsent(orbit.getId(), id -> orbitIndexes.size());
+                List<VisibilityWindow> windows = new ArrayList<>(gs.getVisibilityWindowsOf(orbit));
+                Collections.sort(windows);
+                for(VisibilityWindow vw : windows) {
+                    // Copy the ground track once: random access is needed later
+                    List<TrackPoint> track = new ArrayList<>(vw.getGroundTrack());
+                    passes.add(new PassEntry(stationIndex, orbitIndex, vw, track, trackOffset));
+                    trackOffset += track.size();
+                }
+            }
+        }
+        return passes;
+    }
+
+    private boolean writeCsv(List<PassEntry> passes, Path outputFile, Path trackFile, ITaskProgressMonitor monitor) throws IOException {
+        long totalProgress = passes.size() * (trackFile != null ? 2L : 1L);
+        long progress = 0;
+        try (BufferedChannelWriter writer = new BufferedChannelWriter(outputFile)) {
+            for(PassEntry pe : passes) {
+                writer.write(pe.window.toVisibilityInfoCsv());
+                monitor.progress(++progress, totalProgress, "Visibility window " + progress + "/" + passes.size() + " written");
+                if(monitor.isCancelled()) {
+                    return false;
+                }
+            }
+        }
+        if(trackFile != null) {
+            try (BufferedChannelWriter writer = new BufferedChannelWriter(trackFile)) {
+                writer.write(VisibilityWindow.GROUND_TRACK_CSV_HEADER);
+                StringBuilder sb = new StringBuilder();
+                for(PassEntry pe : passes) {
+                    sb.setLength(0);
+                    pe.window.appendGroundTrackingInfoCsv(sb);
+                    writer.write(sb.toString());
+                    monitor.progress(++progress, totalProgress, "Ground track " + (progress - passes.size()) + "/" + passes.size() + " written");
+                    if(monitor.isCancelled()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Path deriveTrackFilePath(Path outputFile) {
+        String fileName = outputFile.getFileName().toString();
+        int extIdx = fileName.lastIndexOf('.');
+        String trackFileName = extIdx > 0 ? fileName.substring(0, extIdx) + "_tracks" + fileName.substring(extIdx) : fileName + "_tracks";
+        return outputFile.resolveSibling(trackFileName);
+    }
+
+    private boolean writeBinary(VisibilityExportRequest request, List<PassEntry> passes, Path outputFile, ITaskProgressMonitor monitor) throws IOException {
+        // Build the dictionaries, only with the stations and orbits referenced by the passes
+        Map<Integer, Integer> stationDictionary = new LinkedHashMap<>();
+        Map<Integer, Integer> orbitDictionary = new LinkedHashMap<>();
+        List<String> stationCodeList = new ArrayList<>();
+        List<String> stationNameList = new ArrayList<>();
+        List<String> orbitCodeList = new ArrayList<>();
+        List<String> orbitNameList = new ArrayList<>();
+        int[] passStations = new int[passes.size()];
+        int[] passOrbits = new int[passes.size()];
+        for(int i = 0; i < passes.size(); ++i) {
+            PassEntry pe = passes.get(i);
+            passStations[i] = stationDictionary.computeIfAbsent(pe.stationIndex, k -> {
+                stationCodeList.add(pe.window.getStation().getCode());
+                stationNameList.add(pe.window.getStation().getName());
+                return stationCodeList.size() - 1;
+            });
+            passOrbits[i] = orbitDictionary.computeIfAbsent(pe.orbitIndex, k -> {
+                orbitCodeList.add(pe.window.getOrbit().getCode());
+                orbitNameList.add(pe.window.getOrbit().getName());
+                return orbitCodeList.size() - 1;
+            });
+        }
+        String[] stationCodes = stationCodeList.toArray(new String[0]);
+        String[] stationNames = stationNameList.toArray(new String[0]);
+        String[] orbitCodes = orbitCodeList.toArray(new String[0]);
+        String[] orbitNames = orbitNameList.toArray(new String[0]);
+        // Define the tables
+        List<Table> tables = new ArrayList<>(4);
+        tables.add(new Table("STATION", stationCodes.length, List.of(
+                new StringColumn("CODE", stationCodes),
+                new StringColumn("NAME", stationNames))));
+        tables.add(new Table("ORBIT", orbitCodes.length, List.of(
+                new StringColumn("CODE", orbitCodes),
+                new StringColumn("NAME", orbitNames))));
+        int rows = passes.size();
+        tables.add(new Table("PASS", rows, List.of(
+                new Int32Column("STATION", rows, i -> passStations[i]),
+                new Int32Column("ORBIT", rows, i -> passOrbits[i]),
+                new Int32Column("ORBIT_NUMBER", rows, i -> passes.get(i).window.getOrbitNumber()),
+                new Int64Column("AOS", rows, i -> toMillis(passes.get(i).window.getAos())),
+                new Int64Column("LOS", rows, i -> toMillis(passes.get(i).window.getLos())),
+                new Float64Column("AOS_EL", rows, i -> passes.get(i).track.isEmpty() ? Double.NaN : passes.get(i).first().getElevation()),
+                new Float64Column("AOS_AZ", rows, i -> passes.get(i).track.isEmpty() ? Double.NaN : passes.get(i).first().getAzimuth()),
+                new Float64Column("LOS_EL", rows, i -> passes.get(i).track.isEmpty() ? Double.NaN : passes.get(i).last().getElevation()),
+                new Float64Column("LOS_AZ", rows, i -> passes.get(i).track.isEmpty() ? Double.NaN : passes.get(i).last().getAzimuth()),
+                new Int64Column("TRACK_OFFSET", rows, i -> passes.get(i).trackOffset),
+                new Int32Column("TRACK_COUNT", rows, i -> passes.get(i).track.size()))));
+        if(request.isIncludeGroundTracks()) {
+            // Flatten the ground tracks, so that columns can be written sequentially
+            List<TrackPoint> points = new ArrayList<>();
+            for(PassEntry pe : passes) {
+                points.addAll(pe.track);
+            }
+            int trackRows = points.size();
+            tables.add(new Table("TRACK", trackRows, List.of(
+                    new Int64Column("TIME", trackRows, i -> points.get(i).getTime().getTime()),
+                    new Float64Column("EL", trackRows, i -> points.get(i).getElevation()),
+                    new Float64Column("AZ", trackRows, i -> points.get(i).getAzimuth()),
+                    new Float64Column("RANGE", trackRows, i -> points.get(i).getRange()),
+                    new Float64Column("DOPPLER", trackRows, i -> points.get(i).getDoppler()))));
+        }
+        // Compute the layout: the header size does not depend on the offset values
+        long headerSize = align(serialiseHeader(tables).length);
+        long offset = headerSize;
+        for(Table t : tables) {
+            for(Column c : t.columns) {
+                c.offset = offset;
+                offset = align(offset + c.length());
+            }
+        }
+        long totalProgress = tables.stream().mapToLong(t -> t.columns.size()).sum();
+        long progress = 0;
+        try (BufferedChannelWriter writer = new BufferedChannelWriter(outputFile)) {
+            byte[] header = serialiseHeader(tables);
+            writer.write(header);
+            long position = writePadding(writer, header.length);
+            for(Table t : tables) {
+                for(Column c : t.columns) {
+                    c.write(writer);
+                    position = writePadding(writer, position + c.length());
+                    monitor.progress(++progress, totalProgress, "Column " + t.name + "." + c.name + " written");
+                    if(monitor.isCancelled()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long toMillis(Date d) {
+        return d == null ? Long.MIN_VALUE : d.getTime();
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static long writePadding(BufferedChannelWriter writer, long position) throws IOException {
+        long aligned = align(position);
+        for(long i = position; i < aligned; ++i) {
+            writer.buffer(1).put((byte) 0);
+        }
+        return aligned;
+    }
+
+    private static byte[] serialiseHeader(List<Table> tables) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.write(MAGIC_NUMBER);
+        dos.writeInt(FORMAT_VERSION);
+        dos.writeLong(System.currentTimeMillis());
+        dos.writeInt(tables.size());
+        for(Table t : tables) {
+            dos.writeUTF(t.name);
+            dos.writeLong(t.rows);
+            dos.writeInt(t.columns.size());
+            for(Column c : t.columns) {
+                dos.writeUTF(c.name);
+                dos.writeByte(c.type.getCode());
+                dos.writeLong(c.offset);
+                dos.writeLong(c.length());
+            }
+        }
+        dos.flush();
+        return bos.toByteArray();
+    }
+
+    private static class PassEntry {
+        private final int stationIndex;
+        private final int orbitIndex;
+        private final VisibilityWindow window;
+        private final List<TrackPoint> track;
+        private final long trackOffset;
+
+        public PassEntry(int stationIndex, int orbitIndex, VisibilityWindow window, List<TrackPoint> track, long trackOffset) {
+            this.stationIndex = stationIndex;
+            this.orbitIndex = orbitIndex;
+            this.window = window;
+            this.track = track;
+            this.trackOffset = trackOffset;
+        }
+
+        public TrackPoint first() {
+            return track.get(0);
+        }
+
+        public TrackPoint last() {
+            return track.get(track.size() - 1);
+        }
+    }
+
+    private static class Table {
+        private final String name;
+        private final long rows;
+        private final List<Column> columns;
+
+        public Table(String name, long rows, List<Column> columns) {
+            this.name = name;
+            this.rows = rows;
+            this.columns = columns;
+        }
+    }
+
+    private abstract static class Column {
+        protected final String name;
+        protected final ColumnType type;
+        protected long offset;
+
+        protected Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public abstract long length();
+
+        public abstract void write(BufferedChannelWriter writer) throws IOException;
+    }
+
+    private static class Int32Column extends Column {
+        private final int rows;
+        private final IntUnaryOperator valueFunction;
+
+        public Int32Column(String name, int rows, IntUnaryOperator valueFunction) {
+            super(name, ColumnType.INT32);
+            this.rows = rows;
+            this.valueFunction = valueFunction;
+        }
+
+        @Override
+        public long length() {
+            return rows * (long) Integer.BYTES;
+        }
+
+        @Override
+        public void write(BufferedChannelWriter writer) throws IOException {
+            for(int i = 0; i < rows; ++i) {
+                writer.buffer(Integer.BYTES).putInt(valueFunction.applyAsInt(i));
+            }
+        }
+    }
+
+    private static class Int64Column extends Column {
+        private final int rows;
+        private final IntToLongFunction valueFunction;
+
+        public Int64Column(String name, int rows, IntToLongFunction valueFunction) {
+            super(name, ColumnType.INT64);
+            this.rows = rows;
+            this.valueFunction = valueFunction;
+        }
+
+        @Override
+        public long length() {
+            return rows * (long) Long.BYTES;
+        }
+
+        @Override
+        public void write(BufferedChannelWriter writer) throws IOException {
+            for(int i = 0; i < rows; ++i) {
+                writer.buffer(Long.BYTES).putLong(valueFunction.applyAsLong(i));
+            }
+        }
+    }
+
+    private static class Float64Column extends Column {
+        private final int rows;
+        private final IntToDoubleFunction valueFunction;
+
+        public Float64Column(String name, int rows, IntToDoubleFunction valueFunction) {
+            super(name, ColumnType.FLOAT64);
+            this.rows = rows;
+            this.valueFunction = valueFunction;
+        }
+
+        @Override
+        public long length() {
+            return rows * (long) Double.BYTES;
+        }
+
+        @Override
+        public void write(BufferedChannelWriter writer) throws IOException {
+            for(int i = 0; i < rows; ++i) {
+                writer.buffer(Double.BYTES).putDouble(valueFunction.applyAsDouble(i));
+            }
+        }
+    }
+
+    private static class StringColumn extends Column {
+        private final byte[][] values;
+        private final long dataLength;
+
+        public StringColumn(String name, String[] values) {
+            super(name, ColumnType.STRING);
+            this.values = new byte[values.length][];
+            long len = 0;
+            for(int i = 0; i < values.length; ++i) {
+                this.values[i] = values[i] == null ? new byte[0] : values[i].getBytes(StandardCharsets.UTF_8);
+                len += this.values[i].length;
+            }
+            this.dataLength = len;
+        }
+
+        @Override
+        public long length() {
+            return (values.length + 1L) * Integer.BYTES + dataLength;
+        }
+
+        @Override
+        public void write(BufferedChannelWriter writer) throws IOException {
+            // Offsets first, then the string data
+            int currentOffset = 0;
+            for(byte[] value : values) {
+                writer.buffer(Integer.BYTES).putInt(currentOffset);
+                currentOffset += value.length;
+            }
+            writer.buffer(Integer.BYTES).putInt(currentOffset);
+            for(byte[] value : values) {
+                writer.write(value);
+            }
+        }
+    }
+}
@@ -42,6 +42,8 @@ public class VisibilityWindow implements Comparable<VisibilityWindow> {
 
     private final UUID id;
 
+    public static final String GROUND_TRACK_CSV_HEADER = "GS CODE,ORBIT CODE,ORBIT NUMBER,TIME,EL (deg),AZ (deg),RANGE (m),DOPPLER (m/s)\n";
+
     VisibilityWindow(Orbit orbit, int orbitNumber, Date aos, Date los, GroundStation station) {
         this(orbit, orbitNumber, aos, los, station, Collections.emptyList());
     }
@@ -202,37 +204,50 @@ public class VisibilityWindow implements Comparable<VisibilityWindow> {
     }
 
     public void exportVisibilityInfoTo(OutputStream outputStream) throws IOException {
+        outputStream.write(toVisibilityInfoCsv().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void exportGroundTrackingInfoTo(OutputStream outputStream) throws IOException {
+        // CVS format: gs code, orbit code, orbit number, Time, EL, AZ, doppler
+        outputStream.write(GROUND_TRACK_CSV_HEADER.getBytes(StandardCharsets.UTF_8));
         StringBuilder sb = new StringBuilder();
+        appendGroundTrackingInfoCsv(sb);
+        outputStream.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    String toVisibilityInfoCsv() {
+        // Retrieve the track once
+        List<TrackPoint> track = this.azimuthElevationTrack;
+        TrackPoint first = track.isEmpty() ? null : track.get(0);
+        TrackPoint last = track.isEmpty() ? null : track.get(track.size() - 1);
+        StringBuilder sb = new StringBuilder(128);
         // CVS format: gs code, orbit code, orbit number, AOS, AOS EL, AOS AZ, LOS, LOS EL, LOS AZ
         sb.append(station.getCode().replace(',', '_')).append(",");
         sb.append(orbit.getCode().replace(',', '_')).append(",");
         sb.append(orbitNumber).append(",");
-        sb.append(TimeUtils.formatDate(getGroundTrack().get(0).getTime())).append(",");
-        sb.append(getGroundTrack().get(0).getElevation()).append(",");
-        sb.append(getGroundTrack().get(0).getAzimuth()).append(",");
-        sb.append(TimeUtils.formatDate(getGroundTrack().get(getGroundTrack().size() - 1).getTime())).append(",");
-        sb.append(getGroundTrack().get(getGroundTrack().size() - 1).getElevation()).append(",");
-        sb.append(getGroundTrack().get(getGroundTrack().size() - 1).getAzimuth());
+        sb.append(first != null ? TimeUtils.formatDate(first.getTime()) : getAosString()).append(",");
+        sb.append(first != null ? first.getElevation() : Double.NaN).append(",");
+        sb.append(first != null ? first.getAzimuth() : Double.NaN).append(",");
+        sb.append(last != null ? TimeUtils.formatDate(last.getTime()) : getLosString()).append(",");
+        sb.append(last != null ? last.getElevation() : Double.NaN).append(",");
+        sb.append(last != null ? last.getAzimuth() : Double.NaN);
         sb.append("\n");
-        outputStream.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return sb.toString();
     }
 
-    public void exportGroundTrackingInfoTo(OutputStream outputStream) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        // CVS format: gs code, orbit code, orbit number, Time, EL, AZ, doppler
-        outputStream.write("GS CODE,ORBIT CODE,ORBIT NUMBER,TIME,EL (deg),AZ (deg),RANGE (m),DOPPLER (m/s)\n".getBytes(StandardCharsets.UTF_8));
-        for(int i = 0; i < getGroundTrack().size(); ++i) {
-            sb.append(station.getCode().replace(',', '_')).append(",");
-            sb.append(orbit.getCode().replace(',', '_')).append(",");
+    void appendGroundTrackingInfoCsv(StringBuilder sb) {
+        String stationCode = station.getCode().replace(',', '_');
+        String orbitCode = orbit.getCode().replace(',', '_');
+        for(TrackPoint tp : this.azimuthElevationTrack) {
+            sb.append(stationCode).append(",");
+            sb.append(orbitCode).append(",");
             sb.append(orbitNumber).append(",");
-            sb.append(TimeUtils.formatDate(getGroundTrack().get(i).getTime())).append(",");
-            sb.append(getGroundTrack().get(i).getElevation()).append(",");
-            sb.append(getGroundTrack().get(i).getAzimuth()).append(",");
-            sb.append(getGroundTrack().get(i).getRange()).append(",");
-            sb.append(getGroundTrack().get(i).getDoppler());
+            sb.append(TimeUtils.formatDate(tp.getTime())).append(",");
+            sb.append(tp.getElevation()).append(",");
+            sb.append(tp.getAzimuth()).append(",");
+            sb.append(tp.getRange()).append(",");
+            sb.append(tp.getDoppler());
             sb.append("\n");
-            outputStream.write(sb.toString().getBytes(StandardCharsets.UTF_8));
-            sb = new StringBuilder();
         }
     }
 
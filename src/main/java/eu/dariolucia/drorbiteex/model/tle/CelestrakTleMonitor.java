@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.tle;
+
+import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleOrbitModel;
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.orbit.OrbitManager;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.TimeScalesFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background monitor of the TLE epoch age of the orbits using a {@link CelestrakTleOrbitModel}. Periodically, the
+ * orbits whose TLE epoch is older than the configured maximum age are refreshed from Celestrak: the groups of such
+ * orbits are retrieved with bounded concurrency, and only the orbits whose TLE epoch advanced are updated (and
+ * therefore recomputed).
+ */
+public class CelestrakTleMonitor {
+
+    private static final Logger LOG = Logger.getLogger(CelestrakTleMonitor.class.getName());
+
+    // Delay of the first check: stale orbits are refreshed shortly after the application start
+    private static final long MAX_INITIAL_DELAY_MILLIS = 60000;
+
+    private final OrbitManager orbitManager;
+    private final int maxConcurrentGroups;
+    private volatile long maxEpochAgeMillis;
+
+    private final Map<UUID, Date> orbitEpochs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService fetchService;
+    // Orbit updates are applied by the thread owning the model
+    private volatile Executor updateExecutor = Runnable::run;
+
+    /**
+     * Create the monitor. The monitor must be started with {@link CelestrakTleMonitor#start(long, long)}.
+     *
+     * @param orbitManager the orbit manager
+     * @param maxConcurrentGroups the maximum number of Celestrak groups retrieved at the same time
+     */
+    public CelestrakTleMonitor(OrbitManager orbitManager, int maxConcurrentGroups) {
+        this.orbitManager = orbitManager;
+        this.maxConcurrentGroups = Math.max(1, maxConcurrentGroups);
+    }
+
+    /**
+     * Set the executor used to apply the orbit updates, i.e. the thread that owns the orbit model. If not set, the
+     * updates are applied by the monitor thread.
+     *
+     * @param updateExecutor the executor
+     */
+    public void setUpdateExecutor(Executor updateExecutor) {
+        this.updateExecutor = updateExecutor != null ? updateExecutor : Runnable::run;
+    }
+
+    /**
+     * Start the periodic checks. If the monitor is already running, it is restarted with the new settings.
+     *
+     * @param checkPeriodMillis the period between two checks of the TLE epochs, in milliseconds
+     * @param maxEpochAgeMillis the age of the TLE epoch after which an orbit is refreshed, in milliseconds
+     */
+    public synchronized void start(long checkPeriodMillis, long maxEpochAgeMillis) {
+        if(checkPeriodMillis <= 0 || maxEpochAgeMillis <= 0) {
+            throw new IllegalArgumentException("Check period and maximum epoch age must be positive");
+        }
+        stop();
+        this.maxEpochAgeMillis = maxEpochAgeMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread t = new Thread(r, "Celestrak TLE Monitor Task");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        this.fetchService = Executors.newFixedThreadPool(this.maxConcurrentGroups, (r) -> {
+            Thread t = new Thread(r, "Celestrak TLE Monitor Fetch Task");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::checkSafely, Math.min(MAX_INITIAL_DELAY_MILLIS, checkPeriodMillis), checkPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized boolean isRunning() {
+        return this.scheduler != null;
+    }
+
+    public synchronized void stop() {
+        if(this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.fetchService.shutdownNow();
+            this.scheduler = null;
+            this.fetchService = null;
+        }
+    }
+
+    /**
+     * Return the age of the TLE epoch of the monitored orbits, as computed in the last check.
+     *
+     * @return the map orbit ID to TLE epoch age in milliseconds
+     */
+    public Map<UUID, Long> getEpochAges() {
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> ages = new HashMap<>();
+        this.orbitEpochs.forEach((id, epoch) -> ages.put(id, now - epoch.getTime()));
+        return ages;
+    }
+
+    private void checkSafely() {
+        try {
+            check();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Celestrak TLE check failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check the TLE epoch of the Celestrak orbits and refresh the stale ones.
+     *
+     * @return the number of updated orbits
+     * @throws InterruptedException if interrupted while waiting for the Celestrak groups
+     */
+    public int check() throws InterruptedException {
+        ExecutorService service;
+        synchronized (this) {
+            service = this.fetchService;
+        }
+        if(service == null) {
+            throw new IllegalStateException("Monitor not started");
+        }
+        // Track the TLE epoch of the Celestrak orbits and select the stale ones
+        long now = System.currentTimeMillis();
+        List<Orbit> staleOrbits = new LinkedList<>();
+        Set<UUID> monitored = new HashSet<>();
+        for(Orbit orbit : this.orbitManager.getOrbits()) {
+            if(orbit.getModel() instanceof CelestrakTleOrbitModel) {
+                TLE tle = ((CelestrakTleOrbitModel) orbit.getModel()).getTleObject();
+                if(tle == null) {
+                    continue;
+                }
+                Date epoch = tle.getDate().toDate(TimeScalesFactory.getUTC());
+                this.orbitEpochs.put(orbit.getId(), epoch);
+                monitored.add(orbit.getId());
+                if(now - epoch.getTime() > this.maxEpochAgeMillis) {
+                    staleOrbits.add(orbit);
+                }
+            }
+        }
+        this.orbitEpochs.keySet().retainAll(monitored);
+        if(staleOrbits.isEmpty()) {
+            return 0;
+        }
+        // Retrieve the groups of the stale orbits, at most maxConcurrentGroups at a time
+        Map<String, List<Orbit>> group2orbits = CelestrakTleRefresher.groupByCelestrakGroup(staleOrbits);
+        Map<String, Future<TleCatalogue>> group2catalogue = new LinkedHashMap<>();
+        for(String group : group2orbits.keySet()) {
+            group2catalogue.put(group, service.submit(() -> CelestrakTleRefresher.retrieveCatalogue(group)));
+        }
+        // Update only the orbits whose epoch advanced
+        int updated = 0;
+        for(Map.Entry<String, Future<TleCatalogue>> e : group2catalogue.entrySet()) {
+            TleCatalogue catalogue;
+            try {
+                catalogue = e.getValue().get();
+            } catch (ExecutionException ex) {
+                catalogue = null;
+            }
+            if(catalogue == null) {
+                continue;
+            }
+            // The orbit recomputation must not run concurrently with the other model updates
+            final TleCatalogue groupCatalogue = catalogue;
+            final List<Orbit> groupOrbits = group2orbits.get(e.getKey());
+            Future<Integer> groupUpdate = CompletableFuture.supplyAsync(() -> {
+                int groupUpdated = 0;
+                for(Orbit orbit : groupOrbits) {
+                    if(CelestrakTleRefresher.refreshOrbit(orbit, groupCatalogue)) {
+                        this.orbitEpochs.put(orbit.getId(), ((CelestrakTleOrbitModel) orbit.getModel()).getTleObject().getDate().toDate(TimeScalesFactory.getUTC()));
+                        ++groupUpdated;
+                    }
+                }
+                return groupUpdated;
+            }, this.updateExecutor);
+            try {
+                updated += groupUpdate.get();
+            } catch (ExecutionException ex) {
+                LOG.log(Level.WARNING, "Orbits of Celestrak group " + e.getKey() + " not updated: " + ex.getCause().getMessage(), ex.getCause());
+            }
+        }
+        LOG.log(Level.INFO, "Celestrak TLE check: " + monitored.size() + " orbits monitored, " + staleOrbits.size() + " stale, " + updated + " updated");
+        return updated;
+    }
+}
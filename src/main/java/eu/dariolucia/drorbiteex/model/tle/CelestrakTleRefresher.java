@@ -1,11 +1,15 @@
 package eu.dariolucia.drorbiteex.model.tle;
 
-import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleData;
+import eu.dariolucia.drorbiteex.model.orbit.CelestrakCatalogueCache;
 import eu.dariolucia.drorbiteex.model.orbit.CelestrakTleOrbitModel;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.orbit.TleCatalogue;
 import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,25 +23,79 @@ public class CelestrakTleRefresher {
         int progress = 0;
         monitor.progress(progress, toRefresh.size(), "");
 
-        for(Orbit orbit : toRefresh) {
-            try {
-                final CelestrakTleOrbitModel theOrbit = (CelestrakTleOrbitModel) orbit.getModel();
-                String newTle = CelestrakTleData.retrieveUpdatedTle(theOrbit.getGroup(), theOrbit.getCelestrakName());
+        // One catalogue retrieval per group
+        Map<String, List<Orbit>> group2orbits = groupByCelestrakGroup(toRefresh);
+        for(Map.Entry<String, List<Orbit>> e : group2orbits.entrySet()) {
+            if(monitor.isCancelled()) {
+                break;
+            }
+            TleCatalogue catalogue = retrieveCatalogue(e.getKey());
+            for(Orbit orbit : e.getValue()) {
                 if(monitor.isCancelled()) {
                     break;
                 }
-                if (newTle != null) {
-                    CelestrakTleOrbitModel model = new CelestrakTleOrbitModel(theOrbit.getGroup(), theOrbit.getCelestrakName(), newTle);
-                    orbit.update(new Orbit(orbit.getId(), orbit.getCode(), orbit.getName(), orbit.getColor(), orbit.isVisible(), model));
-                    monitor.progress(++progress, toRefresh.size(), orbit.getName());
-                    LOG.log(Level.INFO, "Orbit " + orbit.getName() + " TLE model updated from Celestrak");
-                } else {
-                    LOG.log(Level.WARNING, "Orbit " + orbit.getName() + " TLE model not updated: no TLE could be retrieved from Celestrak");
+                if(catalogue != null) {
+                    refreshOrbit(orbit, catalogue);
                 }
-            } catch (Exception e) {
-                LOG.log(Level.WARNING, "Orbit " + orbit.getName() + " TLE model not updated: error during Celestrak update: " + e.getMessage(), e);
+                monitor.progress(++progress, toRefresh.size(), orbit.getName());
             }
         }
         return true;
     }
+
+    /**
+     * Group the orbits using a Celestrak model by Celestrak group. Other orbits are ignored.
+     *
+     * @param orbits the orbits
+     * @return the map group to orbits, in order of first appearance
+     */
+    static Map<String, List<Orbit>> groupByCelestrakGroup(List<Orbit> orbits) {
+        Map<String, List<Orbit>> group2orbits = new LinkedHashMap<>();
+        for(Orbit orbit : orbits) {
+            if(orbit.getModel() instanceof CelestrakTleOrbitModel) {
+                String group = ((CelestrakTleOrbitModel) orbit.getModel()).getGroup();
+                group2orbits.computeIfAbsent(group, g -> new LinkedList<>()).add(orbit);
+            }
+        }
+        return group2orbits;
+    }
+
+    static TleCatalogue retrieveCatalogue(String group) {
+        try {
+            return CelestrakCatalogueCache.getDefault().getCatalogue(group).getTleCatalogue();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Celestrak group " + group + " cannot be retrieved: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Update the model of the provided orbit with the TLE in the catalogue, if the TLE epoch is more recent than the
+     * one of the current model. Only in such case the orbit data is recomputed.
+     *
+     * @param orbit the orbit, using a {@link CelestrakTleOrbitModel}
+     * @param catalogue the catalogue of the orbit group
+     * @return true if the orbit was updated, otherwise false
+     */
+    static boolean refreshOrbit(Orbit orbit, TleCatalogue catalogue) {
+        try {
+            final CelestrakTleOrbitModel theOrbit = (CelestrakTleOrbitModel) orbit.getModel();
+            TleCatalogue.Entry newTle = catalogue.getByName(theOrbit.getCelestrakName());
+            if (newTle == null) {
+                LOG.log(Level.WARNING, "Orbit " + orbit.getName() + " TLE model not updated: no TLE could be retrieved from Celestrak");
+                return false;
+            }
+            if (theOrbit.getTleObject() != null && newTle.getTleObject().getDate().compareTo(theOrbit.getTleObject().getDate()) <= 0) {
+                LOG.log(Level.FINE, "Orbit " + orbit.getName() + " TLE model not updated: Celestrak TLE epoch not more recent");
+                return false;
+            }
+            CelestrakTleOrbitModel model = new CelestrakTleOrbitModel(theOrbit.getGroup(), theOrbit.getCelestrakName(), newTle.getTle(), newTle.getTleObject());
+            orbit.update(new Orbit(orbit.getId(), orbit.getCode(), orbit.getName(), orbit.getColor(), orbit.isVisible(), model));
+            LOG.log(Level.INFO, "Orbit " + orbit.getName() + " TLE model updated from Celestrak");
+            return true;
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Orbit " + orbit.getName() + " TLE model not updated: error during Celestrak update: " + e.getMessage(), e);
+            return false;
+        }
+    }
 }
@@ -18,20 +18,28 @@ package eu.dariolucia.drorbiteex.model.tle;
 
 import eu.dariolucia.drorbiteex.model.determination.TleOrbitDetermination;
 import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.orbit.TleOrbitModel;
 import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
 import eu.dariolucia.drorbiteex.model.util.TimeUtils;
-import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.orekit.estimation.leastsquares.BatchLSObserver;
+import org.orekit.estimation.measurements.AbstractMeasurement;
 import org.orekit.estimation.measurements.ObservableSatellite;
 import org.orekit.estimation.measurements.PV;
 import org.orekit.frames.Frame;
 import org.orekit.propagation.Propagator;
 import org.orekit.propagation.SpacecraftState;
 import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.propagation.analytical.tle.TLEPropagator;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.PVCoordinates;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,7 +52,23 @@ public class TleExporterProcess {
         // ---------------------------------------------------
         Orbit toPropagate = request.getOrbit().copy();
         AbsoluteDate startTime = TimeUtils.toAbsoluteDate(request.getStartTime());
-        TLE startingTLE = TleUtils.getTleFrom(request, toPropagate);
+        TLE warmStartTle = request.getWarmStartTle();
+        TLE startingTLE;
+        SpacecraftState initialState;
+        if(warmStartTle != null && !(toPropagate.getModel() instanceof TleOrbitModel)) {
+            // ---------------------------------------------------
+            // Warm start: use the mean elements of the provided TLE, with the identification data of the request
+            // ---------------------------------------------------
+            startingTLE = new TLE(request.getSatNumber(), request.getClassification(), request.getLaunchYear(), request.getLaunchNumber(),
+                    request.getLaunchPiece(), warmStartTle.getEphemerisType(), request.getElementNumber(), warmStartTle.getDate(),
+                    warmStartTle.getMeanMotion(), warmStartTle.getMeanMotionFirstDerivative(), warmStartTle.getMeanMotionSecondDerivative(),
+                    warmStartTle.getE(), warmStartTle.getI(), warmStartTle.getPerigeeArgument(), warmStartTle.getRaan(),
+                    warmStartTle.getMeanAnomaly(), request.getRevolutionNumberAtEpoch(), warmStartTle.getBStar());
+            initialState = TLEPropagator.selectExtrapolator(startingTLE).propagate(startTime);
+        } else {
+            startingTLE = TleUtils.getTleFrom(request, toPropagate);
+            initialState = toPropagate.getModel().getPropagator().propagate(startTime);
+        }
         // ---------------------------------------------------
         // Allocate the estimator
         // ---------------------------------------------------
@@ -52,31 +76,17 @@ public class TleExporterProcess {
         // ---------------------------------------------------
         // Compute the initial state
         // ---------------------------------------------------
-        Propagator p = toPropagate.getModel().getPropagator();
-        SpacecraftState initialState = p.propagate(startTime);
         estimator.initialise(initialState);
+        estimator.setRmsConvergenceThreshold(request.getRmsConvergenceThreshold());
         // ---------------------------------------------------
         // Add the measurements - Propagate and compute values
         // ---------------------------------------------------
-        ObservableSatellite os = estimator.getObservableSatellite();
-        Frame orbitFrame = estimator.getOrbitPropagatorFrame();
-        // Propagate the propagator until you can (7 days max), step 60 seconds
-        AbsoluteDate currentTime = startTime;
-        AbsoluteDate endTime = startTime.shiftedBy(3600 * 24 * 7.0);
-        while(currentTime.isBefore(endTime)) {
-            try {
-                SpacecraftState position = p.propagate(currentTime);
-                Vector3D newPosition = position.getPVCoordinates(orbitFrame).getPosition();
-                Vector3D newVelocity = position.getPVCoordinates(orbitFrame).getVelocity();
-                PV measurement = new PV(position.getDate(),newPosition, newVelocity,
-                        0.1, 0.1, 1.0, os);
-                estimator.addMeasurements(Collections.singletonList(measurement));
-                currentTime = currentTime.shiftedBy(60);
-            } catch (Exception e) {
-                // Stop propagation
-                LOG.log(Level.SEVERE, "TLE export for '" + request.getOrbit().getName() + "' raised error at time " + TimeUtils.formatDate(currentTime.toDate(TimeScalesFactory.getUTC())) + ": " + e.getMessage(), e);
-            }
+        monitor.progress(-1, 0, "Generating measurements...");
+        List<AbstractMeasurement<?>> measurements = generateMeasurements(request, startTime, estimator.getOrbitPropagatorFrame(), estimator.getObservableSatellite());
+        if(monitor.isCancelled()) {
+            return null;
         }
+        estimator.addMeasurements(measurements);
         // ---------------------------------------------------
         // Add the observer
         // ---------------------------------------------------
@@ -89,6 +99,60 @@ public class TleExporterProcess {
         return result.getTle().getLine1() + "\n" + result.getTle().getLine2();
     }
 
+    private List<AbstractMeasurement<?>> generateMeasurements(TleGenerationRequest request, AbsoluteDate startTime, Frame orbitFrame, ObservableSatellite os) {
+        // Propagate the propagator until you can (fit span max), step as per request. The span is split in chunks,
+        // one per thread, each chunk with its own propagator.
+        int step = Math.max(1, request.getMeasurementStepSeconds());
+        int numSamples = (int) Math.ceil(request.getFitSpanSeconds() / (double) step);
+        int threadsToUse = Math.max(1, Math.min(request.getCores(), numSamples));
+        int samplesPerChunk = (int) Math.ceil(numSamples / (double) threadsToUse);
+        ExecutorService service = Executors.newFixedThreadPool(threadsToUse, (r) -> {
+            Thread t = new Thread(r, "TLE Measurement Generation Task");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<List<PV>>> futures = new ArrayList<>(threadsToUse);
+        for(int i = 0; i < numSamples; i += samplesPerChunk) {
+            int firstSample = i;
+            int lastSample = Math.min(i + samplesPerChunk, numSamples);
+            futures.add(service.submit(() -> generateMeasurements(request, startTime, firstSample, lastSample, step, orbitFrame, os)));
+        }
+        service.shutdown();
+        // Collect in time order
+        List<AbstractMeasurement<?>> measurements = new ArrayList<>(numSamples);
+        for(Future<List<PV>> f : futures) {
+            try {
+                measurements.addAll(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                service.shutdownNow();
+                break;
+            } catch (ExecutionException e) {
+                LOG.log(Level.SEVERE, "TLE export for '" + request.getOrbit().getName() + "' raised error during measurement generation: " + e.getMessage(), e);
+            }
+        }
+        return measurements;
+    }
+
+    private List<PV> generateMeasurements(TleGenerationRequest request, AbsoluteDate startTime, int firstSample, int lastSample, int step, Frame orbitFrame, ObservableSatellite os) {
+        Propagator p = request.getOrbit().copy().getModel().getPropagator();
+        List<PV> measurements = new ArrayList<>(lastSample - firstSample);
+        for(int i = firstSample; i < lastSample; ++i) {
+            AbsoluteDate currentTime = startTime.shiftedBy((double) i * step);
+            try {
+                SpacecraftState position = p.propagate(currentTime);
+                PVCoordinates pv = position.getPVCoordinates(orbitFrame);
+                measurements.add(new PV(position.getDate(), pv.getPosition(), pv.getVelocity(),
+                        0.1, 0.1, 1.0, os));
+            } catch (Exception e) {
+                // Stop propagation
+                LOG.log(Level.SEVERE, "TLE export for '" + request.getOrbit().getName() + "' raised error at time " + TimeUtils.formatDate(currentTime.toDate(TimeScalesFactory.getUTC())) + ": " + e.getMessage(), e);
+                break;
+            }
+        }
+        return measurements;
+    }
+
     private BatchLSObserver buildTaskMonitorWrapper(ITaskProgressMonitor monitor) {
         return (iterationsCount, evaluationsCount, orbits, estimatedOrbitalParameters, estimatedPropagatorParameters, estimatedMeasurementsParameters, evaluationsProvider, lspEvaluation) -> {
             String message = "Iterations: " + iterationsCount + "/" + TleOrbitDetermination.ESTIMATOR_MAX_ITERATIONS +
@@ -25,6 +25,13 @@ import java.util.Date;
 
 public class TleGenerationRequest {
 
+    public static final int DEFAULT_FIT_SPAN_SECONDS = 3600 * 24 * 7;
+    public static final int DEFAULT_MEASUREMENT_STEP_SECONDS = 60;
+    /**
+     * Suggested RMS convergence threshold, to be explicitly requested: by default, early exit is disabled.
+     */
+    public static final double SUGGESTED_RMS_CONVERGENCE_THRESHOLD = 1e-4;
+
     public static TleGenerationRequest fromOrbit(Orbit orbit) {
         TLE initialTle = null;
         if(orbit.getModel() instanceof TleOrbitModel) {
@@ -50,8 +57,32 @@ public class TleGenerationRequest {
     private final Date epoch;
     private final int elementNumber;
 
+    private final int fitSpanSeconds;
+    private final int measurementStepSeconds;
+    private final int cores;
+    private final double rmsConvergenceThreshold;
+    private final TLE warmStartTle;
+
     public TleGenerationRequest(Orbit orbit, Date startTime,
                                 int satNumber, char classification, int launchYear, int launchNumber, String launchPiece, Date epoch, int revolutionNumberAtEpoch, int elementNumber) {
+        this(orbit, startTime, satNumber, classification, launchYear, launchNumber, launchPiece, epoch, revolutionNumberAtEpoch, elementNumber,
+                DEFAULT_FIT_SPAN_SECONDS, DEFAULT_MEASUREMENT_STEP_SECONDS, Runtime.getRuntime().availableProcessors(), 0, null);
+    }
+
+    /**
+     * Constructor with fitting configuration.
+     *
+     * @param fitSpanSeconds duration of the span, from the start time, covered by the PV measurements used for the fit
+     * @param measurementStepSeconds time between two consecutive PV measurements
+     * @param cores number of threads used to generate the measurements
+     * @param rmsConvergenceThreshold the fit stops when the relative improvement of the RMS between two iterations is
+     *                                below this value (0 to disable)
+     * @param warmStartTle TLE used as initial guess of the fit, e.g. the TLE previously generated from the same orbit
+     *                     model (can be null)
+     */
+    public TleGenerationRequest(Orbit orbit, Date startTime,
+                                int satNumber, char classification, int launchYear, int launchNumber, String launchPiece, Date epoch, int revolutionNumberAtEpoch, int elementNumber,
+                                int fitSpanSeconds, int measurementStepSeconds, int cores, double rmsConvergenceThreshold, TLE warmStartTle) {
         this.orbit = orbit;
         this.startTime = startTime;
         this.satNumber = satNumber;
@@ -62,6 +93,11 @@ public class TleGenerationRequest {
         this.epoch = epoch;
         this.revolutionNumberAtEpoch = revolutionNumberAtEpoch;
         this.elementNumber = elementNumber;
+        this.fitSpanSeconds = fitSpanSeconds;
+        this.measurementStepSeconds = measurementStepSeconds;
+        this.cores = cores;
+        this.rmsConvergenceThreshold = rmsConvergenceThreshold;
+        this.warmStartTle = warmStartTle;
     }
 
     public Orbit getOrbit() {
@@ -103,4 +139,24 @@ public class TleGenerationRequest {
     public Date getEpoch() {
         return epoch;
     }
+
+    public int getFitSpanSeconds() {
+        return fitSpanSeconds;
+    }
+
+    public int getMeasurementStepSeconds() {
+        return measurementStepSeconds;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public double getRmsConvergenceThreshold() {
+        return rmsConvergenceThreshold;
+    }
+
+    public TLE getWarmStartTle() {
+        return warmStartTle;
+    }
 }
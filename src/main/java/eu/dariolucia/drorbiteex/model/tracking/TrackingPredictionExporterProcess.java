@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.tracking;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.station.GroundStation;
+import eu.dariolucia.drorbiteex.model.station.VisibilityWindow;
+import eu.dariolucia.drorbiteex.model.util.BufferedChannelWriter;
+import eu.dariolucia.drorbiteex.model.util.ITaskProgressMonitor;
+import eu.dariolucia.drorbiteex.model.util.TimeUtils;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.ode.events.Action;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.propagation.Propagator;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.propagation.events.ElevationDetector;
+import org.orekit.propagation.events.EventDetector;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.PVCoordinates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generator of predicted antenna pointing data (azimuth, elevation, range, range-rate) for all the passes of a set of
+ * orbits over a ground station. Passes are first detected (one task per orbit), then sampled at the requested interval
+ * (one task per pass). Pass data are written in AOS order through a buffered file channel as soon as they are
+ * available, keeping only a limited number of computed passes in memory.
+ */
+public class TrackingPredictionExporterProcess {
+
+    private static final Logger LOG = Logger.getLogger(TrackingPredictionExporterProcess.class.getName());
+
+    private static final double MAX_CHECK = 60.0;
+    private static final double THRESHOLD =  0.001;
+
+    private static final DateTimeFormatter CCSDS_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter CSV_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    // Propagators are not thread-safe: each thread uses its own copy of the orbit propagators
+    private final ThreadLocal<Map<UUID, Orbit>> threadOrbits = ThreadLocal.withInitial(HashMap::new);
+
+    public String exportTrackingPrediction(TrackingPredictionRequest request, ITaskProgressMonitor monitor) throws IOException {
+        if(monitor == null) {
+            monitor = ITaskProgressMonitor.DUMMY_MONITOR;
+        }
+        if(monitor.isCancelled()) {
+            return null;
+        }
+        GroundStation station = request.getGroundStation();
+        TopocentricFrame stationFrame = station.getStationFrame();
+        double elevationThreshold = Math.toRadians(station.getConfiguration().getElevationThreshold());
+        AbsoluteDate startDate = TimeUtils.toAbsoluteDate(request.getStartTime());
+        AbsoluteDate endDate = TimeUtils.toAbsoluteDate(request.getEndTime());
+
+        int threadsToUse = Math.max(1, request.getCores());
+        ExecutorService service = Executors.newFixedThreadPool(threadsToUse, (r) -> {
+            Thread t = new Thread(r, "Tracking Prediction Task");
+            t.setDaemon(true);
+            return t;
+        });
+        Path outputFile = Paths.get(request.getFilePath());
+        boolean opened = false;
+        boolean completed = false;
+        try {
+            // ---------------------------------------------------
+            // Pass detection: one task per orbit
+            // ---------------------------------------------------
+            monitor.progress(-1, -1, "Detecting passes of " + request.getOrbits().size() + " orbits...");
+            List<Future<List<Pass>>> passFutures = new ArrayList<>(request.getOrbits().size());
+            for(Orbit orbit : request.getOrbits()) {
+                passFutures.add(service.submit(() -> detectPasses(orbit, stationFrame, elevationThreshold, startDate, endDate)));
+            }
+            List<Pass> passes = new ArrayList<>();
+            for(Future<List<Pass>> f : passFutures) {
+                passes.addAll(f.get());
+                if(monitor.isCancelled()) {
+                    return null;
+                }
+            }
+            passes.sort(Comparator.comparing((Pass p) -> p.aos).thenComparing(p -> p.orbit.getCode()));
+            // ---------------------------------------------------
+            // Pass sampling: one task per pass, written in order
+            // ---------------------------------------------------
+            long totalProgress = passes.size();
+            long progress = 0;
+            monitor.progress(progress, totalProgress, passes.size() + " passes detected");
+            try (BufferedChannelWriter writer = new BufferedChannelWriter(outputFile)) {
+                opened = true;
+                writer.write(generateHeader(request));
+                Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+                int maxInFlight = 2 * threadsToUse;
+                for(Pass pass : passes) {
+                    inFlight.add(service.submit(() -> samplePass(request, stationFrame, pass)));
+                    if(inFlight.size() >= maxInFlight) {
+                        writer.write(inFlight.removeFirst().get());
+                        monitor.progress(++progress, totalProgress, "Pass " + progress + "/" + totalProgress + " written");
+                    }
+                    if(monitor.isCancelled()) {
+                        return null;
+                    }
+                }
+                while(!inFlight.isEmpty()) {
+                    writer.write(inFlight.removeFirst().get());
+                    monitor.progress(++progress, totalProgress, "Pass " + progress + "/" + totalProgress + " written");
+                    if(monitor.isCancelled()) {
+                        return null;
+                    }
+                }
+            }
+            completed = true;
+            return outputFile.toAbsolutePath().toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            LOG.log(Level.SEVERE, "Tracking prediction for '" + station.getName() + "' raised error: " + e.getMessage(), e);
+            throw new IOException(e.getCause());
+        } finally {
+            service.shutdownNow();
+            if(opened && !completed) {
+                // Remove the partially generated file (a file already present is left untouched if not yet opened)
+                Files.deleteIfExists(outputFile);
+            }
+        }
+    }
+
+    private Propagator getPropagator(Orbit orbit) {
+        return this.threadOrbits.get().computeIfAbsent(orbit.getId(), id -> orbit.copy()).getModel().getPropagator();
+    }
+
+    private int computeOrbitNumberAt(Orbit orbit, Date time) {
+        return this.threadOrbits.get().computeIfAbsent(orbit.getId(), id -> orbit.copy()).computeOrbitNumberAt(time);
+    }
+
+    private List<Pass> detectPasses(Orbit orbit, TopocentricFrame stationFrame, double elevationThreshold, AbsoluteDate startDate, AbsoluteDate endDate) {
+        List<Pass> passes = new LinkedList<>();
+        Propagator propagator = getPropagator(orbit);
+        SpacecraftState initialState = propagator.propagate(startDate);
+        // Pass in progress at the start of the horizon: AOS is clipped to the start
+        AbsoluteDate[] currentAos = new AbsoluteDate[] {
+                stationFrame.getElevation(initialState.getPVCoordinates().getPosition(), initialState.getFrame(), startDate) >= elevationThreshold ? startDate : null
+        };
+        EventDetector detector = new ElevationDetector(MAX_CHECK, THRESHOLD, stationFrame).withConstantElevation(elevationThreshold).withHandler((s, d, increasing) -> {
+            if(increasing) {
+                currentAos[0] = s.getDate();
+            } else if(currentAos[0] != null) {
+                passes.add(new Pass(orbit, TimeUtils.toDate(currentAos[0]), TimeUtils.toDate(s.getDate())));
+                currentAos[0] = null;
+            }
+            return Action.CONTINUE;
+        });
+        propagator.addEventDetector(detector);
+        try {
+            propagator.propagate(endDate);
+        } finally {
+            propagator.clearEventsDetectors();
+        }
+        // Pass in progress at the end of the horizon: LOS is clipped to the end
+        if(currentAos[0] != null) {
+            passes.add(new Pass(orbit, TimeUtils.toDate(currentAos[0]), TimeUtils.toDate(endDate)));
+        }
+        return passes;
+    }
+
+    private byte[] samplePass(TrackingPredictionRequest request, TopocentricFrame stationFrame, Pass pass) {
+        Propagator propagator = getPropagator(pass.orbit);
+        int orbitNumber = computeOrbitNumberAt(pass.orbit, pass.aos);
+        String stationCode = request.getGroundStation().getCode().replace(',', '_');
+        String orbitCode = pass.orbit.getCode().replace(',', '_');
+        boolean tdm = request.getFormat() == TrackingPredictionFormatEnum.TDM;
+        StringBuilder sb = new StringBuilder(256 * (int) (1 + (pass.los.getTime() - pass.aos.getTime()) / (1000L * request.getIntervalSeconds())));
+        if(tdm) {
+            sb.append("META_START\n");
+            sb.append("COMMENT Pass of ").append(orbitCode).append(", orbit ").append(orbitNumber).append("\n");
+            sb.append("TIME_SYSTEM = UTC\n");
+            sb.append("START_TIME = ").append(CCSDS_TIME_FORMAT.format(pass.aos.toInstant())).append("\n");
+            sb.append("STOP_TIME = ").append(CCSDS_TIME_FORMAT.format(pass.los.toInstant())).append("\n");
+            sb.append("PARTICIPANT_1 = ").append(stationCode).append("\n");
+            sb.append("PARTICIPANT_2 = ").append(orbitCode).append("\n");
+            sb.append("MODE = SEQUENTIAL\n");
+            // Range and range rate are the geometric one-way values from the station
+            sb.append("PATH = 1,2\n");
+            sb.append("ANGLE_TYPE = AZEL\n");
+            sb.append("RANGE_UNITS = km\n");
+            sb.append("META_STOP\n");
+            sb.append("DATA_START\n");
+        }
+        AbsoluteDate aos = TimeUtils.toAbsoluteDate(pass.aos);
+        AbsoluteDate los = TimeUtils.toAbsoluteDate(pass.los);
+        AbsoluteDate current = aos;
+        while(true) {
+            SpacecraftState ss = propagator.propagate(current);
+            // Single transformation to the station frame, then az/el/range/range-rate from the topocentric coordinates
+            PVCoordinates pv = ss.getPVCoordinates(stationFrame);
+            Vector3D p = pv.getPosition();
+            double range = p.getNorm();
+            double rangeRate = Vector3D.dotProduct(p, pv.getVelocity()) / range;
+            double elevation = Math.toDegrees(p.getDelta());
+            double azimuth = Math.toDegrees(Math.atan2(p.getX(), p.getY()));
+            if(azimuth < 0) {
+                azimuth += 360.0;
+            }
+            Date time = TimeUtils.toDate(current);
+            if(tdm) {
+                String t = CCSDS_TIME_FORMAT.format(time.toInstant());
+                sb.append("ANGLE_1 = ").append(t).append(" ").append(azimuth).append("\n");
+                sb.append("ANGLE_2 = ").append(t).append(" ").append(elevation).append("\n");
+                sb.append("RANGE = ").append(t).append(" ").append(range / 1000.0).append("\n");
+                sb.append("DOPPLER_INSTANTANEOUS = ").append(t).append(" ").append(rangeRate / 1000.0).append("\n");
+            } else {
+                sb.append(stationCode).append(",");
+                sb.append(orbitCode).append(",");
+                sb.append(orbitNumber).append(",");
+                sb.append(CSV_TIME_FORMAT.format(time.toInstant())).append(",");
+                sb.append(elevation).append(",");
+                sb.append(azimuth).append(",");
+                sb.append(range).append(",");
+                sb.append(rangeRate).append("\n");
+            }
+            if(current.compareTo(los) >= 0) {
+                break;
+            }
+            // Next point, the last point is always at LOS
+            AbsoluteDate next = current.shiftedBy(request.getIntervalSeconds());
+            current = next.compareTo(los) > 0 ? los : next;
+        }
+        if(tdm) {
+            sb.append("DATA_STOP\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private String generateHeader(TrackingPredictionRequest request) {
+        if(request.getFormat() == TrackingPredictionFormatEnum.TDM) {
+            return "CCSDS_TDM_VERS = 2.0\n" +
+                    "COMMENT Predicted tracking data for " + request.getGroundStation().getCode() + "\n" +
+                    "CREATION_DATE = " + CCSDS_TIME_FORMAT.format(new Date().toInstant()) + "\n" +
+                    "ORIGINATOR = Dr Orbiteex\n";
+        } else {
+            return VisibilityWindow.GROUND_TRACK_CSV_HEADER;
+        }
+    }
+
+    private static class Pass {
+        private final Orbit orbit;
+        private final Date aos;
+        private final Date los;
+
+        public Pass(Orbit orbit, Date aos, Date los) {
+            this.orbit = orbit;
+            this.aos = aos;
+            this.los = los;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.tracking;
+
+import eu.dariolucia.drorbiteex.model.orbit.Orbit;
+import eu.dariolucia.drorbiteex.model.station.GroundStation;
+
+import java.util.Date;
+import java.util.List;
+
+public class TrackingPredictionRequest {
+
+    private final GroundStation groundStation;
+    private final List<Orbit> orbits;
+
+    private final Date startTime;
+    private final Date endTime;
+
+    private final int intervalSeconds;
+
+    private final TrackingPredictionFormatEnum format;
+
+    private final String filePath;
+
+    private final int cores;
+
+    /**
+     * Request for the generation of the predicted antenna pointing data of all the passes of the provided orbits over
+     * the ground station, in the provided time interval.
+     *
+     * @param groundStation the ground station
+     * @param orbits the orbits
+     * @param startTime start of the horizon
+     * @param endTime end of the horizon
+     * @param intervalSeconds time between two consecutive tracking points (1 second is the minimum)
+     * @param format the output format
+     * @param filePath the output file
+     * @param cores number of threads used for the computation
+     */
+    public TrackingPredictionRequest(GroundStation groundStation, List<Orbit> orbits, Date startTime, Date endTime, int intervalSeconds, TrackingPredictionFormatEnum format, String filePath, int cores) {
+        if(intervalSeconds < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1 second, got " + intervalSeconds);
+        }
+        this.groundStation = groundStation;
+        this.orbits = List.copyOf(orbits);
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.intervalSeconds = intervalSeconds;
+        this.format = format;
+        this.filePath = filePath;
+        this.cores = cores;
+    }
+
+    public GroundStation getGroundStation() {
+        return groundStation;
+    }
+
+    public List<Orbit> getOrbits() {
+        return orbits;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public TrackingPredictionFormatEnum getFormat() {
+        return format;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer to a file channel, accumulating the written data in a direct buffer, which is flushed to the channel only when
+ * full or when explicitly requested. Not thread-safe.
+ */
+public class BufferedChannelWriter implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public BufferedChannelWriter(Path file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedChannelWriter(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while(length > 0) {
+            if(!this.buffer.hasRemaining()) {
+                flush();
+            }
+            int toCopy = Math.min(length, this.buffer.remaining());
+            this.buffer.put(data, offset, toCopy);
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    public void write(String data) throws IOException {
+        write(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Return the internal buffer, after ensuring that at least the requested number of bytes can be put into it. The
+     * returned buffer must be used only to put data, before any other call to this writer.
+     *
+     * @param requiredSpace the number of bytes that the caller is going to put into the buffer
+     * @return the internal buffer
+     * @throws IOException in case of I/O problems when flushing the buffer
+     */
+    public ByteBuffer buffer(int requiredSpace) throws IOException {
+        if(requiredSpace > this.buffer.capacity()) {
+            throw new IllegalArgumentException("Required space " + requiredSpace + " exceeds buffer capacity " + this.buffer.capacity());
+        }
+        if(this.buffer.remaining() < requiredSpace) {
+            flush();
+        }
+        return this.buffer;
+    }
+
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.util;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * StAX-based reader and writer of configuration files composed by a root element, containing an optional configuration
+ * element and a sequence of item elements, identified by an attribute. Each child element is (un)marshalled by JAXB on
+ * its own, so that the file is never loaded into a full object graph. Files can also be copied with a set of
+ * changes (replaced, appended or removed items, replaced configuration), without unmarshalling the unchanged items.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <C> the type of the configuration element
+ * @param <E> the type of the item elements
+ */
+public class StreamingXmlConfiguration<C, E> {
+
+    private final QName rootName;
+    private final QName configurationName;
+    private final Class<C> configurationClass;
+    private final QName itemName;
+    private final Class<E> itemClass;
+    private final QName idAttribute;
+    private final Function<E, String> idFunction;
+
+    private final JAXBContext context;
+    private final XMLInputFactory inputFactory;
+    private final XMLOutputFactory outputFactory;
+
+    public StreamingXmlConfiguration(QName rootName, String configurationElement, Class<C> configurationClass,
+                                     String itemElement, Class<E> itemClass, String idAttribute, Function<E, String> idFunction) {
+        this.rootName = rootName;
+        this.configurationName = new QName(configurationElement);
+        this.configurationClass = configurationClass;
+        this.itemName = new QName(itemElement);
+        this.itemClass = itemClass;
+        this.idAttribute = new QName(idAttribute);
+        this.idFunction = idFunction;
+        try {
+            this.context = JAXBContext.newInstance(configurationClass, itemClass);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Cannot create JAXB context for " + itemClass.getName(), e);
+        }
+        this.inputFactory = XMLInputFactory.newInstance();
+        // No DTD, no external entities
+        this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.outputFactory = XMLOutputFactory.newInstance();
+    }
+
+    /**
+     * Read the configuration file, providing each element to the related consumer as soon as it is read.
+     *
+     * @param is the input stream
+     * @param configurationConsumer the consumer of the configuration element (called at most once)
+     * @param itemConsumer the consumer of the item elements (called once per item, in file order)
+     * @throws IOException in case of I/O or format problems
+     */
+    public void load(InputStream is, Consumer<C> configurationConsumer, Consumer<E> itemConsumer) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = this.inputFactory.createXMLStreamReader(is);
+            Unmarshaller u = this.context.createUnmarshaller();
+            // Move to the root element
+            reader.nextTag();
+            if(!this.rootName.equals(reader.getName())) {
+                throw new IOException("Unexpected root element " + reader.getName() + ", expected " + this.rootName);
+            }
+            // Move to the first child (or to the end of the root)
+            reader.nextTag();
+            while(reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                String localName = reader.getLocalName();
+                if(localName.equals(this.itemName.getLocalPart())) {
+                    itemConsumer.accept(u.unmarshal(reader, this.itemClass).getValue());
+                } else if(localName.equals(this.configurationName.getLocalPart())) {
+                    configurationConsumer.accept(u.unmarshal(reader, this.configurationClass).getValue());
+                } else {
+                    // Unknown element: skip it
+                    skipElement(reader);
+                }
+                // The unmarshaller leaves the reader after the end of the element
+                if(reader.getEventType() != XMLStreamConstants.START_ELEMENT && reader.getEventType() != XMLStreamConstants.END_ELEMENT) {
+                    reader.nextTag();
+                }
+            }
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException(e);
+        } finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a full configuration file.
+     *
+     * @param os the output stream
+     * @param configuration the configuration element, can be null
+     * @param items the item elements
+     * @throws IOException in case of I/O problems
+     */
+    public void save(OutputStream os, C configuration, Collection<E> items) throws IOException {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            writer.write("<ns2:" + this.rootName.getLocalPart() + " xmlns:ns2=\"" + this.rootName.getNamespaceURI() + "\">\n");
+            Marshaller m = createFragmentMarshaller();
+            if(configuration != null) {
+                m.marshal(new JAXBElement<>(this.configurationName, this.configurationClass, configuration), writer);
+                writer.write("\n");
+            }
+            for(E item : items) {
+                m.marshal(new JAXBElement<>(this.itemName, this.itemClass, item), writer);
+                writer.write("\n");
+            }
+            writer.write("</ns2:" + this.rootName.getLocalPart() + ">\n");
+            writer.flush();
+        } catch (JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Copy the provided configuration file, applying the provided changes. Items with the same ID of an updated item
+     * are replaced, updated items not present in the input are appended, removed items are not copied. All the other
+     * elements are copied as they are, without being unmarshalled.
+     *
+     * @param is the input stream of the current configuration file
+     * @param os the output stream of the new configuration file
+     * @param configuration the new configuration element, null to keep the current one
+     * @param updatedItems the items to replace or append
+     * @param removedIds the IDs of the items to remove
+     * @throws IOException in case of I/O or format problems
+     */
+    public void copyWithChanges(InputStream is, OutputStream os, C configuration, Collection<E> updatedItems, Set<String> removedIds) throws IOException {
+        Map<String, E> toWrite = new LinkedHashMap<>();
+        for(E item : updatedItems) {
+            toWrite.put(this.idFunction.apply(item), item);
+        }
+        XMLEventReader reader = null;
+        XMLEventWriter writer = null;
+        try {
+            reader = this.inputFactory.createXMLEventReader(is);
+            writer = this.outputFactory.createXMLEventWriter(os, StandardCharsets.UTF_8.name());
+            Marshaller m = createFragmentMarshaller();
+            int depth = 0;
+            boolean configurationWritten = false;
+            while(reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if(event.isStartElement()) {
+                    if(depth == 1) {
+                        StartElement se = event.asStartElement();
+                        if(se.getName().getLocalPart().equals(this.itemName.getLocalPart())) {
+                            String id = getId(se);
+                            if(id != null && (removedIds.contains(id) || toWrite.containsKey(id))) {
+                                skipElement(reader);
+                                E replacement = toWrite.remove(id);
+                                if(replacement != null) {
+                                    m.marshal(new JAXBElement<>(this.itemName, this.itemClass, replacement), writer);
+                                }
+                                continue;
+                            }
+                        } else if(configuration != null && se.getName().getLocalPart().equals(this.configurationName.getLocalPart())) {
+                            skipElement(reader);
+                            m.marshal(new JAXBElement<>(this.configurationName, this.configurationClass, configuration), writer);
+                            configurationWritten = true;
+                            continue;
+                        }
+                    }
+                    ++depth;
+                } else if(event.isEndElement()) {
+                    --depth;
+                    if(depth == 0) {
+                        // End of the root: append what is missing
+                        if(configuration != null && !configurationWritten) {
+                            m.marshal(new JAXBElement<>(this.configurationName, this.configurationClass, configuration), writer);
+                        }
+                        for(E item : toWrite.values()) {
+                            m.marshal(new JAXBElement<>(this.itemName, this.itemClass, item), writer);
+                        }
+                        toWrite.clear();
+                    }
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException(e);
+        } finally {
+            try {
+                if(writer != null) {
+                    writer.close();
+                }
+                if(reader != null) {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private String getId(StartElement se) {
+        Attribute attr = se.getAttributeByName(this.idAttribute);
+        return attr != null ? attr.getValue() : null;
+    }
+
+    private Marshaller createFragmentMarshaller() throws JAXBException {
+        Marshaller m = this.context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        return m;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        // The reader is on the start element
+        int depth = 1;
+        while(depth > 0) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                ++depth;
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                --depth;
+            }
+        }
+        // Move after the end element
+        reader.next();
+    }
+
+    private static void skipElement(XMLEventReader reader) throws XMLStreamException {
+        // The start element was already read
+        int depth = 1;
+        while(depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if(event.isStartElement()) {
+                ++depth;
+            } else if(event.isEndElement()) {
+                --depth;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persister that coalesces the notifications of changed state and writes the state to the target file at most once
+ * per configured interval, on its own thread. The file is written atomically: the content is written to a temporary
+ * file in the same folder, which then replaces the target file.
+ */
+public class WriteBehindPersister implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(WriteBehindPersister.class.getName());
+
+    /**
+     * Function writing the state to persist.
+     */
+    @FunctionalInterface
+    public interface IStateWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    private final Path target;
+    private final IStateWriter writer;
+    private final Runnable writtenCallback;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+
+    private boolean dirty = false;
+    private ScheduledFuture<?> scheduledWrite = null;
+    private long lastWriteTime = 0;
+    private boolean closed = false;
+
+    public WriteBehindPersister(String name, Path target, long intervalMillis, IStateWriter writer) {
+        this(name, target, intervalMillis, writer, null);
+    }
+
+    /**
+     * Create the persister, with a callback invoked by the writing thread once the target file has been replaced.
+     */
+    public WriteBehindPersister(String name, Path target, long intervalMillis, IStateWriter writer, Runnable writtenCallback) {
+        this.target = target;
+        this.writer = writer;
+        this.writtenCallback = writtenCallback;
+        this.intervalMillis = Math.max(0, intervalMillis);
+        ScheduledThreadPoolExecutor ex = new ScheduledThreadPoolExecutor(1, (r) -> {
+            Thread t = new Thread(r, name + " Persistence Task");
+            t.setDaemon(true);
+            return t;
+        });
+        ex.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = ex;
+    }
+
+    /**
+     * Notify that the state changed and must be persisted. The write is scheduled, unless already scheduled.
+     */
+    public synchronized void markDirty() {
+        if(this.closed) {
+            return;
+        }
+        this.dirty = true;
+        if(this.scheduledWrite == null) {
+            long delay = Math.max(0, this.lastWriteTime + this.intervalMillis - System.currentTimeMillis());
+            this.scheduledWrite = this.executor.schedule(this::scheduledWrite, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the state immediately, if changed, in the calling thread.
+     */
+    public void flush() {
+        synchronized (this) {
+            if(this.scheduledWrite != null) {
+                this.scheduledWrite.cancel(false);
+                this.scheduledWrite = null;
+            }
+        }
+        writeIfDirty();
+    }
+
+    /**
+     * Write the pending state, if any, and stop the persister. Further notifications are ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if(this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        flush();
+        this.executor.shutdownNow();
+    }
+
+    private void scheduledWrite() {
+        synchronized (this) {
+            this.scheduledWrite = null;
+        }
+        writeIfDirty();
+    }
+
+    private void writeIfDirty() {
+        // Only one write at a time: the lock on the writer is taken before clearing the dirty flag, so that a change
+        // notified during the write triggers a new write
+        synchronized (this.writer) {
+            synchronized (this) {
+                if(!this.dirty) {
+                    return;
+                }
+                this.dirty = false;
+                this.lastWriteTime = System.currentTimeMillis();
+            }
+            try {
+                writeAtomically();
+            } catch (IOException | RuntimeException e) {
+                // Keep the state dirty, so that the next write attempt (at the latest on close) retries
+                synchronized (this) {
+                    this.dirty = true;
+                }
+                LOG.log(Level.WARNING, "Cannot persist state to " + this.target + ": " + e.getMessage(), e);
+                return;
+            }
+            if(this.writtenCallback != null) {
+                try {
+                    this.writtenCallback.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Post-write action on " + this.target + " failed: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void writeAtomically() throws IOException {
+        Path folder = this.target.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        Path tempFile = Files.createTempFile(folder, this.target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                this.writer.write(os);
+            }
+            try {
+                Files.move(tempFile, this.target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, this.target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
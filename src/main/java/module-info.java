@@ -32,6 +32,8 @@ open module eu.dariolucia.drorbiteex {
     exports eu.dariolucia.drorbiteex.model.tle;
     exports eu.dariolucia.drorbiteex.model.collinearity;
     exports eu.dariolucia.drorbiteex.model.determination;
+    exports eu.dariolucia.drorbiteex.model.tracking;
+    exports eu.dariolucia.drorbiteex.model.replay;
 
     uses eu.dariolucia.drorbiteex.model.schedule.IScheduleExporter;
     uses eu.dariolucia.drorbiteex.model.schedule.IScheduleNameGenerator;
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.application;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.dariolucia.drorbiteex.model.orbit.CelestrakCatalogueCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CelestrakFileSyncTest {
+
+    private static final String ISS_OLD_LINE_1 = "1 25544U 98067A   23001.50000000  .00016717  00000-0  10270-3 0  9996";
+    private static final String ISS_OLD_LINE_2 = "2 25544  51.6416 247.4627 0006703 130.5360 325.0288 15.50377579 12348";
+    private static final String ISS_NEW_LINE_1 = "1 25544U 98067A   23010.50000000  .00016717  00000-0  10270-3 0  9996";
+    private static final String ISS_NEW_LINE_2 = "2 25544  51.6420 200.1234 0006703 130.5360 325.0288 15.50377579 12354";
+    private static final String NOAA_FILE_LINE_1 = "1 33591U 09005A   23005.00000000  .00000100  00000-0  80000-4 0  9998";
+    private static final String NOAA_FILE_LINE_2 = "2 33591  99.1900 100.0000 0013000 200.0000 160.0000 14.12500000 70005";
+    private static final String NOAA_CELESTRAK_LINE_1 = "1 33591U 09005A   23001.00000000  .00000100  00000-0  80000-4 0  9994";
+    private static final String NOAA_CELESTRAK_LINE_2 = "2 33591  99.1900  90.0000 0013000 200.0000 160.0000 14.12500000 69900";
+    private static final String OTHER_LINE_1 = "1 43013U 17073A   23003.00000000  .00000050  00000-0  40000-4 0  9990";
+    private static final String OTHER_LINE_2 = "2 43013  98.7000  50.0000 0001500  90.0000 270.0000 14.19500000 26004";
+
+    // Newer TLE for the ISS, older TLE for NOAA 19, nothing for the third spacecraft
+    private static final String CELESTRAK_CATALOGUE = "ISS (ZARYA)\n" + ISS_NEW_LINE_1 + "\n" + ISS_NEW_LINE_2 + "\n" +
+            "NOAA 19\n" + NOAA_CELESTRAK_LINE_1 + "\n" + NOAA_CELESTRAK_LINE_2 + "\n";
+
+    private HttpServer server;
+    private CelestrakCatalogueCache previousCache;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int responseCode = 200;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gp", this::handle);
+        server.start();
+        previousCache = CelestrakCatalogueCache.getDefault();
+        CelestrakCatalogueCache.setDefault(new CelestrakCatalogueCache(null, "http://localhost:" + server.getAddress().getPort() + "/gp?GROUP=<group>", 3600000));
+    }
+
+    @AfterEach
+    void stopServer() {
+        CelestrakCatalogueCache.setDefault(previousCache);
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        byte[] body = (responseCode == 200 ? CELESTRAK_CATALOGUE : "Internal error").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(responseCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void assumeOrekitData() {
+        // TLE parsing needs the Orekit data (UTC-TAI history)
+        assumeTrue(OrekitDataBootstrap.getOrekitDataFolder().isDirectory(), "Orekit data folder not available");
+        OrekitDataBootstrap.initialise();
+    }
+
+    @Test
+    void testTleLinesReplacedInPlace() throws IOException {
+        assumeOrekitData();
+        // Empty line between line 1 and line 2 of the ISS, Windows line terminators, an invalid record
+        String content = "ISS (ZARYA)\r\n" + ISS_OLD_LINE_1 + "\r\n\r\n" + ISS_OLD_LINE_2 + "\r\n" +
+                "NOAA 19\n" + NOAA_FILE_LINE_1 + "\n" + NOAA_FILE_LINE_2 + "\n" +
+                "INVALID\n1 00001U\n2 00001\n" +
+                "FENGYUN 3D\n" + OTHER_LINE_1 + "\n" + OTHER_LINE_2;
+        Path file = folder.resolve("satellites.tle");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        assertTrue(CelestrakFileSync.sync(List.of("weather", "stations"), List.of(file.toString())));
+
+        String expected = "ISS (ZARYA)\r\n" + ISS_NEW_LINE_1 + "\r\n\r\n" + ISS_NEW_LINE_2 + "\r\n" +
+                "NOAA 19\n" + NOAA_FILE_LINE_1 + "\n" + NOAA_FILE_LINE_2 + "\n" +
+                "INVALID\n1 00001U\n2 00001\n" +
+                "FENGYUN 3D\n" + OTHER_LINE_1 + "\n" + OTHER_LINE_2;
+        assertEquals(expected, Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(content, Files.readString(folder.resolve("satellites.tle.bkp"), StandardCharsets.UTF_8));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testFileNotModifiedWhenUpToDate() throws IOException {
+        assumeOrekitData();
+        String content = "ISS (ZARYA)\n" + ISS_NEW_LINE_1 + "\n" + ISS_NEW_LINE_2 + "\n";
+        Path file = folder.resolve("satellites.tle");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        assertTrue(CelestrakFileSync.sync(List.of("stations"), List.of(file.toString())));
+
+        assertEquals(content, Files.readString(file, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(folder.resolve("satellites.tle.bkp")));
+    }
+
+    @Test
+    void testFileNotModifiedWhenCelestrakNotAvailable() throws IOException {
+        responseCode = 500;
+        String content = "ISS (ZARYA)\n" + ISS_OLD_LINE_1 + "\n" + ISS_OLD_LINE_2 + "\n";
+        Path file = folder.resolve("satellites.tle");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        assertFalse(CelestrakFileSync.sync(List.of("stations"), List.of(file.toString())));
+
+        assertEquals(1, requests.get());
+        assertEquals(content, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEmptyGroupListRejected() throws IOException {
+        Path file = folder.resolve("satellites.tle");
+        Files.writeString(file, "", StandardCharsets.UTF_8);
+
+        List<String> groups = CelestrakFileSync.parseGroupNames(" , ,");
+        assertTrue(groups.isEmpty());
+        assertFalse(CelestrakFileSync.sync(groups, List.of(file.toString())));
+        assertFalse(CelestrakFileSync.sync(List.of("stations"), List.of()));
+
+        assertEquals(0, requests.get());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.fxml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectedPolylineTest {
+
+    // Widget 200x200 pixels showing longitudes [-10, 10] and latitudes [-10, 10]: 10 pixels per degree
+    private static final ViewBox WIDGET_VIEWPORT = new ViewBox(0, 0, 200, 200);
+    private static final ViewBox LAT_LON_VIEWPORT = new ViewBox(-10, 10, 10, -10);
+
+    @Test
+    void testSimplifyDropsPointsWithinTolerance() {
+        double[] xy = { 0, 0, 1, 0.2, 2, -0.2, 3, 0.1, 4, 0 };
+        assertArrayEquals(new double[] { 0, 0, 4, 0 }, ProjectedPolyline.simplify(xy, 5, 0.5));
+    }
+
+    @Test
+    void testSimplifyKeepsPointsBeyondTolerance() {
+        double[] xy = { 0, 0, 1, 2.6, 2, 5, 3, 2.4, 4, 0 };
+        assertArrayEquals(new double[] { 0, 0, 2, 5, 4, 0 }, ProjectedPolyline.simplify(xy, 5, 0.5));
+        // With a large tolerance, only the end points are left
+        assertArrayEquals(new double[] { 0, 0, 4, 0 }, ProjectedPolyline.simplify(xy, 5, 10));
+    }
+
+    @Test
+    void testSimplifyShortSequences() {
+        double[] xy = { 1, 2, 3, 4, 99, 99 };
+        assertArrayEquals(new double[] { 1, 2, 3, 4 }, ProjectedPolyline.simplify(xy, 2, 0.5));
+        assertArrayEquals(new double[] { 1, 2 }, ProjectedPolyline.simplify(xy, 1, 0.5));
+    }
+
+    @Test
+    void testProjectVisiblePoints() {
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 0, -5 }, new double[] { 5, 0 }, new double[] { 0, 5 }), true, 0.5);
+        List<double[]> runs = p.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT);
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[] { 50, 100, 100, 50, 150, 100 }, runs.get(0));
+    }
+
+    @Test
+    void testProjectKeepsSegmentCrossingViewportWithEndsOutside() {
+        // Both end points are outside the viewport, the segment crosses it
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 0, -20 }, new double[] { 0, 20 }), true, 0.5);
+        List<double[]> runs = p.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT);
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[] { -100, 100, 300, 100 }, runs.get(0));
+    }
+
+    @Test
+    void testProjectCullsSegmentsOutsideViewport() {
+        // First segment crosses the viewport, then the polyline goes away from it
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 0, -20 }, new double[] { 0, 20 },
+                new double[] { 30, 30 }, new double[] { 40, 40 }, new double[] { 50, 50 }), true, 0.5);
+        List<double[]> runs = p.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT);
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[] { -100, 100, 300, 100 }, runs.get(0));
+        // Nothing visible
+        ProjectedPolyline far = new ProjectedPolyline(List.of(new double[] { 30, 30 }, new double[] { 40, 40 }), true, 0.5);
+        assertTrue(far.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT).isEmpty());
+    }
+
+    @Test
+    void testProjectSplitsAtAntimeridian() {
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 0, 170 }, new double[] { 1, 179 },
+                new double[] { 2, -179 }, new double[] { 3, -170 }), true, 0.5);
+        List<double[]> runs = p.project(new ViewBox(0, 0, 360, 180), new ViewBox(-180, 90, 180, -90));
+        assertEquals(2, runs.size());
+        assertArrayEquals(new double[] { 350, 90, 359, 89 }, runs.get(0), 1e-9);
+        assertArrayEquals(new double[] { 1, 88, 10, 87 }, runs.get(1), 1e-9);
+    }
+
+    @Test
+    void testProjectWithoutCullingKeepsAllPoints() {
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 30, 30 }, new double[] { 40, 40 }, new double[] { 30, 50 }), false, 0.5);
+        List<double[]> runs = p.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT);
+        assertEquals(1, runs.size());
+        assertEquals(6, runs.get(0).length);
+    }
+
+    @Test
+    void testProjectionCachedForSameViewport() {
+        ProjectedPolyline p = new ProjectedPolyline(List.of(new double[] { 0, -5 }, new double[] { 0, 5 }), true, 0.5);
+        List<double[]> first = p.project(WIDGET_VIEWPORT, LAT_LON_VIEWPORT);
+        assertSame(first, p.project(WIDGET_VIEWPORT.copy(), LAT_LON_VIEWPORT.copy()));
+        assertNotSame(first, p.project(WIDGET_VIEWPORT, new ViewBox(-20, 20, 20, -20)));
+    }
+}
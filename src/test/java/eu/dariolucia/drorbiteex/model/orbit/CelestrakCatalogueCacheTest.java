@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023 Dario Lucia (https://www.dariolucia.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.dariolucia.drorbiteex.model.orbit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CelestrakCatalogueCacheTest {
+
+    private static final String CATALOGUE_V1 = "SAT A\n" +
+            "1 00001U 98067A   23001.00000000  .00000000  00000-0  00000-0 0  9990\n" +
+            "2 00001  51.6000 000.0000 0001000 000.0000 000.0000 15.50000000000000\n";
+    private static final String CATALOGUE_V2 = CATALOGUE_V1 + "SAT B\n" +
+            "1 00002U 98067B   23001.00000000  .00000000  00000-0  00000-0 0  9991\n" +
+            "2 00002  51.6000 000.0000 0001000 000.0000 000.0000 15.50000000000000\n";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Sun, 01 Jan 2023 00:00:00 GMT";
+
+    private HttpServer server;
+    // Request headers (If-None-Match, If-Modified-Since) of the received requests
+    private final List<String[]> requests = new CopyOnWriteArrayList<>();
+    private volatile int responseCode = 200;
+    private volatile String responseBody = CATALOGUE_V1;
+    private volatile boolean honourConditionalRequests = true;
+
+    @TempDir
+    Path cacheFolder;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gp", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if(server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        requests.add(new String[] { ifNoneMatch, ifModifiedSince });
+        if(honourConditionalRequests && responseCode == 200 && ETAG.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+        if(responseCode == 200) {
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+        }
+        exchange.sendResponseHeaders(responseCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private CelestrakCatalogueCache createCache(Path folder, long ttlMillis) {
+        return new CelestrakCatalogueCache(folder, "http://localhost:" + server.getAddress().getPort() + "/gp?GROUP=<group>", ttlMillis);
+    }
+
+    @Test
+    void testCatalogueServedFromCacheWithinTtl() throws IOException {
+        CelestrakCatalogueCache cache = createCache(null, 3600000);
+        CelestrakCatalogueCache.Catalogue first = cache.getCatalogue("stations");
+        CelestrakCatalogueCache.Catalogue second = cache.getCatalogue("stations");
+        assertEquals(1, requests.size());
+        assertSame(first, second);
+        assertEquals(1, second.getEntries().size());
+        assertNotNull(second.getByName("SAT A"));
+        assertNotNull(second.getByNoradId(1));
+    }
+
+    @Test
+    void testCatalogueLoadedFromDiskWithinTtl() throws IOException {
+        createCache(cacheFolder, 3600000).getCatalogue("stations");
+        // New instance, e.g. after a restart: no download
+        CelestrakCatalogueCache.Catalogue c = createCache(cacheFolder, 3600000).getCatalogue("stations");
+        assertEquals(1, requests.size());
+        assertEquals(CATALOGUE_V1, c.getContent());
+        assertEquals(ETAG, c.getEtag());
+    }
+
+    @Test
+    void testExpiredCatalogueRevalidatedWithConditionalRequest() throws IOException {
+        // Negative TTL: always expired
+        CelestrakCatalogueCache cache = createCache(cacheFolder, -1);
+        CelestrakCatalogueCache.Catalogue first = cache.getCatalogue("stations");
+        // Content changed on server, but the ETag matches: 304 and the cached content is kept
+        responseBody = CATALOGUE_V2;
+        CelestrakCatalogueCache.Catalogue second = cache.getCatalogue("stations");
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0)[0]);
+        assertNull(requests.get(0)[1]);
+        assertEquals(ETAG, requests.get(1)[0]);
+        assertEquals(LAST_MODIFIED, requests.get(1)[1]);
+        assertEquals(first.getContent(), second.getContent());
+        assertEquals(1, second.getEntries().size());
+        assertTrue(second.getFetchTime() >= first.getFetchTime());
+    }
+
+    @Test
+    void testExpiredCatalogueReplacedWhenModified() throws IOException {
+        CelestrakCatalogueCache cache = createCache(null, -1);
+        cache.getCatalogue("stations");
+        honourConditionalRequests = false;
+        responseBody = CATALOGUE_V2;
+        CelestrakCatalogueCache.Catalogue second = cache.getCatalogue("stations");
+        assertEquals(2, requests.size());
+        assertEquals(2, second.getEntries().size());
+    }
+
+    @Test
+    void testStaleCatalogueReturnedOnError() throws IOException {
+        CelestrakCatalogueCache cache = createCache(cacheFolder, -1);
+        CelestrakCatalogueCache.Catalogue first = cache.getCatalogue("stations");
+        responseCode = 500;
+        responseBody = "Internal error";
+        CelestrakCatalogueCache.Catalogue second = cache.getCatalogue("stations");
+        assertEquals(2, requests.size());
+        assertEquals(first.getContent(), second.getContent());
+        // Also after a restart, from disk
+        CelestrakCatalogueCache.Catalogue third = createCache(cacheFolder, -1).getCatalogue("stations");
+        assertEquals(3, requests.size());
+        assertEquals(first.getContent(), third.getContent());
+    }
+
+    @Test
+    void testErrorWithoutCachedCatalogue() {
+        responseCode = 500;
+        responseBody = "Internal error";
+        CelestrakCatalogueCache cache = createCache(null, 3600000);
+        assertThrows(IOException.class, () -> cache.getCatalogue("stations"));
+    }
+
+    @Test
+    void testUnreachableServerWithStaleCatalogue() throws IOException {
+        CelestrakCatalogueCache cache = createCache(null, -1);
+        CelestrakCatalogueCache.Catalogue first = cache.getCatalogue("stations");
+        stopServer();
+        CelestrakCatalogueCache.Catalogue second = cache.getCatalogue("stations");
+        assertEquals(first.getContent(), second.getContent());
+    }
+}